@@ -2,8 +2,10 @@ package com.naturgy.gas;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class GasApplication {
     public static void main(String[] args) {
         SpringApplication.run(GasApplication.class, args);
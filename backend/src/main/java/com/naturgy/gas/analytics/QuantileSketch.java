@@ -0,0 +1,89 @@
+package com.naturgy.gas.analytics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantee (DDSketch, log-spaced buckets).
+ *
+ * Every value v > 0 falls in bucket k = ceil(log_γ v) with γ = (1 + α) / (1 − α); any quantile
+ * answered from the buckets is within a factor (1 ± α) of the exact value. Memory grows with the
+ * log of the value range, not with the number of values (≈ 1.4k buckets for 1e-3 .. 1e9 at α = 1%).
+ * Not thread-safe; callers synchronize.
+ */
+public final class QuantileSketch {
+
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("QuantileSketch accepts values >= 0, got " + value);
+        }
+        if (value < MIN_INDEXABLE) {
+            zeroCount++;
+        } else {
+            bins.merge((int) Math.ceil(Math.log(value) / logGamma), 1L, Long::sum);
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /** Value at quantile q ∈ [0, 1], or NaN when empty. */
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        long rank = (long) (q * (count - 1));
+        if (rank < zeroCount) return 0;
+        long seen = zeroCount;
+        for (Map.Entry<Integer, Long> e : bins.entrySet()) {
+            seen += e.getValue();
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(gamma, e.getKey()) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        other.bins.forEach((k, v) -> bins.merge(k, v, Long::sum));
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch c = new QuantileSketch(relativeAccuracy);
+        c.merge(this);
+        return c;
+    }
+
+    public long count() { return count; }
+    public double relativeAccuracy() { return relativeAccuracy; }
+    public double min() { return count == 0 ? Double.NaN : min; }
+    public double max() { return count == 0 ? Double.NaN : max; }
+}
@@ -0,0 +1,97 @@
+package com.naturgy.gas.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted heavy-hitters summary (Space-Saving) with a fixed number of counters.
+ *
+ * Each reported weight overestimates the true weight by at most its own {@code error},
+ * which is bounded by total / capacity; any item whose true weight exceeds that bound is
+ * guaranteed to be tracked. Summaries merge (Agarwal et al., "Mergeable Summaries") with
+ * the same bound on the combined total. Not thread-safe; callers synchronize.
+ */
+public final class TopKSketch {
+
+    public record Item(String key, double weight, double error) {}
+
+    private final int capacity;
+    private final Map<String, double[]> counters; // key → {weight, error}
+    private double total;
+
+    public TopKSketch(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key, double weight) {
+        if (weight <= 0) return;
+        total += weight;
+        double[] c = counters.get(key);
+        if (c != null) {
+            c[0] += weight;
+        } else if (counters.size() < capacity) {
+            counters.put(key, new double[]{weight, 0});
+        } else {
+            Map.Entry<String, double[]> min = minEntry();
+            counters.remove(min.getKey());
+            double floor = min.getValue()[0];
+            counters.put(key, new double[]{floor + weight, floor});
+        }
+    }
+
+    public void merge(TopKSketch other) {
+        double myMin = counters.size() < capacity ? 0 : minEntry().getValue()[0];
+        double otherMin = other.counters.size() < other.capacity ? 0 : other.minEntry().getValue()[0];
+        Map<String, double[]> merged = new HashMap<>();
+        counters.forEach((k, v) -> {
+            double[] o = other.counters.get(k);
+            merged.put(k, o != null
+                    ? new double[]{v[0] + o[0], v[1] + o[1]}
+                    : new double[]{v[0] + otherMin, v[1] + otherMin});
+        });
+        other.counters.forEach((k, o) -> merged.computeIfAbsent(k, x -> new double[]{o[0] + myMin, o[1] + myMin}));
+
+        counters.clear();
+        merged.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, double[]> e) -> e.getValue()[0]).reversed())
+                .limit(capacity)
+                .forEach(e -> counters.put(e.getKey(), e.getValue()));
+        total += other.total;
+    }
+
+    /** Up to n heaviest items, heaviest first. */
+    public List<Item> top(int n) {
+        List<Item> items = new ArrayList<>(counters.size());
+        counters.forEach((k, v) -> items.add(new Item(k, v[0], v[1])));
+        items.sort(Comparator.comparingDouble(Item::weight).reversed());
+        return items.size() > n ? items.subList(0, n) : items;
+    }
+
+    public TopKSketch copy() {
+        TopKSketch c = new TopKSketch(capacity);
+        counters.forEach((k, v) -> c.counters.put(k, v.clone()));
+        c.total = total;
+        return c;
+    }
+
+    /** Worst-case overestimation of any reported weight. */
+    public double errorBound() {
+        return total / capacity;
+    }
+
+    public double total() { return total; }
+    public int capacity() { return capacity; }
+
+    private Map.Entry<String, double[]> minEntry() {
+        Map.Entry<String, double[]> min = null;
+        for (Map.Entry<String, double[]> e : counters.entrySet()) {
+            if (min == null || e.getValue()[0] < min.getValue()[0]) min = e;
+        }
+        return min;
+    }
+}
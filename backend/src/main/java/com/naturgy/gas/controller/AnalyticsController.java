@@ -0,0 +1,55 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.service.ConsumptionStatsService;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/gas/analytics")
+public class AnalyticsController {
+
+    private final ConsumptionStatsService statsService;
+
+    public AnalyticsController(ConsumptionStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    /**
+     * GET /api/gas/analytics/consumption?from=YYYY-MM&to=YYYY-MM&zona=&tarifa=&top=10
+     * Approximate kWh percentiles per invoice, top-N consumers and distinct CUPS for the window
+     * (to defaults to from). Every figure comes with its error bound, see {@link ConsumptionStatsService}.
+     */
+    @GetMapping("/consumption")
+    public ConsumptionStatsService.ConsumptionStats consumption(
+            @RequestParam String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String zona,
+            @RequestParam(required = false) String tarifa,
+            @RequestParam(defaultValue = "10") int top) {
+        if (top < 0) {
+            throw new IllegalArgumentException("top must be >= 0");
+        }
+        YearMonth fromMonth = parseMonth(from);
+        YearMonth toMonth = to != null ? parseMonth(to) : fromMonth;
+        return statsService.query(fromMonth, toMonth, zona, tarifa, top);
+    }
+
+    /**
+     * POST /api/gas/analytics/rebuild
+     * Recomputes all sketches from the invoice and gas_reading tables
+     * (after deletions or compaction, which the stream does not subtract).
+     */
+    @PostMapping("/rebuild")
+    public ConsumptionStatsService.RebuildResult rebuild() {
+        return statsService.rebuild();
+    }
+
+    private YearMonth parseMonth(String s) {
+        try { return YearMonth.parse(s); }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid period format. Expected YYYY-MM, got: " + s);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.naturgy.gas.controller;
+
+import java.util.List;
+
+/**
+ * DTO for the batched as-of reading lookup. Either:
+ *   { "date": "YYYY-MM-DD", "cups": ["ES…", …] }            one date for every CUPS, or
+ *   { "items": [ { "cups": "ES…", "date": "YYYY-MM-DD" }, … ] } one date per CUPS.
+ */
+public class AsOfLookupRequest {
+    private String date;
+    private List<String> cups;
+    private List<Item> items;
+
+    public static class Item {
+        private String cups;
+        private String date;
+
+        public Item() {}
+
+        public Item(String cups, String date) {
+            this.cups = cups;
+            this.date = date;
+        }
+
+        public String getCups() { return cups; }
+        public void setCups(String cups) { this.cups = cups; }
+        public String getDate() { return date; }
+        public void setDate(String date) { this.date = date; }
+    }
+
+    public AsOfLookupRequest() {}
+
+    public String getDate() { return date; }
+    public void setDate(String date) { this.date = date; }
+    public List<String> getCups() { return cups; }
+    public void setCups(List<String> cups) { this.cups = cups; }
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+}
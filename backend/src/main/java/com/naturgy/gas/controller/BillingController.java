@@ -1,9 +1,13 @@
 package com.naturgy.gas.controller;
 
 import com.naturgy.gas.service.BillingService;
+import com.naturgy.gas.service.BillingSummaryService;
+import com.naturgy.gas.service.InvoiceRollbackService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
 
@@ -12,9 +16,14 @@ import java.util.Map;
 public class BillingController {
 
     private final BillingService billingService;
+    private final BillingSummaryService summaryService;
+    private final InvoiceRollbackService rollbackService;
 
-    public BillingController(BillingService billingService) {
+    public BillingController(BillingService billingService, BillingSummaryService summaryService,
+                             InvoiceRollbackService rollbackService) {
         this.billingService = billingService;
+        this.summaryService = summaryService;
+        this.rollbackService = rollbackService;
     }
 
     /**
@@ -28,7 +37,59 @@ public class BillingController {
         return ResponseEntity.ok(Map.of(
                 "period", period,
                 "invoicesCreated", result.invoices().size(),
-                "errors", result.errors()
+                "errors", result.errors().stream().map(BillingService.BillingError::message).toList()
         ));
     }
+
+    /**
+     * GET /api/gas/billing/summary?period=YYYY-MM | from=YYYY-MM&to=YYYY-MM &zona=&tarifa=
+     * Invoice count, base / impuestos / total sums, min / max / avg total and kWh per
+     * period × zona × tarifa, plus their grand total. Read from billing_summary, not from the invoices.
+     */
+    @GetMapping("/summary")
+    public BillingSummaryService.SummaryReport summary(
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String zona,
+            @RequestParam(required = false) String tarifa) {
+        String fromParam = period != null ? period : from;
+        if (fromParam == null) {
+            throw new IllegalArgumentException("period or from is required");
+        }
+        YearMonth fromMonth = parseMonth(fromParam);
+        YearMonth toMonth = period != null || to == null ? fromMonth : parseMonth(to);
+        return summaryService.report(fromMonth, toMonth, zona, tarifa);
+    }
+
+    /**
+     * POST /api/gas/billing/summary/rebuild?period=YYYY-MM
+     * Recomputes the summary of one period (all periods without it) from the invoice table,
+     * e.g. after invoices were changed outside the API or the summary table was restored.
+     */
+    @PostMapping("/summary/rebuild")
+    public BillingSummaryService.RebuildResult rebuildSummary(@RequestParam(required = false) String period) {
+        return summaryService.rebuild(period != null ? parseMonth(period) : null);
+    }
+
+    /**
+     * POST /api/gas/billing/rollback?period=YYYY-MM[&zona=][&tarifa=][&cups=ES…,ES…]
+     * Deletes the invoices of a period (optionally one zona / tarifa or a CUPS list) in chunked
+     * set-based transactions, so the period can be billed again. Returns the deleted counts and
+     * the sequence number the next invoice of the period will get.
+     */
+    @PostMapping("/rollback")
+    public InvoiceRollbackService.RollbackResult rollback(@RequestParam String period,
+                                                          @RequestParam(required = false) String zona,
+                                                          @RequestParam(required = false) String tarifa,
+                                                          @RequestParam(required = false) List<String> cups) {
+        return rollbackService.rollback(parseMonth(period), zona, tarifa, cups);
+    }
+
+    private YearMonth parseMonth(String s) {
+        try { return YearMonth.parse(s); }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid period format. Expected YYYY-MM, got: " + s);
+        }
+    }
 }
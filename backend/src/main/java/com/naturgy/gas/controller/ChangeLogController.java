@@ -0,0 +1,38 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.service.ChangeLogService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/gas/changes")
+public class ChangeLogController {
+
+    private final ChangeLogService changeLog;
+
+    public ChangeLogController(ChangeLogService changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * GET /api/gas/changes?after=0&limit=500
+     * Created / deleted invoices and readings after the cursor, oldest first:
+     * {entries[{id, entityType, operation, entityKey, cups, changedAt}], nextCursor, hasMore}.
+     * Pass nextCursor as after on the next call; 410 when the cursor predates the retained log.
+     * A consumer without a cursor, or whose cursor is gone, gets one from /head.
+     */
+    @GetMapping
+    public ChangeLogService.ChangePage changes(@RequestParam(defaultValue = "0") long after,
+                                               @RequestParam(defaultValue = "500") int limit) {
+        return changeLog.read(after, limit);
+    }
+
+    /**
+     * GET /api/gas/changes/head
+     * {purgedThrough, head}: after=purgedThrough reads every retained entry (oldest first),
+     * after=head reads only changes from now on.
+     */
+    @GetMapping("/head")
+    public ChangeLogService.FeedBounds head() {
+        return changeLog.bounds();
+    }
+}
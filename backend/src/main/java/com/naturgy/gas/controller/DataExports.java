@@ -0,0 +1,34 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.service.DataExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/** Request parsing and response headers shared by the CSV / NDJSON export endpoints. */
+final class DataExports {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private DataExports() {}
+
+    static DataExportService.Format parseFormat(String format) {
+        try {
+            return DataExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format debe ser csv o ndjson");
+        }
+    }
+
+    static ResponseEntity<StreamingResponseBody> response(String baseName, DataExportService.Format format,
+                                                          boolean gzip, StreamingResponseBody body) {
+        String filename = baseName + (format == DataExportService.Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? GZIP : format == DataExportService.Format.CSV ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
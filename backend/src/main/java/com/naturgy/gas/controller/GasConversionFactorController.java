@@ -2,11 +2,16 @@ package com.naturgy.gas.controller;
 
 import com.naturgy.gas.entity.GasConversionFactor;
 import com.naturgy.gas.repository.GasConversionFactorRepository;
+import com.naturgy.gas.service.MasterDataImportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,9 +19,11 @@ import java.util.List;
 public class GasConversionFactorController {
 
     private final GasConversionFactorRepository repo;
+    private final MasterDataImportService importService;
 
-    public GasConversionFactorController(GasConversionFactorRepository repo) {
+    public GasConversionFactorController(GasConversionFactorRepository repo, MasterDataImportService importService) {
         this.repo = repo;
+        this.importService = importService;
     }
 
     @GetMapping
@@ -43,6 +50,20 @@ public class GasConversionFactorController {
         return ResponseEntity.status(HttpStatus.CREATED).body(repo.save(cf));
     }
 
+    /**
+     * POST /api/gas/conversion-factors/import?allOrNothing=false   (text/csv or application/json)
+     * Bulk upsert keyed by zona + mes. CSV: zona,mes,coef_conv,pcs_kwh_m3 with a header line;
+     * JSON: an array of {zona, mes, coefConv, pcsKwhM3}.
+     * Returns {kind, rows, inserted, updated, rejected, committed, errors[]}; 422 when rolled back.
+     */
+    @PostMapping(value = "/import", consumes = {MasterDataImports.CSV, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<MasterDataImportService.UpsertResult> importData(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(defaultValue = "false") boolean allOrNothing,
+            InputStream body) throws IOException {
+        return MasterDataImports.upsert(importService, MasterDataImportService.Kind.CONVERSION_FACTORS, contentType, allOrNothing, body);
+    }
+
     @PutMapping("/{id}")
     public GasConversionFactor update(@PathVariable Long id, @RequestBody GasConversionFactor cf) {
         GasConversionFactor existing = repo.findById(id)
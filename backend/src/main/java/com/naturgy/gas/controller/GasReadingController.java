@@ -1,15 +1,28 @@
 package com.naturgy.gas.controller;
 
 import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.ingest.ReadingBinaryFormat;
 import com.naturgy.gas.repository.GasReadingRepository;
+import com.naturgy.gas.service.DataExportService;
+import com.naturgy.gas.service.ReadingArchiveService;
+import com.naturgy.gas.service.ReadingImportService;
+import com.naturgy.gas.service.ReadingLookupService;
+import com.naturgy.gas.service.ReadingLookupService.AsOfQuery;
+import com.naturgy.gas.service.ReadingWriteService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
@@ -22,29 +35,114 @@ import java.util.Map;
 public class GasReadingController {
 
     private final GasReadingRepository repo;
-
-    public GasReadingController(GasReadingRepository repo) {
+    private final ReadingImportService importService;
+    private final ReadingLookupService lookupService;
+    private final ReadingArchiveService archiveService;
+    private final ObjectMapper objectMapper;
+    private final DataExportService exportService;
+    private final ReadingWriteService writeService;
+    private final int maxLookupItems;
+
+    public GasReadingController(GasReadingRepository repo, ReadingImportService importService,
+                                ReadingLookupService lookupService, ReadingArchiveService archiveService,
+                                ObjectMapper objectMapper, DataExportService exportService,
+                                ReadingWriteService writeService,
+                                @Value("${gas.lookup.max-items:100000}") int maxLookupItems) {
         this.repo = repo;
+        this.importService = importService;
+        this.lookupService = lookupService;
+        this.archiveService = archiveService;
+        this.objectMapper = objectMapper;
+        this.exportService = exportService;
+        this.writeService = writeService;
+        this.maxLookupItems = maxLookupItems;
     }
 
+    /**
+     * GET /api/gas/readings?cups=&includeArchive=
+     * includeArchive=true (requires cups) also returns readings moved to the cold archive
+     * by compaction; slower, as it reads the archive blocks of that CUPS.
+     */
     @GetMapping
     public List<GasReading> getAll(
-            @RequestParam(required = false) String cups) {
+            @RequestParam(required = false) String cups,
+            @RequestParam(defaultValue = "false") boolean includeArchive) {
         if (cups != null) {
-            return repo.findByIdCupsOrderByIdFechaAsc(cups);
+            List<GasReading> hot = repo.findByIdCupsOrderByIdFechaAsc(cups);
+            return includeArchive ? archiveService.mergeWithArchive(cups, hot) : hot;
+        }
+        if (includeArchive) {
+            throw new IllegalArgumentException("includeArchive requires cups");
         }
         return repo.findAll();
     }
 
+    /** Falls back to the cold archive when the reading is no longer in gas_reading. */
     @GetMapping("/{cups}/{fecha}")
     public GasReading getById(@PathVariable String cups, @PathVariable String fecha) {
         LocalDate date = parseDate(fecha);
         GasReading.GasReadingId id = new GasReading.GasReadingId(cups, date);
         return repo.findById(id)
+                .or(() -> archiveService.findArchived(cups, date))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Reading not found: " + cups + "/" + fecha));
     }
 
+    /**
+     * POST /api/gas/readings/compact?horizon=YYYY-MM-DD
+     * Moves readings older than the horizon (default: gas.archive.horizon-months ago) to the
+     * cold archive, keeping the last reading of each month per CUPS for billing.
+     */
+    @PostMapping("/compact")
+    public ReadingArchiveService.CompactionResult compact(@RequestParam(required = false) String horizon) {
+        LocalDate h = horizon != null ? parseDate(horizon) : archiveService.defaultHorizon();
+        return archiveService.compact(h);
+    }
+
+    /**
+     * POST /api/gas/readings/as-of
+     * Reading in effect at a date (last on or before it) for many CUPS at once,
+     * see {@link AsOfLookupRequest}. Streams a JSON array with one entry per
+     * requested pair, in request order; found=false when the CUPS has no reading yet.
+     * Readings moved to the archive by compaction are still taken into account.
+     */
+    @PostMapping("/as-of")
+    public ResponseEntity<StreamingResponseBody> asOf(@RequestBody AsOfLookupRequest request) {
+        List<AsOfQuery> queries = toAsOfQueries(request);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.createGenerator(out)) {
+                gen.writeStartArray();
+                lookupService.resolve(queries, result -> {
+                    try {
+                        gen.writeObject(result);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * GET /api/gas/readings/export?cups=&from=YYYY-MM-DD&to=YYYY-MM-DD&format=csv|ndjson&gzip=false
+     * Streams readings (hot table only) ordered by cups and fecha, in constant memory.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String cups,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        LocalDate fromDate = from != null ? parseDate(from) : null;
+        LocalDate toDate = to != null ? parseDate(to) : null;
+        DataExportService.Format fmt = DataExports.parseFormat(format);
+        StreamingResponseBody body = out -> exportService.exportReadings(cups, fromDate, toDate, fmt, gzip, out);
+        return DataExports.response("lecturas", fmt, gzip, body);
+    }
+
     @PostMapping
     public ResponseEntity<GasReading> create(@RequestBody CreateReadingRequest request) {
         // Validate required fields
@@ -75,28 +173,18 @@ public class GasReadingController {
             throw new IllegalArgumentException("tipo debe ser REAL o ESTIMADA");
         }
 
-        // Create ID and check for duplicates
-        GasReading.GasReadingId id = new GasReading.GasReadingId(request.getCups(), fecha);
-        if (repo.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT,
-                    "Reading already exists: " + request.getCups() + "/" + request.getFecha());
-        }
-
-        // Create and save
-        GasReading reading = new GasReading(request.getCups(), fecha, request.getLecturaM3(), tipo);
-        return ResponseEntity.status(HttpStatus.CREATED).body(repo.save(reading));
+        // Create and save (409 on duplicates), with its change log entry
+        GasReading saved = writeService.create(new GasReading(request.getCups(), fecha, request.getLecturaM3(), tipo));
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @DeleteMapping("/{cups}/{fecha}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable String cups, @PathVariable String fecha) {
-        LocalDate date = parseDate(fecha);
-        GasReading.GasReadingId id = new GasReading.GasReadingId(cups, date);
-        if (!repo.existsById(id)) {
+        if (!writeService.delete(cups, parseDate(fecha))) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                     "Reading not found: " + cups + "/" + fecha);
         }
-        repo.deleteById(id);
     }
 
     /**
@@ -105,69 +193,50 @@ public class GasReadingController {
      */
     @PostMapping("/import")
     public Map<String, Object> importCsv(@RequestParam("file") MultipartFile file) {
-        int inserted = 0, skipped = 0;
-        List<String> errors = new ArrayList<>();
-
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-            String header = br.readLine(); // skip header
-            if (header == null) {
-                return Map.of("inserted", 0, "skipped", 0, "errors", List.of("Empty file"));
-            }
-            String line;
-            int row = 1;
-            while ((line = br.readLine()) != null) {
-                row++;
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    errors.add("Row " + row + ": expected 4 columns, got " + cols.length);
-                    continue;
-                }
-                String cups = cols[0].trim();
-                String fechaStr = cols[1].trim();
-                String lecturaStr = cols[2].trim();
-                String tipoStr = cols[3].trim();
-
-                LocalDate fecha;
-                try { fecha = LocalDate.parse(fechaStr); }
-                catch (DateTimeParseException e) {
-                    errors.add("Row " + row + ": invalid date '" + fechaStr + "'");
-                    continue;
-                }
+        try (InputStream in = file.getInputStream()) {
+            return importService.importCsv(in).toResponse();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse CSV: " + e.getMessage(), e);
+        }
+    }
 
-                BigDecimal lecturaM3;
-                try { lecturaM3 = new BigDecimal(lecturaStr); }
-                catch (NumberFormatException e) {
-                    errors.add("Row " + row + ": invalid lectura_m3 '" + lecturaStr + "'");
-                    continue;
-                }
-                if (lecturaM3.compareTo(BigDecimal.ZERO) < 0) {
-                    errors.add("Row " + row + ": lectura_m3 < 0");
-                    continue;
-                }
+    /**
+     * Binary bulk import, see {@link ReadingBinaryFormat}. The body is decoded as a stream
+     * straight into batched inserts. Returns {inserted, skipped, errors[]}.
+     */
+    @PostMapping(value = "/import/binary",
+                 consumes = {ReadingBinaryFormat.MEDIA_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public Map<String, Object> importBinary(InputStream body) throws IOException {
+        return importService.importBinary(body).toResponse();
+    }
 
-                GasReading.TipoEnum tipo;
-                try { tipo = GasReading.TipoEnum.valueOf(tipoStr); }
-                catch (IllegalArgumentException e) {
-                    errors.add("Row " + row + ": invalid tipo '" + tipoStr + "'");
-                    continue;
+    private List<AsOfQuery> toAsOfQueries(AsOfLookupRequest request) {
+        List<AsOfQuery> queries = new ArrayList<>();
+        if (request.getItems() != null && !request.getItems().isEmpty()) {
+            for (AsOfLookupRequest.Item item : request.getItems()) {
+                if (item.getCups() == null || item.getCups().isBlank() || item.getDate() == null) {
+                    throw new IllegalArgumentException("each item needs cups and date");
                 }
-
-                GasReading.GasReadingId id = new GasReading.GasReadingId(cups, fecha);
-                if (repo.existsById(id)) {
-                    errors.add("Row " + row + ": duplicate reading " + cups + "/" + fecha);
-                    skipped++;
-                    continue;
+                queries.add(new AsOfQuery(item.getCups().trim(), parseDate(item.getDate())));
+            }
+        } else if (request.getCups() != null && !request.getCups().isEmpty()) {
+            if (request.getDate() == null) {
+                throw new IllegalArgumentException("date is required together with cups");
+            }
+            LocalDate date = parseDate(request.getDate());
+            for (String cups : request.getCups()) {
+                if (cups == null || cups.isBlank()) {
+                    throw new IllegalArgumentException("cups must not be blank");
                 }
-                repo.save(new GasReading(cups, fecha, lecturaM3, tipo));
-                inserted++;
+                queries.add(new AsOfQuery(cups.trim(), date));
             }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse CSV: " + e.getMessage(), e);
+        } else {
+            throw new IllegalArgumentException("either items or cups+date is required");
         }
-
-        return Map.of("inserted", inserted, "skipped", skipped, "errors", errors);
+        if (queries.size() > maxLookupItems) {
+            throw new IllegalArgumentException("too many lookups: " + queries.size() + " > " + maxLookupItems);
+        }
+        return queries;
     }
 
     private LocalDate parseDate(String s) {
@@ -2,11 +2,16 @@ package com.naturgy.gas.controller;
 
 import com.naturgy.gas.entity.GasTariff;
 import com.naturgy.gas.repository.GasTariffRepository;
+import com.naturgy.gas.service.MasterDataImportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,9 +19,11 @@ import java.util.List;
 public class GasTariffController {
 
     private final GasTariffRepository repo;
+    private final MasterDataImportService importService;
 
-    public GasTariffController(GasTariffRepository repo) {
+    public GasTariffController(GasTariffRepository repo, MasterDataImportService importService) {
         this.repo = repo;
+        this.importService = importService;
     }
 
     @GetMapping
@@ -44,6 +51,20 @@ public class GasTariffController {
         return ResponseEntity.status(HttpStatus.CREATED).body(repo.save(tariff));
     }
 
+    /**
+     * POST /api/gas/tariffs/import?allOrNothing=false   (text/csv or application/json)
+     * Bulk upsert keyed by tarifa + vigencia_desde. CSV: tarifa,fijo_mes_eur,variable_eur_kwh,vigencia_desde with a header line;
+     * JSON: an array of {tarifa, fijoMesEur, variableEurKwh, vigenciaDesde}.
+     * Returns {kind, rows, inserted, updated, rejected, committed, errors[]}; 422 when rolled back.
+     */
+    @PostMapping(value = "/import", consumes = {MasterDataImports.CSV, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<MasterDataImportService.UpsertResult> importData(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(defaultValue = "false") boolean allOrNothing,
+            InputStream body) throws IOException {
+        return MasterDataImports.upsert(importService, MasterDataImportService.Kind.TARIFFS, contentType, allOrNothing, body);
+    }
+
     @PutMapping("/{id}")
     public GasTariff update(@PathVariable Long id, @RequestBody GasTariff tariff) {
         if (!repo.existsById(id)) {
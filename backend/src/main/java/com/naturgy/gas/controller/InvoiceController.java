@@ -1,75 +1,240 @@
 package com.naturgy.gas.controller;
 
 import com.naturgy.gas.entity.Invoice;
-import com.naturgy.gas.repository.InvoiceRepository;
-import com.naturgy.gas.service.InvoicePdfService;
+import com.naturgy.gas.repository.InvoiceView;
+import com.naturgy.gas.service.BatchLookup;
+import com.naturgy.gas.service.DataExportService;
+import com.naturgy.gas.service.InvoiceDeletionService;
+import com.naturgy.gas.service.InvoicePdfCache;
+import com.naturgy.gas.service.InvoicePdfExportService;
+import com.naturgy.gas.service.InvoiceQueryService;
+import com.naturgy.gas.service.InvoiceResponseCache;
+import com.naturgy.gas.service.InvoiceSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/gas/invoices")
 public class InvoiceController {
 
-    private final InvoiceRepository repo;
-    private final InvoicePdfService pdfService;
+    private final InvoicePdfCache pdfCache;
+    private final InvoicePdfExportService pdfExportService;
+    private final InvoiceQueryService queryService;
+    private final DataExportService exportService;
+    private final InvoiceResponseCache responseCache;
+    private final InvoiceSearchIndex searchIndex;
+    private final InvoiceDeletionService deletionService;
+    private final int maxBatchItems;
 
-    public InvoiceController(InvoiceRepository repo, InvoicePdfService pdfService) {
-        this.repo = repo;
-        this.pdfService = pdfService;
+    public InvoiceController(InvoicePdfCache pdfCache,
+                             InvoicePdfExportService pdfExportService, InvoiceQueryService queryService,
+                             DataExportService exportService, InvoiceResponseCache responseCache,
+                             InvoiceSearchIndex searchIndex, InvoiceDeletionService deletionService,
+                             @Value("${gas.batch.max-items:1000}") int maxBatchItems) {
+        this.pdfCache = pdfCache;
+        this.pdfExportService = pdfExportService;
+        this.queryService = queryService;
+        this.exportService = exportService;
+        this.responseCache = responseCache;
+        this.searchIndex = searchIndex;
+        this.deletionService = deletionService;
+        this.maxBatchItems = maxBatchItems;
     }
 
+    /**
+     * GET /api/gas/invoices?cups=&period=YYYY-MM&from=YYYY-MM&to=YYYY-MM&zona=&tarifa=&page=0&size=100&lines=true
+     * Returns one page as a JSON array (ordered by id); the total number of matches is in X-Total-Count.
+     * period is shorthand for from=to=period. lines=false returns headers only.
+     */
     @GetMapping
-    public List<Invoice> getAll(
+    public ResponseEntity<List<InvoiceView>> getAll(
             @RequestParam(required = false) String cups,
-            @RequestParam(required = false) String period) {
-        if (cups != null && period != null) {
-            // period expected YYYY-MM
-            java.time.LocalDate periodStart = java.time.YearMonth.parse(period).atDay(1);
-            return repo.findByCupsAndPeriodoInicio(cups, periodStart)
-                    .map(List::of)
-                    .orElse(List.of());
-        }
-        return repo.findAll();
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String zona,
+            @RequestParam(required = false) String tarifa,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "true") boolean lines) {
+        YearMonth fromMonth = parseMonth(period != null ? period : from);
+        YearMonth toMonth = parseMonth(period != null ? period : to);
+        Page<InvoiceView> result = queryService.list(
+                new InvoiceQueryService.InvoiceFilter(cups, fromMonth, toMonth, zona, tarifa), page, size, lines);
+        return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(result.getTotalElements()))
+                .body(result.getContent());
     }
 
+    /**
+     * GET /api/gas/invoices/search?from=YYYY-MM&to=YYYY-MM&zona=&tarifa=&minTotal=&maxTotal=&page=0&size=100&lines=false
+     * Answered from {@link InvoiceSearchIndex}: {total, page, size, countsByPeriod, items}, items ordered by
+     * period, then total descending. to defaults to from; totals are inclusive euro amounts.
+     */
+    @GetMapping("/search")
+    public InvoiceSearchIndex.SearchResult search(
+            @RequestParam String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String zona,
+            @RequestParam(required = false) String tarifa,
+            @RequestParam(required = false) BigDecimal minTotal,
+            @RequestParam(required = false) BigDecimal maxTotal,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "false") boolean lines) {
+        YearMonth fromMonth = parseMonth(from);
+        YearMonth toMonth = to != null ? parseMonth(to) : fromMonth;
+        return searchIndex.search(new InvoiceSearchIndex.SearchCriteria(fromMonth, toMonth, zona, tarifa,
+                minTotal, maxTotal), page, size, lines);
+    }
+
+    /**
+     * POST /api/gas/invoices/batch?lines=true   body: [id, id, …]
+     * Up to gas.batch.max-items invoices in one response: { found: {id: invoice}, missing: [id] },
+     * found in request order. Costs one IN query for the headers plus one for their lines.
+     */
+    @PostMapping("/batch")
+    public BatchLookup.Result<Long, InvoiceView> batch(@RequestBody List<Long> ids,
+                                                       @RequestParam(defaultValue = "true") boolean lines) {
+        return BatchLookup.resolve(ids, maxBatchItems,
+                found -> queryService.byIds(List.copyOf(found), lines), InvoiceView::id);
+    }
+
+    /**
+     * GET /api/gas/invoices/{id}?lines=true
+     * Served from {@link InvoiceResponseCache}: strong ETag (If-None-Match answers 304) and a
+     * precompressed body when the client accepts gzip.
+     */
     @GetMapping("/{id}")
-    public Invoice getById(@PathVariable Long id) {
-        return repo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Invoice not found: " + id));
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, @RequestParam(defaultValue = "true") boolean lines,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        InvoiceResponseCache.Entry entry = cachedOrNotFound(id,
+                lines ? InvoiceResponseCache.Kind.JSON : InvoiceResponseCache.Kind.JSON_HEADERS);
+        return cachedResponse(entry, MediaType.APPLICATION_JSON, null, acceptEncoding);
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long id) {
-        if (!repo.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Invoice not found: " + id);
-        }
-        repo.deleteById(id);
+        Invoice invoice = deletionService.delete(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Invoice not found: " + id));
+        pdfCache.evict(id);
+        responseCache.evict(id);
+        searchIndex.invalidate(YearMonth.from(invoice.getPeriodoInicio()));
     }
 
     /**
      * GET /api/gas/invoices/{id}/pdf
-     * Returns invoice as a PDF file.
+     * Returns invoice as a PDF file, rendered at most once per content ({@link InvoicePdfCache}) and
+     * served with the same ETag / gzip handling as the JSON representation.
      */
     @GetMapping("/{id}/pdf")
-    public ResponseEntity<byte[]> downloadPdf(@PathVariable Long id) {
-        Invoice invoice = repo.findWithLinesById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Invoice not found: " + id));
+    public ResponseEntity<byte[]> downloadPdf(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        InvoiceResponseCache.Entry entry = cachedOrNotFound(id, InvoiceResponseCache.Kind.PDF);
+        String filename = "factura-" + entry.numeroFactura() + ".pdf";
+        return cachedResponse(entry, MediaType.APPLICATION_PDF, "attachment; filename=\"" + filename + "\"",
+                acceptEncoding);
+    }
 
-        byte[] pdf = pdfService.generatePdf(invoice);
-        String filename = "factura-" + invoice.getNumeroFactura() + ".pdf";
+    /**
+     * GET /api/gas/invoices/export?from=YYYY-MM&to=YYYY-MM&zona=&tarifa=&format=csv|ndjson&gzip=false
+     * Streams invoices flattened to one row per line (invoice columns repeated), ordered by
+     * invoice id and line id. gzip=true sends a .gz file.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String zona,
+            @RequestParam(required = false) String tarifa,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        YearMonth fromMonth = parseMonth(from);
+        YearMonth toMonth = parseMonth(to);
+        DataExportService.Format fmt = DataExports.parseFormat(format);
+        StreamingResponseBody body = out -> exportService.exportInvoices(
+                fromMonth != null ? fromMonth.atDay(1) : null, toMonth != null ? toMonth.atDay(1) : null,
+                zona, tarifa, fmt, gzip, out);
+        return DataExports.response("facturas", fmt, gzip, body);
+    }
+
+    /**
+     * GET /api/gas/invoices/export/pdf?period=YYYY-MM&zona=&tarifa=&format=zip|pdf
+     * Streams every invoice PDF of the period (optionally one zona / tarifa) as a ZIP,
+     * or as one merged multi-page PDF with format=pdf.
+     */
+    @GetMapping("/export/pdf")
+    public ResponseEntity<StreamingResponseBody> exportPdf(
+            @RequestParam String period,
+            @RequestParam(required = false) String zona,
+            @RequestParam(required = false) String tarifa,
+            @RequestParam(defaultValue = "zip") String format) {
+        YearMonth ym = parseMonth(period);
+        InvoicePdfExportService.Format fmt;
+        try {
+            fmt = InvoicePdfExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format debe ser zip o pdf");
+        }
+        if (!pdfExportService.hasInvoices(ym, zona, tarifa)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No invoices for period " + period);
+        }
 
+        String filename = "facturas-" + period.replace("-", "") + (fmt == InvoicePdfExportService.Format.ZIP ? ".zip" : ".pdf");
+        StreamingResponseBody body = out -> pdfExportService.export(ym, zona, tarifa, fmt, out);
         return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_PDF)
+                .contentType(fmt == InvoicePdfExportService.Format.ZIP
+                        ? MediaType.parseMediaType("application/zip") : MediaType.APPLICATION_PDF)
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .body(pdf);
+                .body(body);
+    }
+
+    private InvoiceResponseCache.Entry cachedOrNotFound(Long id, InvoiceResponseCache.Kind kind) {
+        return responseCache.get(id, kind)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Invoice not found: " + id));
+    }
+
+    /**
+     * The gzip variant carries its own ETag ("hash-gzip"): it is a different representation.
+     * Spring compares the ETag with If-None-Match and turns the response into a 304 on a match.
+     */
+    private static ResponseEntity<byte[]> cachedResponse(InvoiceResponseCache.Entry entry, MediaType type,
+                                                         String contentDisposition, String acceptEncoding) {
+        boolean gzip = entry.gzip() != null && InvoiceResponseCache.acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(type)
+                .eTag(gzip ? entry.etag() + "-gzip" : entry.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (contentDisposition != null) {
+            response.header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? entry.gzip() : entry.identity());
+    }
+
+    private YearMonth parseMonth(String s) {
+        if (s == null) return null;
+        try { return YearMonth.parse(s); }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid period format. Expected YYYY-MM, got: " + s);
+        }
     }
 }
@@ -0,0 +1,28 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.service.MasterDataImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Request format and response status shared by the master data bulk import endpoints. */
+final class MasterDataImports {
+
+    static final String CSV = "text/csv";
+
+    private MasterDataImports() {}
+
+    /** 200 with the report, or 422 with it when an all-or-nothing import was rolled back. */
+    static ResponseEntity<MasterDataImportService.UpsertResult> upsert(MasterDataImportService service,
+                                                                       MasterDataImportService.Kind kind,
+                                                                       String contentType, boolean allOrNothing,
+                                                                       InputStream body) throws IOException {
+        MasterDataImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+                ? MasterDataImportService.Format.JSON : MasterDataImportService.Format.CSV;
+        MasterDataImportService.UpsertResult result = service.upsert(kind, format, body, allOrNothing);
+        return ResponseEntity.status(result.committed() ? HttpStatus.OK : HttpStatus.UNPROCESSABLE_ENTITY).body(result);
+    }
+}
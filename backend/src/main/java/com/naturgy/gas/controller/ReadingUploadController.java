@@ -0,0 +1,60 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.service.ReadingUploadService;
+import com.naturgy.gas.service.ReadingUploadService.UploadStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Resumable upload of large gas-readings CSV files (optionally gzip-compressed).
+ *
+ *   POST   /api/gas/readings/uploads?fileName=&gzip=       → {uploadId, ...}
+ *   PUT    /api/gas/readings/uploads/{id}/chunks/{index}   raw bytes (application/octet-stream)
+ *   GET    /api/gas/readings/uploads/{id}                  → received chunks, to resume
+ *   POST   /api/gas/readings/uploads/{id}/complete?totalChunks=N → {inserted, skipped, errors[]}
+ *   DELETE /api/gas/readings/uploads/{id}                  abort
+ */
+@RestController
+@RequestMapping("/api/gas/readings/uploads")
+public class ReadingUploadController {
+
+    private final ReadingUploadService uploadService;
+
+    public ReadingUploadController(ReadingUploadService uploadService) {
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<UploadStatus> initiate(
+            @RequestParam(required = false) String fileName,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadService.initiate(fileName, gzip));
+    }
+
+    @PutMapping(value = "/{uploadId}/chunks/{index}", consumes = MediaType.ALL_VALUE)
+    public UploadStatus uploadChunk(@PathVariable String uploadId, @PathVariable int index,
+                                    InputStream body) {
+        return uploadService.storeChunk(uploadId, index, body);
+    }
+
+    @GetMapping("/{uploadId}")
+    public UploadStatus status(@PathVariable String uploadId) {
+        return uploadService.status(uploadId);
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public Map<String, Object> complete(@PathVariable String uploadId, @RequestParam int totalChunks) {
+        return uploadService.complete(uploadId, totalChunks).toResponse();
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void abort(@PathVariable String uploadId) {
+        uploadService.abort(uploadId);
+    }
+}
@@ -0,0 +1,54 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.seed.SeedProgress;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * While the startup seed is running, rejects writes and billing runs under /api/gas with 503 and
+ * a Retry-After header; reads (GET, and the POST batch / as-of lookups) go through and see
+ * whatever is loaded so far. After a failed seed writes stay rejected.
+ */
+@Component
+class SeedWriteGate implements HandlerInterceptor, WebMvcConfigurer {
+
+    static final String RETRY_AFTER_SECONDS = "5";
+
+    private final SeedProgress progress;
+
+    SeedWriteGate(SeedProgress progress) {
+        this.progress = progress;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this)
+                .addPathPatterns("/api/gas/**")
+                .excludePathPatterns("/api/gas/invoices/batch", "/api/gas/supply-points/batch",
+                        "/api/gas/readings/as-of");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (progress.isComplete()) return true;
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS) return true;
+
+        if (progress.state() == SeedProgress.State.FAILED) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Startup seed failed; writes are disabled (see /actuator/health/readiness)");
+        }
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Startup seed in progress (" + progress.summary() + "); writes and billing runs are "
+                + "rejected until it completes");
+    }
+}
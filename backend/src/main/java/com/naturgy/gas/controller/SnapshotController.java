@@ -0,0 +1,27 @@
+package com.naturgy.gas.controller;
+
+import com.naturgy.gas.seed.DatabaseSnapshotService;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/gas/admin")
+public class SnapshotController {
+
+    private final DatabaseSnapshotService snapshotService;
+
+    public SnapshotController(DatabaseSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    /**
+     * POST /api/gas/admin/snapshot
+     * Writes the whole database as a zipped SQL script to gas.snapshot.dir. Restoring is a
+     * startup step (gas.snapshot.restore-from), so no in-memory cache outlives the data it mirrors.
+     */
+    @PostMapping("/snapshot")
+    public DatabaseSnapshotService.SnapshotResult snapshot() {
+        return snapshotService.snapshot();
+    }
+}
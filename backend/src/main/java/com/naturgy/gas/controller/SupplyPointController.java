@@ -2,11 +2,19 @@ package com.naturgy.gas.controller;
 
 import com.naturgy.gas.entity.SupplyPoint;
 import com.naturgy.gas.repository.SupplyPointRepository;
+import com.naturgy.gas.service.BatchLookup;
+import com.naturgy.gas.service.InvoiceSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import com.naturgy.gas.service.MasterDataImportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,9 +22,17 @@ import java.util.List;
 public class SupplyPointController {
 
     private final SupplyPointRepository repo;
+    private final MasterDataImportService importService;
+    private final InvoiceSearchIndex searchIndex;
+    private final int maxBatchItems;
 
-    public SupplyPointController(SupplyPointRepository repo) {
+    public SupplyPointController(SupplyPointRepository repo, InvoiceSearchIndex searchIndex,
+                                 MasterDataImportService importService,
+                                 @Value("${gas.batch.max-items:1000}") int maxBatchItems) {
         this.repo = repo;
+        this.searchIndex = searchIndex;
+        this.importService = importService;
+        this.maxBatchItems = maxBatchItems;
     }
 
     @GetMapping
@@ -24,6 +40,16 @@ public class SupplyPointController {
         return repo.findAll();
     }
 
+    /**
+     * POST /api/gas/supply-points/batch   body: ["ES…", …]
+     * Up to gas.batch.max-items supply points with one IN query:
+     * { found: {cups: supplyPoint}, missing: [cups] }, found in request order.
+     */
+    @PostMapping("/batch")
+    public BatchLookup.Result<String, SupplyPoint> batch(@RequestBody List<String> cups) {
+        return BatchLookup.resolve(cups, maxBatchItems, repo::findAllById, SupplyPoint::getCups);
+    }
+
     @GetMapping("/{cups}")
     public SupplyPoint getById(@PathVariable String cups) {
         return repo.findById(cups)
@@ -43,6 +69,20 @@ public class SupplyPointController {
         return ResponseEntity.status(HttpStatus.CREATED).body(repo.save(sp));
     }
 
+    /**
+     * POST /api/gas/supply-points/import?allOrNothing=false   (text/csv or application/json)
+     * Bulk upsert keyed by cups. CSV: cups,zona,tarifa,estado with a header line;
+     * JSON: an array of {cups, zona, tarifa, estado}.
+     * Returns {kind, rows, inserted, updated, rejected, committed, errors[]}; 422 when rolled back.
+     */
+    @PostMapping(value = "/import", consumes = {MasterDataImports.CSV, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<MasterDataImportService.UpsertResult> importData(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(defaultValue = "false") boolean allOrNothing,
+            InputStream body) throws IOException {
+        return MasterDataImports.upsert(importService, MasterDataImportService.Kind.SUPPLY_POINTS, contentType, allOrNothing, body);
+    }
+
     @PutMapping("/{cups}")
     public SupplyPoint update(@PathVariable String cups, @RequestBody SupplyPoint sp) {
         if (!repo.existsById(cups)) {
@@ -50,7 +90,9 @@ public class SupplyPointController {
                     "Supply point not found: " + cups);
         }
         sp.setCups(cups);
-        return repo.save(sp);
+        SupplyPoint saved = repo.save(sp);
+        searchIndex.invalidateAll(); // zona / tarifa may have changed
+        return saved;
     }
 
     @DeleteMapping("/{cups}")
@@ -61,5 +103,6 @@ public class SupplyPointController {
                     "Supply point not found: " + cups);
         }
         repo.deleteById(cups);
+        searchIndex.invalidateAll();
     }
 }
@@ -2,11 +2,16 @@ package com.naturgy.gas.controller;
 
 import com.naturgy.gas.entity.TaxConfig;
 import com.naturgy.gas.repository.TaxConfigRepository;
+import com.naturgy.gas.service.MasterDataImportService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,9 +19,11 @@ import java.util.List;
 public class TaxConfigController {
 
     private final TaxConfigRepository repo;
+    private final MasterDataImportService importService;
 
-    public TaxConfigController(TaxConfigRepository repo) {
+    public TaxConfigController(TaxConfigRepository repo, MasterDataImportService importService) {
         this.repo = repo;
+        this.importService = importService;
     }
 
     @GetMapping
@@ -44,6 +51,20 @@ public class TaxConfigController {
         return ResponseEntity.status(HttpStatus.CREATED).body(repo.save(tax));
     }
 
+    /**
+     * POST /api/gas/taxes/import?allOrNothing=false   (text/csv or application/json)
+     * Bulk upsert keyed by tax_code + vigencia_desde. CSV: tax_code,tax_rate,vigencia_desde with a header line;
+     * JSON: an array of {taxCode, taxRate, vigenciaDesde}.
+     * Returns {kind, rows, inserted, updated, rejected, committed, errors[]}; 422 when rolled back.
+     */
+    @PostMapping(value = "/import", consumes = {MasterDataImports.CSV, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<MasterDataImportService.UpsertResult> importData(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestParam(defaultValue = "false") boolean allOrNothing,
+            InputStream body) throws IOException {
+        return MasterDataImports.upsert(importService, MasterDataImportService.Kind.TAXES, contentType, allOrNothing, body);
+    }
+
     @PutMapping("/{id}")
     public TaxConfig update(@PathVariable Long id, @RequestBody TaxConfig tax) {
         TaxConfig existing = repo.findById(id)
@@ -0,0 +1,87 @@
+package com.naturgy.gas.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Running totals of the invoices of one period × zona × tarifa, maintained by billing and
+ * invoice deletion in their own transactions (see {@code BillingSummaryService}).
+ */
+@Entity
+@Table(name = "billing_summary")
+public class BillingSummary {
+
+    @EmbeddedId
+    private BillingSummaryId id;
+
+    @Column(name = "invoice_count", nullable = false)
+    private long invoiceCount;
+
+    @Column(name = "sum_base", nullable = false, precision = 18, scale = 2)
+    private BigDecimal sumBase;
+
+    @Column(name = "sum_impuestos", nullable = false, precision = 18, scale = 2)
+    private BigDecimal sumImpuestos;
+
+    @Column(name = "sum_total", nullable = false, precision = 18, scale = 2)
+    private BigDecimal sumTotal;
+
+    @Column(name = "min_total", nullable = false, precision = 12, scale = 2)
+    private BigDecimal minTotal;
+
+    @Column(name = "max_total", nullable = false, precision = 12, scale = 2)
+    private BigDecimal maxTotal;
+
+    @Column(name = "sum_kwh", nullable = false, precision = 18, scale = 3)
+    private BigDecimal sumKwh;
+
+    @Embeddable
+    public static class BillingSummaryId implements Serializable {
+        @Column(name = "periodo_inicio", nullable = false)
+        private LocalDate periodoInicio;
+
+        @Column(name = "zona", nullable = false)
+        private String zona;
+
+        @Column(name = "tarifa", nullable = false)
+        private String tarifa;
+
+        public BillingSummaryId() {}
+
+        public BillingSummaryId(LocalDate periodoInicio, String zona, String tarifa) {
+            this.periodoInicio = periodoInicio;
+            this.zona = zona;
+            this.tarifa = tarifa;
+        }
+
+        public LocalDate getPeriodoInicio() { return periodoInicio; }
+        public String getZona() { return zona; }
+        public String getTarifa() { return tarifa; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BillingSummaryId)) return false;
+            BillingSummaryId that = (BillingSummaryId) o;
+            return Objects.equals(periodoInicio, that.periodoInicio) && Objects.equals(zona, that.zona)
+                    && Objects.equals(tarifa, that.tarifa);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(periodoInicio, zona, tarifa); }
+    }
+
+    public BillingSummary() {}
+
+    public BillingSummaryId getId() { return id; }
+    public long getInvoiceCount() { return invoiceCount; }
+    public BigDecimal getSumBase() { return sumBase; }
+    public BigDecimal getSumImpuestos() { return sumImpuestos; }
+    public BigDecimal getSumTotal() { return sumTotal; }
+    public BigDecimal getMinTotal() { return minTotal; }
+    public BigDecimal getMaxTotal() { return maxTotal; }
+    public BigDecimal getSumKwh() { return sumKwh; }
+}
@@ -0,0 +1,56 @@
+package com.naturgy.gas.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One row of the change feed: an invoice or reading was created, updated or deleted.
+ * The id is the feed cursor. entityKey is the invoice id, or "cups/fecha" for a reading.
+ */
+@Entity
+@Table(name = "change_log",
+       indexes = @Index(name = "idx_change_log_changed_at", columnList = "changed_at"))
+public class ChangeLogEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation", nullable = false)
+    private Operation operation;
+
+    @Column(name = "entity_key", nullable = false)
+    private String entityKey;
+
+    @Column(name = "cups")
+    private String cups;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public enum EntityType { INVOICE, READING }
+
+    public enum Operation { CREATED, UPDATED, DELETED }
+
+    public ChangeLogEntry() {}
+
+    public ChangeLogEntry(EntityType entityType, Operation operation, String entityKey, String cups, Instant changedAt) {
+        this.entityType = entityType;
+        this.operation = operation;
+        this.entityKey = entityKey;
+        this.cups = cups;
+        this.changedAt = changedAt;
+    }
+
+    public Long getId() { return id; }
+    public EntityType getEntityType() { return entityType; }
+    public Operation getOperation() { return operation; }
+    public String getEntityKey() { return entityKey; }
+    public String getCups() { return cups; }
+    public Instant getChangedAt() { return changedAt; }
+}
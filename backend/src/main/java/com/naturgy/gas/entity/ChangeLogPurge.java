@@ -0,0 +1,27 @@
+package com.naturgy.gas.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Single row holding the highest change log id removed by the retention purge, so a cursor
+ * into purged history is still refused after a restart on a persistent database
+ * (see {@code ChangeLogService}).
+ */
+@Entity
+@Table(name = "change_log_purge")
+public class ChangeLogPurge {
+
+    public static final int ROW_ID = 1;
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private int id = ROW_ID;
+
+    @Column(name = "purged_through", nullable = false)
+    private long purgedThrough;
+
+    public ChangeLogPurge() {}
+
+    public int getId() { return id; }
+    public long getPurgedThrough() { return purgedThrough; }
+}
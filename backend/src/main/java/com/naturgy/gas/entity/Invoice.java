@@ -8,7 +8,11 @@ import java.util.List;
 
 @Entity
 @Table(name = "invoice",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"cups", "periodo_inicio"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"cups", "periodo_inicio"}),
+       indexes = {
+           @Index(name = "idx_invoice_periodo_total", columnList = "periodo_inicio, total"),
+           @Index(name = "idx_invoice_periodo_id", columnList = "periodo_inicio, id")
+       })
 public class Invoice {
 
     @Id
@@ -39,6 +43,13 @@ public class Invoice {
     @Column(name = "fecha_emision", nullable = false)
     private LocalDate fechaEmision;
 
+    /** Zona / tarifa of the supply point when billed (its billing_summary cell); null on older rows. */
+    @Column(name = "zona")
+    private String zona;
+
+    @Column(name = "tarifa")
+    private String tarifa;
+
     @OneToMany(mappedBy = "invoice", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<InvoiceLine> lines = new ArrayList<>();
 
@@ -73,6 +84,10 @@ public class Invoice {
     public void setTotal(BigDecimal total) { this.total = total; }
     public LocalDate getFechaEmision() { return fechaEmision; }
     public void setFechaEmision(LocalDate fechaEmision) { this.fechaEmision = fechaEmision; }
+    public String getZona() { return zona; }
+    public void setZona(String zona) { this.zona = zona; }
+    public String getTarifa() { return tarifa; }
+    public void setTarifa(String tarifa) { this.tarifa = tarifa; }
     public List<InvoiceLine> getLines() { return lines; }
     public void setLines(List<InvoiceLine> lines) { this.lines = lines; }
 }
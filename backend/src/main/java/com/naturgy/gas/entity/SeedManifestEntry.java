@@ -0,0 +1,40 @@
+package com.naturgy.gas.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A seed CSV that has been loaded into this database, with the SHA-256 of its content at the
+ * time. The seed skips a file whose checksum still matches (see {@code SeedService}).
+ */
+@Entity
+@Table(name = "seed_manifest")
+public class SeedManifestEntry {
+
+    @Id
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "loaded_at", nullable = false)
+    private Instant loadedAt;
+
+    public SeedManifestEntry() {}
+
+    public SeedManifestEntry(String fileName, String sha256, long sizeBytes, Instant loadedAt) {
+        this.fileName = fileName;
+        this.sha256 = sha256;
+        this.sizeBytes = sizeBytes;
+        this.loadedAt = loadedAt;
+    }
+
+    public String getFileName() { return fileName; }
+    public String getSha256() { return sha256; }
+    public long getSizeBytes() { return sizeBytes; }
+    public Instant getLoadedAt() { return loadedAt; }
+}
@@ -3,7 +3,8 @@ package com.naturgy.gas.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "supply_point")
+@Table(name = "supply_point",
+       indexes = @Index(name = "idx_supply_point_zona_tarifa", columnList = "zona, tarifa"))
 public class SupplyPoint {
 
     @Id
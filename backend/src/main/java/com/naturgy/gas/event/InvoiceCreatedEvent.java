@@ -0,0 +1,17 @@
+package com.naturgy.gas.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Published by billing once per persisted invoice. Carries plain values (not the entity) so
+ * listeners running after commit never touch a detached persistence context.
+ */
+public record InvoiceCreatedEvent(Long invoiceId,
+                                  String numeroFactura,
+                                  String cups,
+                                  String zona,
+                                  String tarifa,
+                                  LocalDate periodoInicio,
+                                  BigDecimal kwh,
+                                  BigDecimal total) {}
@@ -0,0 +1,8 @@
+package com.naturgy.gas.event;
+
+import com.naturgy.gas.entity.GasReading;
+
+import java.util.List;
+
+/** Published after readings were actually inserted (duplicates already filtered out). */
+public record ReadingsIngestedEvent(List<GasReading> readings) {}
@@ -0,0 +1,8 @@
+package com.naturgy.gas.event;
+
+/**
+ * Published once the startup seed has loaded every CSV (on the seed thread when it runs in the
+ * background). Work that needs the seeded master data starts from here, not from application
+ * ready.
+ */
+public record SeedCompletedEvent(long durationMs) {}
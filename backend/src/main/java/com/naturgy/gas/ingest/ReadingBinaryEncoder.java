@@ -0,0 +1,65 @@
+package com.naturgy.gas.ingest;
+
+import com.naturgy.gas.entity.GasReading;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client-side writer for the {@link ReadingBinaryFormat} ingest format.
+ *
+ * <pre>
+ * try (ReadingBinaryEncoder enc = new ReadingBinaryEncoder(out, cupsList)) {
+ *     enc.write("ES0021000000001AA", LocalDate.of(2026, 2, 28), new BigDecimal("1302.75"), TipoEnum.REAL);
+ * }
+ * </pre>
+ *
+ * The CUPS dictionary is written up front, so every CUPS passed to {@link #write} must be in it.
+ * scripts/EncodeReadingsCsv.java converts a readings CSV with it.
+ */
+public class ReadingBinaryEncoder implements AutoCloseable {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    public ReadingBinaryEncoder(OutputStream out, Collection<String> cupsDictionary) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.out.write(ReadingBinaryFormat.MAGIC);
+        this.out.writeInt(cupsDictionary.size());
+        for (String cups : cupsDictionary) {
+            byte[] bytes = cups.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > ReadingBinaryFormat.MAX_CUPS_BYTES) {
+                throw new IllegalArgumentException("CUPS too long: " + cups);
+            }
+            if (index.putIfAbsent(cups, index.size()) != null) {
+                throw new IllegalArgumentException("Duplicate CUPS in dictionary: " + cups);
+            }
+            this.out.writeShort(bytes.length);
+            this.out.write(bytes);
+        }
+    }
+
+    public void write(String cups, LocalDate fecha, BigDecimal lecturaM3, GasReading.TipoEnum tipo) throws IOException {
+        Integer i = index.get(cups);
+        if (i == null) {
+            throw new IllegalArgumentException("CUPS not in dictionary: " + cups);
+        }
+        out.writeInt(i);
+        out.writeInt((int) fecha.toEpochDay());
+        out.writeLong(lecturaM3.movePointRight(ReadingBinaryFormat.LECTURA_SCALE).longValueExact());
+        out.writeByte(tipo.ordinal());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.naturgy.gas.ingest;
+
+/**
+ * Compact binary bulk-ingest format for gas readings ("GRB1"). All integers big-endian
+ * (java.io.DataOutput order).
+ *
+ * <pre>
+ * Header
+ *   magic        4 bytes   'G' 'R' 'B' '1'
+ *   cupsCount    int32     number of dictionary entries
+ *   cupsCount × { length uint16, UTF-8 bytes }    CUPS dictionary, index = position
+ *
+ * Records, fixed width (17 bytes), repeated until end of stream
+ *   cupsIndex    int32     index into the CUPS dictionary
+ *   epochDay     int32     fecha as LocalDate.toEpochDay()
+ *   lecturaM3    int64     lectura_m3 × 1000 (column scale is 3)
+ *   tipo         int8      GasReading.TipoEnum ordinal (0 = REAL, 1 = ESTIMADA)
+ * </pre>
+ *
+ * A stream that ends in the middle of a record is rejected from that point on.
+ * Use {@link ReadingBinaryEncoder} to produce it from Java clients.
+ */
+public final class ReadingBinaryFormat {
+
+    public static final String MEDIA_TYPE = "application/vnd.naturgy.gas-readings.v1";
+
+    public static final byte[] MAGIC = {'G', 'R', 'B', '1'};
+
+    /** Scale applied to lectura_m3 before storing it as a long. */
+    public static final int LECTURA_SCALE = 3;
+
+    public static final int RECORD_BYTES = 4 + 4 + 8 + 1;
+
+    public static final int MAX_CUPS_BYTES = 0xFFFF;
+
+    private ReadingBinaryFormat() {}
+}
@@ -0,0 +1,306 @@
+package com.naturgy.gas.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.naturgy.gas.event.SeedCompletedEvent;
+import com.naturgy.gas.service.ReadingImportService;
+import com.naturgy.gas.service.ReadingImportService.ImportResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Continuously ingests gas-readings CSV files dropped into {gas.ingest.dir}.
+ *
+ * Producers must write under a temporary name (leading '.', or a .tmp/.part suffix) and rename
+ * to *.csv / *.csv.gz when done; only completed names are picked up. A file is claimed by an
+ * atomic rename into processing/ under a name carrying this instance's id, and its mtime is
+ * refreshed while it is being imported. Claims whose lease (the later of the claim time in the
+ * name and the mtime) is older than {gas.ingest.lease} belong to a crashed instance and are put back in the inbox, so several instances can share one
+ * directory without re-importing each other's files. Each claimed file runs through
+ * {@link ReadingImportService} (same rules as the import endpoint) and ends in done/ (parsed) or
+ * error/ (unreadable) next to a {name}.report.json.
+ *
+ * Starts watching once the startup seed has completed, so drops never race with it. Disabled
+ * unless gas.ingest.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "gas.ingest.enabled", havingValue = "true")
+public class ReadingDropWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingDropWatcher.class);
+
+    static final String PROCESSING = "processing";
+    static final String DONE = "done";
+    static final String ERROR = "error";
+
+    /** {claim millis}-{owner}-{name}. */
+    private static final Pattern CLAIMED_NAME = Pattern.compile("(\\d+)-([0-9a-f]{8})-(.+)");
+
+    private final ReadingImportService importService;
+    private final ObjectMapper reportMapper;
+    private final Path inbox;
+    private final Duration lease;
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService leaseKeeper;
+    private volatile WatchService watchService;
+    private Thread watchThread;
+
+    public ReadingDropWatcher(ReadingImportService importService,
+                              ObjectMapper objectMapper,
+                              @Value("${gas.ingest.dir:_data/ingest/readings}") String dir,
+                              @Value("${gas.ingest.concurrency:2}") int concurrency,
+                              @Value("${gas.ingest.lease:PT5M}") Duration lease) {
+        this.importService = importService;
+        this.reportMapper = objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT);
+        this.inbox = Paths.get(dir).toAbsolutePath().normalize();
+        this.lease = lease;
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread t = new Thread(r, "reading-ingest-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.leaseKeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reading-ingest-lease");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @EventListener(SeedCompletedEvent.class)
+    public synchronized void onSeedCompleted() throws IOException {
+        if (watchThread == null) start();
+    }
+
+    void start() throws IOException {
+        Files.createDirectories(inbox.resolve(PROCESSING));
+        Files.createDirectories(inbox.resolve(DONE));
+        Files.createDirectories(inbox.resolve(ERROR));
+
+        recoverExpiredClaims();
+        long renewMs = Math.max(1, lease.toMillis() / 3);
+        leaseKeeper.scheduleWithFixedDelay(this::renewLeases, renewMs, renewMs, TimeUnit.MILLISECONDS);
+
+        watchService = FileSystems.getDefault().newWatchService();
+        inbox.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        scanInbox(); // files dropped while we were down
+
+        watchThread = new Thread(this::watchLoop, "reading-ingest-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        log.info("Ingest: watching {}", inbox);
+    }
+
+    @PreDestroy
+    void stop() {
+        try {
+            if (watchService != null) watchService.close();
+        } catch (IOException e) {
+            log.debug("Ingest: error closing watch service", e);
+        }
+        leaseKeeper.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) workers.shutdownNow();
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rescan();
+                    } else {
+                        submit(inbox.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    log.error("Ingest: watch on {} is no longer valid, stopping", inbox);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // shutdown
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Refreshes the mtime of our own claims, then puts back claims whose owner stopped doing so. */
+    private void renewLeases() {
+        FileTime now = FileTime.from(Instant.now());
+        for (Path claimed : inFlight) {
+            try {
+                Files.setLastModifiedTime(claimed, now);
+            } catch (IOException e) {
+                log.debug("Ingest: could not renew lease on {}: {}", claimed.getFileName(), e.getMessage());
+            }
+        }
+        try {
+            recoverExpiredClaims();
+        } catch (IOException e) {
+            log.error("Ingest: recovery of expired claims failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Files left in processing/ by a crashed instance (any other owner, lease expired) are put
+     * back in the inbox and re-ingested. Claims of live instances are left alone. The lease starts
+     * at the claim time in the name, since the rename keeps the producer's mtime until the
+     * claimer touches the file.
+     */
+    void recoverExpiredClaims() throws IOException {
+        Instant expiry = Instant.now().minus(lease);
+        try (DirectoryStream<Path> claims = Files.newDirectoryStream(inbox.resolve(PROCESSING))) {
+            for (Path p : claims) {
+                Matcher m = CLAIMED_NAME.matcher(p.getFileName().toString());
+                if (!m.matches() || instanceId.equals(m.group(2))) continue;
+                try {
+                    long claimedAt = Long.parseLong(m.group(1));
+                    long renewedAt = Files.getLastModifiedTime(p).toMillis();
+                    if (Instant.ofEpochMilli(Math.max(claimedAt, renewedAt)).isAfter(expiry)) continue;
+                    log.warn("Ingest: recovering unfinished file {} (lease expired)", p.getFileName());
+                    Files.move(p, inbox.resolve(m.group(3)), StandardCopyOption.ATOMIC_MOVE);
+                } catch (NoSuchFileException e) {
+                    // finished, or recovered by another instance in the meantime
+                }
+            }
+        }
+    }
+
+    private void rescan() {
+        try {
+            scanInbox();
+        } catch (IOException e) {
+            log.error("Ingest: rescan of {} failed: {}", inbox, e.getMessage(), e);
+        }
+    }
+
+    private void scanInbox() throws IOException {
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(inbox)) {
+            for (Path p : ds) submit(p);
+        }
+    }
+
+    private void submit(Path file) {
+        if (isCompletedDrop(file)) {
+            workers.submit(() -> ingest(file));
+        }
+    }
+
+    static boolean isCompletedDrop(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".")
+                && (name.endsWith(".csv") || name.endsWith(".csv.gz"))
+                && Files.isRegularFile(file);
+    }
+
+    /** Moves a claim we cannot lease back to the inbox, where the next rescan picks it up. */
+    private void release(Path claimed, Path file) {
+        try {
+            Files.move(claimed, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // already recovered by another instance
+        } catch (IOException e) {
+            log.error("Ingest: could not put {} back in the inbox: {}", claimed, e.getMessage(), e);
+        }
+    }
+
+    /** Claims, imports and files away a single drop. Duplicate events for the same file are harmless. */
+    void ingest(Path file) {
+        String name = file.getFileName().toString();
+        Path claimed = inbox.resolve(PROCESSING).resolve(System.currentTimeMillis() + "-" + instanceId + "-" + name);
+        try {
+            Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return; // already claimed by another worker or instance
+        } catch (IOException e) {
+            log.warn("Ingest: could not claim {}: {}", name, e.getMessage());
+            return;
+        }
+        try {
+            // The rename keeps the producer's mtime: start the lease now
+            Files.setLastModifiedTime(claimed, FileTime.from(Instant.now()));
+            inFlight.add(claimed);
+        } catch (IOException e) {
+            log.warn("Ingest: could not start the lease on {}, putting it back: {}", name, e.getMessage());
+            release(claimed, file);
+            return;
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("file", name);
+        report.put("startedAt", Instant.now().toString());
+        long t0 = System.nanoTime();
+        String outcome;
+        try (InputStream raw = Files.newInputStream(claimed);
+             InputStream in = name.endsWith(".gz") ? new GZIPInputStream(raw, 64 * 1024) : raw) {
+            ImportResult result = importService.importCsv(in);
+            report.put("status", "DONE");
+            report.putAll(result.toResponse());
+            outcome = DONE;
+            log.info("Ingest: {} inserted={} skipped={} errors={}",
+                    name, result.inserted(), result.skipped(), result.errors().size());
+        } catch (Exception e) {
+            report.put("status", "ERROR");
+            report.put("error", e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            outcome = ERROR;
+            log.warn("Ingest: {} failed: {}", name, e.getMessage());
+        }
+        report.put("finishedAt", Instant.now().toString());
+        report.put("durationMs", (System.nanoTime() - t0) / 1_000_000);
+
+        Path target = inbox.resolve(outcome).resolve(claimed.getFileName());
+        try {
+            Files.move(claimed, target, StandardCopyOption.ATOMIC_MOVE);
+            reportMapper.writeValue(target.resolveSibling(target.getFileName() + ".report.json").toFile(), report);
+        } catch (IOException e) {
+            log.error("Ingest: could not file away {}: {}", claimed, e.getMessage(), e);
+        } finally {
+            inFlight.remove(claimed);
+        }
+    }
+}
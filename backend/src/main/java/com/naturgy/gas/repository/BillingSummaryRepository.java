@@ -0,0 +1,20 @@
+package com.naturgy.gas.repository;
+
+import com.naturgy.gas.entity.BillingSummary;
+import com.naturgy.gas.entity.BillingSummary.BillingSummaryId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BillingSummaryRepository extends JpaRepository<BillingSummary, BillingSummaryId> {
+
+    /** Rows of [from, to] (period starts), optionally one zona / tarifa, ordered by period, zona, tarifa. */
+    @Query("SELECT s FROM BillingSummary s WHERE s.id.periodoInicio >= :from AND s.id.periodoInicio <= :to " +
+           "AND (:zona IS NULL OR s.id.zona = :zona) AND (:tarifa IS NULL OR s.id.tarifa = :tarifa) " +
+           "ORDER BY s.id.periodoInicio, s.id.zona, s.id.tarifa")
+    List<BillingSummary> findRange(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                   @Param("zona") String zona, @Param("tarifa") String tarifa);
+}
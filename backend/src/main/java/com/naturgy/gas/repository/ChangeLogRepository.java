@@ -0,0 +1,28 @@
+package com.naturgy.gas.repository;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    /** Entries with after < id <= through, ascending; page size comes from the Pageable. */
+    @Query("SELECT c FROM ChangeLogEntry c WHERE c.id > :after AND c.id <= :through ORDER BY c.id")
+    List<ChangeLogEntry> findPage(@Param("after") long after, @Param("through") long through, Pageable page);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM ChangeLogEntry c")
+    long maxId();
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM ChangeLogEntry c WHERE c.changedAt < :before")
+    long maxIdBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.id <= :through")
+    int deleteThrough(@Param("through") long through);
+}
@@ -0,0 +1,109 @@
+package com.naturgy.gas.repository;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.service.ChangeLogService;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set-based insert path for gas readings, used by bulk ingestion.
+ * Bypasses the persistence context: one JDBC batch per call, duplicates
+ * (same cups + fecha) are skipped by the database instead of an existsById per row.
+ * A concurrent import can still insert the same key between the NOT EXISTS check and
+ * the insert; the batch is then rolled back to a savepoint and replayed row by row, so
+ * the losing rows are reported as duplicates instead of failing the whole batch.
+ * Inserted rows are added to the change log in the same transaction.
+ */
+@Repository
+public class GasReadingBatchWriter {
+
+    private static final String INSERT_IF_ABSENT =
+            "INSERT INTO gas_reading (cups, fecha, lectura_m3, tipo) " +
+            "SELECT ?, ?, ?, ? WHERE NOT EXISTS " +
+            "(SELECT 1 FROM gas_reading WHERE cups = ? AND fecha = ?)";
+
+    private final JdbcTemplate jdbc;
+    private final ChangeLogService changeLog;
+
+    public GasReadingBatchWriter(JdbcTemplate jdbc, ChangeLogService changeLog) {
+        this.jdbc = jdbc;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Inserts the readings in one batch, in order.
+     * Returns, per input row, true if inserted or false if it already existed
+     * (including a duplicate earlier in the same batch).
+     */
+    @Transactional
+    public boolean[] insertIfAbsent(List<GasReading> readings) {
+        boolean[] inserted = new boolean[readings.size()];
+        if (readings.isEmpty()) return inserted;
+
+        TransactionStatus tx = TransactionAspectSupport.currentTransactionStatus();
+        Object beforeBatch = tx.createSavepoint();
+        int[] counts;
+        try {
+            counts = jdbc.batchUpdate(INSERT_IF_ABSENT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    bind(ps, readings.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return readings.size();
+                }
+            });
+            tx.releaseSavepoint(beforeBatch);
+        } catch (DuplicateKeyException e) {
+            tx.rollbackToSavepoint(beforeBatch);
+            counts = insertOneByOne(readings, tx);
+        }
+        List<GasReading> written = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            inserted[i] = counts[i] > 0;
+            if (inserted[i]) written.add(readings.get(i));
+        }
+        changeLog.recordReadings(ChangeLogEntry.Operation.CREATED, written);
+        return inserted;
+    }
+
+    /** Fallback after a lost race: each row behind its own savepoint, a key violation counts as 0 rows. */
+    private int[] insertOneByOne(List<GasReading> readings, TransactionStatus tx) {
+        int[] counts = new int[readings.size()];
+        for (int i = 0; i < counts.length; i++) {
+            GasReading r = readings.get(i);
+            Object beforeRow = tx.createSavepoint();
+            try {
+                counts[i] = jdbc.update(INSERT_IF_ABSENT, ps -> bind(ps, r));
+                tx.releaseSavepoint(beforeRow);
+            } catch (DuplicateKeyException e) {
+                tx.rollbackToSavepoint(beforeRow);
+            }
+        }
+        return counts;
+    }
+
+    private static void bind(PreparedStatement ps, GasReading r) throws SQLException {
+        Date fecha = Date.valueOf(r.getFecha());
+        ps.setString(1, r.getCups());
+        ps.setDate(2, fecha);
+        ps.setBigDecimal(3, r.getLecturaM3());
+        ps.setString(4, r.getTipo().name());
+        ps.setString(5, r.getCups());
+        ps.setDate(6, fecha);
+    }
+}
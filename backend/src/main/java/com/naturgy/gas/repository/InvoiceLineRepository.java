@@ -2,6 +2,17 @@ package com.naturgy.gas.repository;
 
 import com.naturgy.gas.entity.InvoiceLine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface InvoiceLineRepository extends JpaRepository<InvoiceLine, Long> {
+
+    /** Lines of many invoices in one query, grouped by invoice (ordered by invoice id, line id). */
+    @Query("SELECT new com.naturgy.gas.repository.InvoiceLineView(l.invoice.id, l.id, l.tipo, l.descripcion, " +
+           "l.cantidad, l.precioUnitario, l.importe) " +
+           "FROM InvoiceLine l WHERE l.invoice.id IN :invoiceIds ORDER BY l.invoice.id, l.id")
+    List<InvoiceLineView> findViewsByInvoiceIdIn(@Param("invoiceIds") Collection<Long> invoiceIds);
 }
@@ -0,0 +1,15 @@
+package com.naturgy.gas.repository;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.naturgy.gas.entity.InvoiceLine;
+
+import java.math.BigDecimal;
+
+/** Read-only projection of an invoice line, JSON-compatible with {@link InvoiceLine}. */
+public record InvoiceLineView(@JsonIgnore Long invoiceId,
+                              Long id,
+                              InvoiceLine.TipoLineaEnum tipo,
+                              String descripcion,
+                              BigDecimal cantidad,
+                              BigDecimal precioUnitario,
+                              BigDecimal importe) {}
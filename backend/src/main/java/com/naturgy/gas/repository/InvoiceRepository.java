@@ -1,11 +1,15 @@
 package com.naturgy.gas.repository;
 
 import com.naturgy.gas.entity.Invoice;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
@@ -16,6 +20,56 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
 
     long countByPeriodoInicio(LocalDate periodoInicio);
 
+    /** Highest trailing sequence number among the invoice numbers of a period, 0 when it has none. */
+    @Query(value = "SELECT COALESCE(MAX(CAST(REGEXP_SUBSTR(numero_factura, '[0-9]+$') AS BIGINT)), 0) " +
+                   "FROM invoice WHERE periodo_inicio = :periodo", nativeQuery = true)
+    long maxSequenceForPeriod(@Param("periodo") LocalDate periodo);
+
     @Query("SELECT i FROM Invoice i LEFT JOIN FETCH i.lines WHERE i.id = :id")
     Optional<Invoice> findWithLinesById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.lines WHERE i.id IN :ids")
+    List<Invoice> findWithLinesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Zona / tarifa filter on the values the invoice was billed under; invoices billed before
+     * they were stored fall back to their supply point's.
+     */
+    String BILLED_UNDER = "(:zona IS NULL OR i.zona = :zona OR i.zona IS NULL AND EXISTS " +
+            "(SELECT 1 FROM SupplyPoint sp WHERE sp.cups = i.cups AND sp.zona = :zona)) " +
+            "AND (:tarifa IS NULL OR i.tarifa = :tarifa OR i.tarifa IS NULL AND EXISTS " +
+            "(SELECT 1 FROM SupplyPoint sp WHERE sp.cups = i.cups AND sp.tarifa = :tarifa)) ";
+
+    /**
+     * Keyset page of invoice ids of a period (ids greater than afterId, ascending), optionally
+     * restricted to the zona / tarifa it was billed under. Page size comes from the Pageable.
+     */
+    @Query("SELECT i.id FROM Invoice i WHERE i.periodoInicio = :periodo AND i.id > :afterId AND " + BILLED_UNDER +
+           "ORDER BY i.id")
+    List<Long> findIdsForPeriod(@Param("periodo") LocalDate periodo, @Param("zona") String zona,
+                                @Param("tarifa") String tarifa, @Param("afterId") long afterId, Pageable page);
+
+    String VIEW_FILTER = "FROM Invoice i WHERE (:cups IS NULL OR i.cups = :cups) " +
+            "AND (:fromPeriodo IS NULL OR i.periodoInicio >= :fromPeriodo) " +
+            "AND (:toPeriodo IS NULL OR i.periodoInicio <= :toPeriodo) " +
+            "AND " + BILLED_UNDER;
+
+    /** Header projections (no lines) matching the filters; null filters are ignored. */
+    @Query(value = "SELECT new com.naturgy.gas.repository.InvoiceView(i.id, i.numeroFactura, i.cups, " +
+                   "i.periodoInicio, i.periodoFin, i.base, i.impuestos, i.total, i.fechaEmision) " + VIEW_FILTER,
+           countQuery = "SELECT COUNT(i) " + VIEW_FILTER)
+    Page<InvoiceView> findViews(@Param("cups") String cups,
+                                @Param("fromPeriodo") LocalDate fromPeriodo,
+                                @Param("toPeriodo") LocalDate toPeriodo,
+                                @Param("zona") String zona,
+                                @Param("tarifa") String tarifa,
+                                Pageable page);
+
+    @Query("SELECT new com.naturgy.gas.repository.InvoiceView(i.id, i.numeroFactura, i.cups, " +
+           "i.periodoInicio, i.periodoFin, i.base, i.impuestos, i.total, i.fechaEmision) FROM Invoice i WHERE i.id = :id")
+    Optional<InvoiceView> findViewById(@Param("id") Long id);
+
+    @Query("SELECT new com.naturgy.gas.repository.InvoiceView(i.id, i.numeroFactura, i.cups, " +
+           "i.periodoInicio, i.periodoFin, i.base, i.impuestos, i.total, i.fechaEmision) FROM Invoice i WHERE i.id IN :ids")
+    List<InvoiceView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,32 @@
+package com.naturgy.gas.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-only projection of an invoice with the same JSON shape as the {@code Invoice} entity.
+ * {@code lines} is null when the caller asked for headers only.
+ */
+public record InvoiceView(Long id,
+                          String numeroFactura,
+                          String cups,
+                          LocalDate periodoInicio,
+                          LocalDate periodoFin,
+                          BigDecimal base,
+                          BigDecimal impuestos,
+                          BigDecimal total,
+                          LocalDate fechaEmision,
+                          List<InvoiceLineView> lines) {
+
+    /** JPQL constructor expression target (header columns only). */
+    public InvoiceView(Long id, String numeroFactura, String cups, LocalDate periodoInicio, LocalDate periodoFin,
+                       BigDecimal base, BigDecimal impuestos, BigDecimal total, LocalDate fechaEmision) {
+        this(id, numeroFactura, cups, periodoInicio, periodoFin, base, impuestos, total, fechaEmision, null);
+    }
+
+    public InvoiceView withLines(List<InvoiceLineView> lines) {
+        return new InvoiceView(id, numeroFactura, cups, periodoInicio, periodoFin, base, impuestos, total,
+                fechaEmision, lines);
+    }
+}
@@ -0,0 +1,7 @@
+package com.naturgy.gas.repository;
+
+import com.naturgy.gas.entity.SeedManifestEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SeedManifestRepository extends JpaRepository<SeedManifestEntry, String> {
+}
@@ -0,0 +1,112 @@
+package com.naturgy.gas.seed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Compact whole-database snapshots with H2's {@code SCRIPT DROP TO ... COMPRESSION ZIP}: the schema
+ * plus every row as a zipped SQL script. {@code RUNSCRIPT} restores it into an empty or existing
+ * database (tables are dropped and recreated), which works for both the in-memory and the
+ * file-backed datasource.
+ *
+ * A snapshot is written under a temporary name and renamed when complete, so a crash never
+ * leaves a truncated gasdb-*.zip behind.
+ */
+@Service
+public class DatabaseSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSnapshotService.class);
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    static final String LATEST = "latest";
+
+    private final JdbcTemplate jdbc;
+    private final Path dir;
+    private final String restoreFrom;
+
+    public DatabaseSnapshotService(JdbcTemplate jdbc,
+                                   @Value("${gas.snapshot.dir:_data/snapshots}") String dir,
+                                   @Value("${gas.snapshot.restore-from:}") String restoreFrom) {
+        this.jdbc = jdbc;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.restoreFrom = restoreFrom;
+    }
+
+    public record SnapshotResult(String file, long bytes, long durationMs) {}
+
+    public synchronized SnapshotResult snapshot() {
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(dir);
+            Path target = dir.resolve("gasdb-" + LocalDateTime.now().format(STAMP) + ".zip");
+            Path tmp = dir.resolve(".tmp-" + target.getFileName());
+            Files.deleteIfExists(tmp);
+            jdbc.execute("SCRIPT DROP TO " + literal(tmp) + " COMPRESSION ZIP");
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            SnapshotResult result = new SnapshotResult(target.toString(), Files.size(target),
+                    System.currentTimeMillis() - start);
+            log.info("Database snapshot written: {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot to " + dir, e);
+        }
+    }
+
+    /** Replaces the database content with the snapshot. */
+    public synchronized SnapshotResult restore(Path snapshot) {
+        if (!Files.isRegularFile(snapshot)) {
+            throw new IllegalArgumentException("Snapshot not found: " + snapshot);
+        }
+        long start = System.currentTimeMillis();
+        jdbc.execute("RUNSCRIPT FROM " + literal(snapshot.toAbsolutePath()) + " COMPRESSION ZIP");
+        try {
+            SnapshotResult result = new SnapshotResult(snapshot.toString(), Files.size(snapshot),
+                    System.currentTimeMillis() - start);
+            log.info("Database restored from snapshot: {}", result);
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The snapshot named by {@code gas.snapshot.restore-from}: a path, or "latest" for the newest
+     * gasdb-*.zip in {@code gas.snapshot.dir}. Empty when not configured or nothing is there.
+     */
+    public Optional<Path> configuredRestore() {
+        if (restoreFrom == null || restoreFrom.isBlank()) return Optional.empty();
+        if (!LATEST.equals(restoreFrom)) {
+            Path p = Paths.get(restoreFrom).toAbsolutePath().normalize();
+            if (Files.isRegularFile(p)) return Optional.of(p);
+            log.warn("Snapshot to restore not found: {}", p);
+            return Optional.empty();
+        }
+        if (!Files.isDirectory(dir)) return Optional.empty();
+        try (Stream<Path> files = Files.list(dir)) {
+            // names embed a sortable timestamp
+            return files.filter(p -> p.getFileName().toString().matches("gasdb-\\d{8}-\\d{6}\\.zip"))
+                    .max(Comparator.comparing(p -> p.getFileName().toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list snapshots in " + dir, e);
+        }
+    }
+
+    private static String literal(Path path) {
+        return "'" + path.toString().replace("'", "''") + "'";
+    }
+}
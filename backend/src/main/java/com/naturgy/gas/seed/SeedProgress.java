@@ -0,0 +1,90 @@
+package com.naturgy.gas.seed;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the startup seed, reported as the "seedProgress" health contributor: UP once
+ * complete, OUT_OF_SERVICE while loading (so the readiness probe answers 503), DOWN if it failed.
+ * The details carry files loaded out of total and rows inserted so far.
+ */
+@Component
+public class SeedProgress implements HealthIndicator {
+
+    public enum State { PENDING, SEEDING, COMPLETE, FAILED }
+
+    private volatile State state = State.PENDING;
+    private volatile int filesTotal;
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    void start(int files) {
+        filesTotal = files;
+        filesDone.set(0);
+        rowsInserted.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        state = State.SEEDING;
+    }
+
+    void rowsInserted(int rows) {
+        rowsInserted.addAndGet(rows);
+    }
+
+    void fileDone() {
+        filesDone.incrementAndGet();
+    }
+
+    void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETE;
+    }
+
+    void fail(Throwable cause) {
+        finishedAt = Instant.now();
+        error = String.valueOf(cause.getMessage());
+        state = State.FAILED;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    public boolean isComplete() {
+        return state == State.COMPLETE;
+    }
+
+    /** e.g. "2/5 files, 12000 rows"; used in the 503 returned to writes while seeding. */
+    public String summary() {
+        return filesDone.get() + "/" + filesTotal + " files, " + rowsInserted.get() + " rows";
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (state) {
+            case COMPLETE -> Health.up();
+            case FAILED -> Health.down();
+            default -> Health.outOfService();
+        };
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", state);
+        details.put("filesDone", filesDone.get());
+        details.put("filesTotal", filesTotal);
+        details.put("rowsInserted", rowsInserted.get());
+        if (startedAt != null) details.put("startedAt", startedAt.toString());
+        if (finishedAt != null) details.put("finishedAt", finishedAt.toString());
+        if (error != null) details.put("error", error);
+        return builder.withDetails(details).build();
+    }
+}
@@ -1,23 +1,45 @@
 package com.naturgy.gas.seed;
 
 import com.naturgy.gas.entity.*;
+import com.naturgy.gas.event.SeedCompletedEvent;
 import com.naturgy.gas.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Seeds the database from CSV files found under:
@@ -26,39 +48,175 @@ import java.util.Optional;
  *
  * Idempotent: re-running does not duplicate rows.
  * Invalid dates are skipped with WARN; missing CSVs boot without error.
+ *
+ * The files have no foreign keys between them, so they are loaded in parallel on
+ * {@code gas.seed.threads} threads, each in its own transaction. Rows are parsed in Java and
+ * written in JDBC batches of {@code gas.seed.batch-size} insert-if-absent statements: rows whose
+ * key already exists (in the table or earlier in the file) are skipped by the database, with no
+ * exists query per row.
+ *
+ * Each loaded file is recorded in seed_manifest with its SHA-256; a file whose checksum is
+ * unchanged is not read again, so with the file-backed database (profile "persistent") a
+ * restart skips seeding entirely. A changed file is loaded again with the same insert-if-absent
+ * rule. On a database that has never been seeded, {@code gas.snapshot.restore-from} first
+ * restores a snapshot (see {@link DatabaseSnapshotService}); seeding then only loads what the
+ * snapshot's manifest does not cover. The restore drops and recreates every table, so it runs
+ * synchronously while the context starts, before the web server accepts any request; a snapshot
+ * that cannot be restored fails the startup.
+ *
+ * With {@code gas.seed.async=true} (the default) the seed runs on a background thread so the
+ * server is up and answering health probes within seconds; {@link SeedProgress} reports how far
+ * it got, the readiness probe stays 503 until it completes, and writes are rejected meanwhile.
+ * Work that needs the seeded data waits for {@link SeedCompletedEvent}.
  */
 @Component
-public class SeedService implements ApplicationRunner {
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SeedService implements ApplicationRunner, SmartInitializingSingleton {
 
     private static final Logger log = LoggerFactory.getLogger(SeedService.class);
 
     @Value("${gas.data.dir:_data/db/samples}")
     private String dataDir;
 
+    @Value("${gas.seed.threads:5}")
+    private int threads;
+
+    @Value("${gas.seed.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${gas.seed.async:true}")
+    private boolean async;
+
     private final SupplyPointRepository supplyPointRepo;
     private final GasTariffRepository gasTariffRepo;
     private final GasConversionFactorRepository conversionFactorRepo;
     private final TaxConfigRepository taxConfigRepo;
     private final GasReadingRepository gasReadingRepo;
+    private final SeedManifestRepository manifestRepo;
+    private final DatabaseSnapshotService snapshotService;
+    private final SeedProgress progress;
+    private final ApplicationEventPublisher events;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
 
     public SeedService(SupplyPointRepository supplyPointRepo,
                        GasTariffRepository gasTariffRepo,
                        GasConversionFactorRepository conversionFactorRepo,
                        TaxConfigRepository taxConfigRepo,
-                       GasReadingRepository gasReadingRepo) {
+                       GasReadingRepository gasReadingRepo,
+                       SeedManifestRepository manifestRepo,
+                       DatabaseSnapshotService snapshotService,
+                       SeedProgress progress,
+                       ApplicationEventPublisher events,
+                       JdbcTemplate jdbc,
+                       TransactionTemplate tx) {
         this.supplyPointRepo = supplyPointRepo;
         this.gasTariffRepo = gasTariffRepo;
         this.conversionFactorRepo = conversionFactorRepo;
         this.taxConfigRepo = taxConfigRepo;
         this.gasReadingRepo = gasReadingRepo;
+        this.manifestRepo = manifestRepo;
+        this.snapshotService = snapshotService;
+        this.progress = progress;
+        this.events = events;
+        this.jdbc = jdbc;
+        this.tx = tx;
+    }
+
+    /**
+     * One seed CSV: the insert-if-absent statement, the minimum column count and the row parser.
+     * The parser returns the statement parameters (row values, then the key again for the
+     * NOT EXISTS check) or throws IllegalArgumentException to skip the row with a WARN.
+     */
+    private record SeedFile(String name, String insertSql, int columns, Function<String[], Object[]> parser) {}
+
+    private static final List<SeedFile> FILES = List.of(
+            new SeedFile("supply-points.csv",
+                    "INSERT INTO supply_point (cups, zona, tarifa, estado) SELECT ?, ?, ?, ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM supply_point WHERE cups = ?)", 4,
+                    c -> {
+                        String cups = c[0].trim();
+                        if (cups.isBlank()) throw new IllegalArgumentException("blank cups");
+                        String estado = c[3].trim();
+                        try { SupplyPoint.EstadoEnum.valueOf(estado); }
+                        catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("invalid estado '" + estado + "'");
+                        }
+                        return new Object[]{cups, c[1].trim(), c[2].trim(), estado, cups};
+                    }),
+            new SeedFile("gas-tariffs.csv",
+                    "INSERT INTO gas_tariff (tarifa, fijo_mes_eur, variable_eur_kwh, vigencia_desde) SELECT ?, ?, ?, ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM gas_tariff WHERE tarifa = ? AND vigencia_desde = ?)", 4,
+                    c -> {
+                        String tarifa = c[0].trim();
+                        Date vigencia = date(c[3]);
+                        return new Object[]{tarifa, decimal(c[1]), decimal(c[2]), vigencia, tarifa, vigencia};
+                    }),
+            new SeedFile("gas-conversion-factors.csv",
+                    "INSERT INTO gas_conversion_factor (zona, mes, coef_conv, pcs_kwh_m3) SELECT ?, ?, ?, ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM gas_conversion_factor WHERE zona = ? AND mes = ?)", 4,
+                    c -> {
+                        String zona = c[0].trim();
+                        String mes = c[1].trim();
+                        return new Object[]{zona, mes, decimal(c[2]), decimal(c[3]), zona, mes};
+                    }),
+            new SeedFile("taxes.csv",
+                    "INSERT INTO tax_config (tax_code, tax_rate, vigencia_desde) SELECT ?, ?, ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM tax_config WHERE tax_code = ? AND vigencia_desde = ?)", 3,
+                    c -> {
+                        String taxCode = c[0].trim();
+                        Date vigencia = date(c[2]);
+                        return new Object[]{taxCode, decimal(c[1]), vigencia, taxCode, vigencia};
+                    }),
+            new SeedFile("gas-readings.csv",
+                    "INSERT INTO gas_reading (cups, fecha, lectura_m3, tipo) SELECT ?, ?, ?, ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM gas_reading WHERE cups = ? AND fecha = ?)", 4,
+                    c -> {
+                        String cups = c[0].trim();
+                        Date fecha = date(c[1]);
+                        BigDecimal lecturaM3 = decimal(c[2]);
+                        if (lecturaM3.compareTo(BigDecimal.ZERO) < 0) {
+                            throw new IllegalArgumentException("lectura_m3 < 0");
+                        }
+                        String tipo = c[3].trim();
+                        try { GasReading.TipoEnum.valueOf(tipo); }
+                        catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("invalid tipo '" + tipo + "'");
+                        }
+                        return new Object[]{cups, fecha, lecturaM3, tipo, cups, fecha};
+                    }));
+
+    /** Runs once every bean exists and before the web server starts (see the class comment). */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (manifestRepo.count() == 0) {
+            snapshotService.configuredRestore().ifPresent(snapshotService::restore);
+        }
     }
 
     @Override
     public void run(ApplicationArguments args) {
+        if (!async) {
+            seed();
+            return;
+        }
+        Thread t = new Thread(() -> {
+            try {
+                seed();
+            } catch (RuntimeException e) {
+                log.error("Seed failed; writes stay disabled", e);
+            }
+        }, "seed-loader");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Loads every seed CSV and returns when done; failures are recorded in {@link SeedProgress}. */
+    public void seed() {
         // Resolve dataDir to absolute path
         // If relative and not found, try going up one directory (handles running from backend/ subdir)
         Path dataDirPath = Paths.get(dataDir).toAbsolutePath();
-        
+
         if (!Files.exists(dataDirPath)) {
             // Try parent directory (in case running from backend/ subdirectory)
             Path parentPath = Paths.get("..", dataDir).toAbsolutePath().normalize();
@@ -66,222 +224,163 @@ public class SeedService implements ApplicationRunner {
                 dataDirPath = parentPath;
             }
         }
-        
+
         String resolvedDataDir = dataDirPath.toString();
         log.info("Seed: data directory = {} (resolved to: {})", dataDir, resolvedDataDir);
 
-        seedSupplyPoints(resolvedDataDir);
-        seedGasTariffs(resolvedDataDir);
-        seedGasConversionFactors(resolvedDataDir);
-        seedTaxes(resolvedDataDir);
-        seedGasReadings(resolvedDataDir);
+        long start = System.currentTimeMillis();
+        progress.start(FILES.size());
+        try {
+            loadAll(resolvedDataDir);
+        } catch (RuntimeException e) {
+            progress.fail(e);
+            throw e;
+        }
+        long durationMs = System.currentTimeMillis() - start;
+        progress.complete();
 
-        log.info("Seed complete. supply_points={}, gas_tariffs={}, conversion_factors={}, " +
+        log.info("Seed complete in {} ms. supply_points={}, gas_tariffs={}, conversion_factors={}, " +
                  "tax_configs={}, gas_readings={}",
+                durationMs,
                 supplyPointRepo.count(),
                 gasTariffRepo.count(),
                 conversionFactorRepo.count(),
                 taxConfigRepo.count(),
                 gasReadingRepo.count());
+        events.publishEvent(new SeedCompletedEvent(durationMs));
+    }
+
+    private void loadAll(String resolvedDataDir) {
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, FILES.size())), r -> {
+            Thread t = new Thread(r, "seed-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<CompletableFuture<Void>> loads = FILES.stream()
+                    .map(file -> CompletableFuture.runAsync(() -> seed(resolvedDataDir, file), pool))
+                    .toList();
+            CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        } finally {
+            pool.shutdown();
+        }
     }
 
     // -------------------------------------------------------------------------
     // Seeders
     // -------------------------------------------------------------------------
 
-    private void seedSupplyPoints(String dataDir) {
-        Optional<Path> path = resolveCsvPath(dataDir, "supply-points.csv");
+    private void seed(String dataDir, SeedFile file) {
+        try {
+            seedFile(dataDir, file);
+        } finally {
+            progress.fileDone();
+        }
+    }
+
+    private void seedFile(String dataDir, SeedFile file) {
+        Optional<Path> path = resolveCsvPath(dataDir, file.name());
         if (path.isEmpty()) return;
 
-        try (BufferedReader br = Files.newBufferedReader(path.get())) {
+        long start = System.currentTimeMillis();
+        String sha256 = sha256(path.get());
+        if (manifestRepo.findById(file.name()).filter(m -> m.getSha256().equals(sha256)).isPresent()) {
+            log.info("{}: unchanged since last load (sha256 {}), skipped", file.name(), sha256.substring(0, 12));
+            return;
+        }
+        int[] counts = tx.execute(status -> {
+            int[] c = load(path.get(), file);
+            manifestRepo.save(new SeedManifestEntry(file.name(), sha256, size(path.get()), Instant.now()));
+            return c;
+        });
+        log.info("{}: inserted={}, skipped={}, invalid={} in {} ms",
+                file.name(), counts[0], counts[1], counts[2], System.currentTimeMillis() - start);
+    }
+
+    /** Returns {inserted, skipped (already present), invalid}. */
+    private int[] load(Path path, SeedFile file) {
+        int[] counts = new int[3];
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        try (BufferedReader br = Files.newBufferedReader(path)) {
             String header = br.readLine(); // skip header
-            if (header == null) return;
+            if (header == null) return counts;
             String line;
-            int inserted = 0, skipped = 0;
             while ((line = br.readLine()) != null) {
                 line = line.trim();
                 if (line.isEmpty()) continue;
                 String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    log.warn("supply-points.csv: malformed row (expected 4 cols): {}", line);
+                if (cols.length < file.columns()) {
+                    log.warn("{}: malformed row (expected {} cols): {}", file.name(), file.columns(), line);
+                    counts[2]++;
                     continue;
                 }
-                String cups = cols[0].trim();
-                String zona = cols[1].trim();
-                String tarifa = cols[2].trim();
-                String estadoStr = cols[3].trim();
-
-                if (cups.isBlank()) { log.warn("supply-points: blank cups, skipping"); continue; }
-                SupplyPoint.EstadoEnum estado;
-                try { estado = SupplyPoint.EstadoEnum.valueOf(estadoStr); }
-                catch (IllegalArgumentException e) {
-                    log.warn("supply-points: invalid estado '{}', skipping row: {}", estadoStr, line);
+                try {
+                    batch.add(file.parser().apply(cols));
+                } catch (IllegalArgumentException e) {
+                    log.warn("{}: {}, skipping row: {}", file.name(), e.getMessage(), line);
+                    counts[2]++;
                     continue;
                 }
-
-                if (supplyPointRepo.existsById(cups)) { skipped++; continue; }
-                supplyPointRepo.save(new SupplyPoint(cups, zona, tarifa, estado));
-                inserted++;
+                if (batch.size() >= batchSize) flush(file, batch, counts);
             }
-            log.info("supply-points: inserted={}, skipped={}", inserted, skipped);
+            flush(file, batch, counts);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to read supply-points.csv: " + e.getMessage(), e);
+            throw new UncheckedIOException("Failed to read " + file.name() + ": " + e.getMessage(), e);
         }
+        return counts;
     }
 
-    private void seedGasTariffs(String dataDir) {
-        Optional<Path> path = resolveCsvPath(dataDir, "gas-tariffs.csv");
-        if (path.isEmpty()) return;
-
-        try (BufferedReader br = Files.newBufferedReader(path.get())) {
-            String header = br.readLine();
-            if (header == null) return;
-            String line;
-            int inserted = 0, skipped = 0;
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    log.warn("gas-tariffs.csv: malformed row: {}", line);
-                    continue;
-                }
-                String tarifa = cols[0].trim();
-                BigDecimal fijoMesEur = new BigDecimal(cols[1].trim());
-                BigDecimal variableEurKwh = new BigDecimal(cols[2].trim());
-                LocalDate vigenciaDesde = LocalDate.parse(cols[3].trim());
-
-                if (gasTariffRepo.existsByTarifaAndVigenciaDesde(tarifa, vigenciaDesde)) { skipped++; continue; }
-                gasTariffRepo.save(new GasTariff(tarifa, fijoMesEur, variableEurKwh, vigenciaDesde));
-                inserted++;
-            }
-            log.info("gas-tariffs: inserted={}, skipped={}", inserted, skipped);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read gas-tariffs.csv: " + e.getMessage(), e);
+    private void flush(SeedFile file, List<Object[]> batch, int[] counts) {
+        if (batch.isEmpty()) return;
+        int inserted = counts[0];
+        for (int n : jdbc.batchUpdate(file.insertSql(), batch)) {
+            if (n > 0) counts[0]++;
+            else counts[1]++;
         }
+        progress.rowsInserted(counts[0] - inserted);
+        batch.clear();
     }
 
-    private void seedGasConversionFactors(String dataDir) {
-        Optional<Path> path = resolveCsvPath(dataDir, "gas-conversion-factors.csv");
-        if (path.isEmpty()) return;
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
 
-        try (BufferedReader br = Files.newBufferedReader(path.get())) {
-            String header = br.readLine();
-            if (header == null) return;
-            String line;
-            int inserted = 0, skipped = 0;
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    log.warn("gas-conversion-factors.csv: malformed row: {}", line);
-                    continue;
-                }
-                String zona = cols[0].trim();
-                String mes = cols[1].trim();
-                BigDecimal coefConv = new BigDecimal(cols[2].trim());
-                BigDecimal pcsKwhM3 = new BigDecimal(cols[3].trim());
-
-                if (conversionFactorRepo.existsByZonaAndMes(zona, mes)) { skipped++; continue; }
-                conversionFactorRepo.save(new GasConversionFactor(zona, mes, coefConv, pcsKwhM3));
-                inserted++;
-            }
-            log.info("gas-conversion-factors: inserted={}, skipped={}", inserted, skipped);
+    private static String sha256(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) digest.update(buf, 0, n);
+            return HexFormat.of().formatHex(digest.digest());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to read gas-conversion-factors.csv: " + e.getMessage(), e);
+            throw new UncheckedIOException("Failed to read " + path, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    private void seedTaxes(String dataDir) {
-        Optional<Path> path = resolveCsvPath(dataDir, "taxes.csv");
-        if (path.isEmpty()) return;
-
-        try (BufferedReader br = Files.newBufferedReader(path.get())) {
-            String header = br.readLine();
-            if (header == null) return;
-            String line;
-            int inserted = 0, skipped = 0;
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 3) {
-                    log.warn("taxes.csv: malformed row: {}", line);
-                    continue;
-                }
-                String taxCode = cols[0].trim();
-                BigDecimal taxRate = new BigDecimal(cols[1].trim());
-                LocalDate vigenciaDesde = LocalDate.parse(cols[2].trim());
+    private static long size(Path path) {
+        try { return Files.size(path); }
+        catch (IOException e) { throw new UncheckedIOException(e); }
+    }
 
-                if (taxConfigRepo.existsByTaxCodeAndVigenciaDesde(taxCode, vigenciaDesde)) { skipped++; continue; }
-                taxConfigRepo.save(new TaxConfig(taxCode, taxRate, vigenciaDesde));
-                inserted++;
-            }
-            log.info("taxes: inserted={}, skipped={}", inserted, skipped);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read taxes.csv: " + e.getMessage(), e);
+    private static Date date(String value) {
+        try { return Date.valueOf(LocalDate.parse(value.trim())); }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date '" + value.trim() + "'");
         }
     }
 
-    private void seedGasReadings(String dataDir) {
-        Optional<Path> path = resolveCsvPath(dataDir, "gas-readings.csv");
-        if (path.isEmpty()) return;
-
-        try (BufferedReader br = Files.newBufferedReader(path.get())) {
-            String header = br.readLine();
-            if (header == null) return;
-            String line;
-            int inserted = 0, skipped = 0, invalidDate = 0;
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-                String[] cols = line.split(",", -1);
-                if (cols.length < 4) {
-                    log.warn("gas-readings.csv: malformed row: {}", line);
-                    continue;
-                }
-                String cups = cols[0].trim();
-                String fechaStr = cols[1].trim();
-                String lecturaStr = cols[2].trim();
-                String tipoStr = cols[3].trim();
-
-                LocalDate fecha;
-                try { fecha = LocalDate.parse(fechaStr); }
-                catch (DateTimeParseException e) {
-                    log.warn("gas-readings: invalid date '{}', skipping row: {}", fechaStr, line);
-                    invalidDate++;
-                    continue;
-                }
-
-                BigDecimal lecturaM3 = new BigDecimal(lecturaStr);
-                if (lecturaM3.compareTo(BigDecimal.ZERO) < 0) {
-                    log.warn("gas-readings: lectura_m3 < 0, skipping row: {}", line);
-                    continue;
-                }
-
-                GasReading.TipoEnum tipo;
-                try { tipo = GasReading.TipoEnum.valueOf(tipoStr); }
-                catch (IllegalArgumentException e) {
-                    log.warn("gas-readings: invalid tipo '{}', skipping row: {}", tipoStr, line);
-                    continue;
-                }
-
-                GasReading.GasReadingId id = new GasReading.GasReadingId(cups, fecha);
-                if (gasReadingRepo.existsById(id)) { skipped++; continue; }
-                gasReadingRepo.save(new GasReading(cups, fecha, lecturaM3, tipo));
-                inserted++;
-            }
-            log.info("gas-readings: inserted={}, skipped={}, invalidDate={}", inserted, skipped, invalidDate);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read gas-readings.csv: " + e.getMessage(), e);
+    private static BigDecimal decimal(String value) {
+        try { return new BigDecimal(value.trim()); }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid number '" + value.trim() + "'");
         }
     }
 
-    // -------------------------------------------------------------------------
-    // Helpers
-    // -------------------------------------------------------------------------
-
     /**
      * Looks for the CSV in:
      *   A) {dataDir}/gas/{specFileName}
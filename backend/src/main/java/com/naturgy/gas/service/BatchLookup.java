@@ -0,0 +1,48 @@
+package com.naturgy.gas.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves a list of keys with one bulk load, for the batch fetch endpoints: duplicates are
+ * collapsed, found values are keyed in request order and keys without a value are listed apart.
+ */
+public final class BatchLookup {
+
+    private BatchLookup() {}
+
+    public record Result<K, V>(Map<K, V> found, List<K> missing) {}
+
+    /** loader receives the distinct keys once and may return the values in any order. */
+    public static <K, V> Result<K, V> resolve(List<K> keys, int maxItems,
+                                              Function<Collection<K>, List<V>> loader, Function<V, K> keyOf) {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("at least one id is required");
+        }
+        if (keys.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("ids must not contain null");
+        }
+        Set<K> distinct = new LinkedHashSet<>(keys);
+        if (distinct.size() > maxItems) {
+            throw new IllegalArgumentException("at most " + maxItems + " ids per request, got " + distinct.size());
+        }
+        Map<K, V> loaded = new LinkedHashMap<>();
+        loader.apply(distinct).forEach(v -> loaded.put(keyOf.apply(v), v));
+
+        Map<K, V> found = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : distinct) {
+            V value = loaded.get(key);
+            if (value != null) found.put(key, value);
+            else missing.add(key);
+        }
+        return new Result<>(found, missing);
+    }
+}
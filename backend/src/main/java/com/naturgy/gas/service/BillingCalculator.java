@@ -0,0 +1,89 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.GasConversionFactor;
+import com.naturgy.gas.entity.GasTariff;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.InvoiceLine;
+import com.naturgy.gas.entity.TaxConfig;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Per-CUPS invoice arithmetic of the logic-spec (m³ → kWh → fixed/variable → IVA) and the invoice
+ * it produces, with no repository access. {@link BillingService} feeds it the readings and master
+ * data it looked up; the startup warm-up and the benchmarks feed it synthetic values.
+ */
+public final class BillingCalculator {
+
+    private BillingCalculator() {}
+
+    public record Amounts(BigDecimal kwh,
+                          BigDecimal costeFijo,
+                          BigDecimal costeVariable,
+                          BigDecimal alquiler,
+                          BigDecimal base,
+                          BigDecimal impuestos,
+                          BigDecimal total) {}
+
+    public static Amounts calculate(BigDecimal m3Consumidos, GasConversionFactor cf, GasTariff tariff,
+                                    TaxConfig tax, int daysInMonth) {
+        // kwh = m3_consumidos * coef_conv * pcs_kwh_m3
+        BigDecimal kwh = m3Consumidos
+                .multiply(cf.getCoefConv())
+                .multiply(cf.getPcsKwhM3())
+                .setScale(3, RoundingMode.HALF_UP);
+
+        // coste_fijo = fijo_mes_eur * (days_in_period / days_in_month)
+        // For monthly billing: effectively fijo_mes_eur itself
+        BigDecimal costeFijo = tariff.getFijoMesEur()
+                .multiply(new BigDecimal(daysInMonth))
+                .divide(new BigDecimal(daysInMonth), 2, RoundingMode.HALF_UP);
+
+        // coste_variable = kwh * variable_eur_kwh
+        BigDecimal costeVariable = kwh
+                .multiply(tariff.getVariableEurKwh())
+                .setScale(2, RoundingMode.HALF_UP);
+
+        // alquiler: workshop default 0.00
+        BigDecimal alquiler = BigDecimal.ZERO.setScale(2);
+
+        // base = coste_fijo + coste_variable + alquiler
+        BigDecimal base = costeFijo.add(costeVariable).add(alquiler).setScale(2, RoundingMode.HALF_UP);
+
+        // impuestos = base * iva_rate
+        BigDecimal impuestos = base.multiply(tax.getTaxRate()).setScale(2, RoundingMode.HALF_UP);
+
+        // total = base + impuestos
+        BigDecimal total = base.add(impuestos).setScale(2, RoundingMode.HALF_UP);
+
+        return new Amounts(kwh, costeFijo, costeVariable, alquiler, base, impuestos, total);
+    }
+
+    /** The unsaved invoice with its lines (the ALQUILER line only when there is a rental). */
+    public static Invoice invoice(String numeroFactura, String cups, LocalDate periodStart, LocalDate periodEnd,
+                                  Amounts a, GasTariff tariff, TaxConfig tax, LocalDate fechaEmision) {
+        Invoice invoice = new Invoice(numeroFactura, cups, periodStart, periodEnd,
+                a.base(), a.impuestos(), a.total(), fechaEmision);
+
+        invoice.getLines().add(new InvoiceLine(invoice,
+                InvoiceLine.TipoLineaEnum.TERMINO_FIJO, "Término fijo",
+                BigDecimal.ONE, tariff.getFijoMesEur(), a.costeFijo()));
+
+        invoice.getLines().add(new InvoiceLine(invoice,
+                InvoiceLine.TipoLineaEnum.TERMINO_VARIABLE, "Término variable",
+                a.kwh(), tariff.getVariableEurKwh(), a.costeVariable()));
+
+        if (a.alquiler().compareTo(BigDecimal.ZERO) > 0) {
+            invoice.getLines().add(new InvoiceLine(invoice,
+                    InvoiceLine.TipoLineaEnum.ALQUILER, "Alquiler",
+                    BigDecimal.ONE, a.alquiler(), a.alquiler()));
+        }
+
+        invoice.getLines().add(new InvoiceLine(invoice,
+                InvoiceLine.TipoLineaEnum.IVA, "IVA",
+                tax.getTaxRate(), a.base(), a.impuestos()));
+        return invoice;
+    }
+}
@@ -1,24 +1,36 @@
 package com.naturgy.gas.service;
 
 import com.naturgy.gas.entity.*;
+import com.naturgy.gas.event.InvoiceCreatedEvent;
 import com.naturgy.gas.repository.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Core billing engine.
  * Implements logic-spec: m³ → kWh → fixed/variable → IVA → Invoice + Lines.
+ *
+ * Metrics: gas.billing.run (whole run), gas.billing.stage per CUPS and stage (load = lookups,
+ * compute = arithmetic and invoice build, persist = save, change log and events),
+ * gas.billing.cups (per-CUPS latency histogram, outcome billed/error) and gas.billing.errors by
+ * {@link BillingError.Cause}.
  */
 @Service
 public class BillingService {
@@ -31,22 +43,65 @@ public class BillingService {
     private final GasConversionFactorRepository convFactorRepo;
     private final TaxConfigRepository taxConfigRepo;
     private final InvoiceRepository invoiceRepo;
+    private final ChangeLogService changeLog;
+    private final BillingSummaryService summaries;
+    private final ApplicationEventPublisher events;
+    private final Timer runTimer;
+    private final Timer loadTimer;
+    private final Timer computeTimer;
+    private final Timer persistTimer;
+    private final Timer billedTimer;
+    private final Timer failedTimer;
+    private final Map<BillingError.Cause, Counter> errorCounters = new EnumMap<>(BillingError.Cause.class);
 
     public BillingService(SupplyPointRepository supplyPointRepo,
                           GasReadingRepository readingRepo,
                           GasTariffRepository tariffRepo,
                           GasConversionFactorRepository convFactorRepo,
                           TaxConfigRepository taxConfigRepo,
-                          InvoiceRepository invoiceRepo) {
+                          InvoiceRepository invoiceRepo,
+                          ChangeLogService changeLog,
+                          BillingSummaryService summaries,
+                          ApplicationEventPublisher events,
+                          MeterRegistry meters) {
         this.supplyPointRepo = supplyPointRepo;
         this.readingRepo = readingRepo;
         this.tariffRepo = tariffRepo;
         this.convFactorRepo = convFactorRepo;
         this.taxConfigRepo = taxConfigRepo;
         this.invoiceRepo = invoiceRepo;
+        this.changeLog = changeLog;
+        this.summaries = summaries;
+        this.events = events;
+        this.runTimer = Timer.builder("gas.billing.run").description("Billing run for a period")
+                .register(meters);
+        this.loadTimer = stageTimer(meters, "load");
+        this.computeTimer = stageTimer(meters, "compute");
+        this.persistTimer = stageTimer(meters, "persist");
+        this.billedTimer = cupsTimer(meters, "billed");
+        this.failedTimer = cupsTimer(meters, "error");
+        for (BillingError.Cause cause : BillingError.Cause.values()) {
+            errorCounters.put(cause, Counter.builder("gas.billing.errors").description("CUPS not billed, by cause")
+                    .tag("cause", cause.name().toLowerCase()).register(meters));
+        }
+    }
+
+    private static Timer stageTimer(MeterRegistry meters, String stage) {
+        return Timer.builder("gas.billing.stage").description("Billing stage time per CUPS")
+                .tag("stage", stage).register(meters);
+    }
+
+    private static Timer cupsTimer(MeterRegistry meters, String outcome) {
+        return Timer.builder("gas.billing.cups").description("Billing time per CUPS")
+                .tag("outcome", outcome).publishPercentileHistogram().register(meters);
+    }
+
+    /** Why a CUPS was not billed; {@code message} is the text the API returns. */
+    public record BillingError(String cups, String period, Cause cause, String message) {
+        public enum Cause { MISSING_READING, NEGATIVE_CONSUMPTION, NO_TARIFF, NO_CONVERSION_FACTOR, NO_TAX }
     }
 
-    public record BillingResult(List<Invoice> invoices, List<String> errors) {}
+    public record BillingResult(List<Invoice> invoices, List<BillingError> errors) {}
 
     /**
      * Runs billing for all ACTIVO supply points for the given period YYYY-MM.
@@ -54,6 +109,10 @@ public class BillingService {
      */
     @Transactional
     public BillingResult runBillingForPeriod(String period) {
+        return runTimer.record(() -> bill(period));
+    }
+
+    private BillingResult bill(String period) {
         YearMonth ym;
         try {
             ym = YearMonth.parse(period);
@@ -67,14 +126,16 @@ public class BillingService {
 
         List<SupplyPoint> activos = supplyPointRepo.findByEstado(SupplyPoint.EstadoEnum.ACTIVO);
         List<Invoice> invoices = new ArrayList<>();
-        List<String> errors  = new ArrayList<>();
+        List<BillingError> errors = new ArrayList<>();
 
-        // Determine invoice sequence base for this period
-        long existingCount = invoiceRepo.countByPeriodoInicio(periodStart);
-        long[] seq = {existingCount + 1};
+        // Determine invoice sequence base for this period: after the highest number still present,
+        // so a partial rollback never makes a re-run reuse a number and a full one restarts at 001
+        long[] seq = {invoiceRepo.maxSequenceForPeriod(periodStart) + 1};
+        BillingSummaryService.Accumulator summary = new BillingSummaryService.Accumulator(periodStart);
 
         for (SupplyPoint sp : activos) {
             String cups = sp.getCups();
+            long t0 = System.nanoTime();
 
             // --- Skip if already billed ---
             if (invoiceRepo.findByCupsAndPeriodoInicio(cups, periodStart).isPresent()) {
@@ -89,8 +150,7 @@ public class BillingService {
             if (inicio.isEmpty() || fin.isEmpty()) {
                 String err = String.format("cups=%s period=%s: missing boundary reading (inicio=%s, fin=%s)",
                         cups, period, inicio.isPresent(), fin.isPresent());
-                log.warn("Billing error: {}", err);
-                errors.add(err);
+                fail(errors, cups, period, BillingError.Cause.MISSING_READING, err, t0);
                 continue;
             }
 
@@ -100,8 +160,7 @@ public class BillingService {
 
             if (m3Consumidos.compareTo(BigDecimal.ZERO) < 0) {
                 String err = String.format("cups=%s period=%s: negative consumption (%.3f)", cups, period, m3Consumidos);
-                log.warn("Billing error: {}", err);
-                errors.add(err);
+                fail(errors, cups, period, BillingError.Cause.NEGATIVE_CONSUMPTION, err, t0);
                 continue;
             }
 
@@ -109,8 +168,7 @@ public class BillingService {
             Optional<GasTariff> tariffOpt = tariffRepo.findActiveForPeriod(sp.getTarifa(), periodEnd);
             if (tariffOpt.isEmpty()) {
                 String err = String.format("cups=%s period=%s: no active tariff for '%s'", cups, period, sp.getTarifa());
-                log.warn("Billing error: {}", err);
-                errors.add(err);
+                fail(errors, cups, period, BillingError.Cause.NO_TARIFF, err, t0);
                 continue;
             }
             GasTariff tariff = tariffOpt.get();
@@ -120,8 +178,7 @@ public class BillingService {
             if (cfOpt.isEmpty()) {
                 String err = String.format("cups=%s period=%s: no conversion factor for zona='%s' mes='%s'",
                         cups, period, sp.getZona(), period);
-                log.warn("Billing error: {}", err);
-                errors.add(err);
+                fail(errors, cups, period, BillingError.Cause.NO_CONVERSION_FACTOR, err, t0);
                 continue;
             }
             GasConversionFactor cf = cfOpt.get();
@@ -130,73 +187,53 @@ public class BillingService {
             Optional<TaxConfig> taxOpt = taxConfigRepo.findActiveForPeriod("IVA", periodEnd);
             if (taxOpt.isEmpty()) {
                 String err = String.format("cups=%s period=%s: no IVA tax configured", cups, period);
-                log.warn("Billing error: {}", err);
-                errors.add(err);
+                fail(errors, cups, period, BillingError.Cause.NO_TAX, err, t0);
                 continue;
             }
             TaxConfig tax = taxOpt.get();
 
-            // --- Calculations (per logic-spec) ---
-            // kwh = m3_consumidos * coef_conv * pcs_kwh_m3
-            BigDecimal kwh = m3Consumidos
-                    .multiply(cf.getCoefConv())
-                    .multiply(cf.getPcsKwhM3())
-                    .setScale(3, RoundingMode.HALF_UP);
-
-            // coste_fijo = fijo_mes_eur * (days_in_period / days_in_month)
-            // For monthly billing: effectively fijo_mes_eur itself
-            BigDecimal costeFijo = tariff.getFijoMesEur()
-                    .multiply(new BigDecimal(daysInMonth))
-                    .divide(new BigDecimal(daysInMonth), 2, RoundingMode.HALF_UP);
-
-            // coste_variable = kwh * variable_eur_kwh
-            BigDecimal costeVariable = kwh
-                    .multiply(tariff.getVariableEurKwh())
-                    .setScale(2, RoundingMode.HALF_UP);
+            long t1 = System.nanoTime();
+            loadTimer.record(t1 - t0, TimeUnit.NANOSECONDS);
 
-            // alquiler: workshop default 0.00
-            BigDecimal alquiler = BigDecimal.ZERO.setScale(2);
-
-            // base = coste_fijo + coste_variable + alquiler
-            BigDecimal base = costeFijo.add(costeVariable).add(alquiler).setScale(2, RoundingMode.HALF_UP);
-
-            // impuestos = base * iva_rate
-            BigDecimal impuestos = base.multiply(tax.getTaxRate()).setScale(2, RoundingMode.HALF_UP);
-
-            // total = base + impuestos
-            BigDecimal total = base.add(impuestos).setScale(2, RoundingMode.HALF_UP);
+            // --- Calculations (per logic-spec) ---
+            BillingCalculator.Amounts amounts = BillingCalculator.calculate(m3Consumidos, cf, tariff, tax, daysInMonth);
 
             // --- Invoice number ---
             String numeroFactura = String.format("GAS-%s-%s-%03d", period.replace("-", ""), cups, seq[0]++);
 
-            // --- Build Invoice ---
-            Invoice invoice = new Invoice(numeroFactura, cups, periodStart, periodEnd,
-                    base, impuestos, total, LocalDate.now());
-
-            // Lines
-            invoice.getLines().add(new InvoiceLine(invoice,
-                    InvoiceLine.TipoLineaEnum.TERMINO_FIJO, "Término fijo",
-                    BigDecimal.ONE, tariff.getFijoMesEur(), costeFijo));
-
-            invoice.getLines().add(new InvoiceLine(invoice,
-                    InvoiceLine.TipoLineaEnum.TERMINO_VARIABLE, "Término variable",
-                    kwh, tariff.getVariableEurKwh(), costeVariable));
-
-            if (alquiler.compareTo(BigDecimal.ZERO) > 0) {
-                invoice.getLines().add(new InvoiceLine(invoice,
-                        InvoiceLine.TipoLineaEnum.ALQUILER, "Alquiler",
-                        BigDecimal.ONE, alquiler, alquiler));
-            }
-
-            invoice.getLines().add(new InvoiceLine(invoice,
-                    InvoiceLine.TipoLineaEnum.IVA, "IVA",
-                    tax.getTaxRate(), base, impuestos));
+            // --- Build Invoice + Lines ---
+            Invoice invoice = BillingCalculator.invoice(numeroFactura, cups, periodStart, periodEnd,
+                    amounts, tariff, tax, LocalDate.now());
+            invoice.setZona(sp.getZona());
+            invoice.setTarifa(sp.getTarifa());
+            long t2 = System.nanoTime();
+            computeTimer.record(t2 - t1, TimeUnit.NANOSECONDS);
 
             invoiceRepo.save(invoice);
             invoices.add(invoice);
-            log.info("Invoice created: {} cups={} total={}", numeroFactura, cups, total);
+            changeLog.record(ChangeLogEntry.EntityType.INVOICE, ChangeLogEntry.Operation.CREATED,
+                    String.valueOf(invoice.getId()), cups);
+            summary.add(sp.getZona(), sp.getTarifa(), amounts.base(), amounts.impuestos(), amounts.total(),
+                    amounts.kwh());
+            events.publishEvent(new InvoiceCreatedEvent(invoice.getId(), numeroFactura, cups,
+                    sp.getZona(), sp.getTarifa(), periodStart, amounts.kwh(), amounts.total()));
+            log.info("Invoice created: {} cups={} total={}", numeroFactura, cups, amounts.total());
+            long t3 = System.nanoTime();
+            persistTimer.record(t3 - t2, TimeUnit.NANOSECONDS);
+            billedTimer.record(t3 - t0, TimeUnit.NANOSECONDS);
         }
 
+        summaries.apply(summary);
         return new BillingResult(invoices, errors);
     }
+
+    private void fail(List<BillingError> errors, String cups, String period, BillingError.Cause cause, String message,
+                      long startNanos) {
+        log.warn("Billing error: {}", message);
+        errors.add(new BillingError(cups, period, cause, message));
+        errorCounters.get(cause).increment();
+        long elapsed = System.nanoTime() - startNanos;
+        loadTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        failedTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    }
 }
@@ -0,0 +1,292 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.BillingSummary;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.InvoiceLine;
+import com.naturgy.gas.entity.SupplyPoint;
+import com.naturgy.gas.repository.BillingSummaryRepository;
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized invoice totals per period × zona × tarifa (table billing_summary).
+ *
+ * Billing adds its invoices with {@link #apply(Accumulator)}, deletion takes one out with
+ * {@link #remove(Invoice)} and a period rollback a whole chunk with {@link #removeAll(Collection)},
+ * all inside the caller's transaction, so the table always agrees with the committed invoices and
+ * a report reads one row per cell instead of every invoice.
+ * An invoice counts in the cell of the zona / tarifa it was billed under, stored on the invoice,
+ * so moving a supply point afterwards never makes a later removal subtract from the wrong cell.
+ * Invoices billed before those columns existed fall back to the supply point's current values.
+ * {@link #rebuild(YearMonth)} recomputes cells from the invoice table.
+ */
+@Service
+public class BillingSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(BillingSummaryService.class);
+
+    private static final String MERGE = """
+            MERGE INTO billing_summary s
+            USING (VALUES (CAST(? AS DATE), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS BIGINT),
+                           CAST(? AS NUMERIC(18,2)), CAST(? AS NUMERIC(18,2)), CAST(? AS NUMERIC(18,2)),
+                           CAST(? AS NUMERIC(12,2)), CAST(? AS NUMERIC(12,2)), CAST(? AS NUMERIC(18,3))))
+                  AS d(periodo_inicio, zona, tarifa, n, base, impuestos, total, min_total, max_total, kwh)
+            ON s.periodo_inicio = d.periodo_inicio AND s.zona = d.zona AND s.tarifa = d.tarifa
+            WHEN MATCHED THEN UPDATE SET
+                invoice_count = s.invoice_count + d.n,
+                sum_base = s.sum_base + d.base,
+                sum_impuestos = s.sum_impuestos + d.impuestos,
+                sum_total = s.sum_total + d.total,
+                min_total = LEAST(s.min_total, d.min_total),
+                max_total = GREATEST(s.max_total, d.max_total),
+                sum_kwh = s.sum_kwh + d.kwh
+            WHEN NOT MATCHED THEN INSERT
+                (periodo_inicio, zona, tarifa, invoice_count, sum_base, sum_impuestos, sum_total, min_total, max_total, sum_kwh)
+                VALUES (d.periodo_inicio, d.zona, d.tarifa, d.n, d.base, d.impuestos, d.total, d.min_total, d.max_total, d.kwh)
+            """;
+
+    /** Per-cell aggregate over the current invoices; callers append conditions and {@link #BY_CELL}. */
+    private static final String AGGREGATE = """
+            SELECT i.periodo_inicio, COALESCE(i.zona, sp.zona), COALESCE(i.tarifa, sp.tarifa), COUNT(*),
+                   SUM(i.base), SUM(i.impuestos), SUM(i.total), MIN(i.total), MAX(i.total), COALESCE(SUM(l.cantidad), 0)
+            FROM invoice i
+            LEFT JOIN supply_point sp ON sp.cups = i.cups
+            LEFT JOIN invoice_line l ON l.invoice_id = i.id AND l.tipo = 'TERMINO_VARIABLE'
+            WHERE COALESCE(i.zona, sp.zona) IS NOT NULL AND COALESCE(i.tarifa, sp.tarifa) IS NOT NULL
+            """;
+
+    private static final String BY_CELL =
+            " GROUP BY i.periodo_inicio, COALESCE(i.zona, sp.zona), COALESCE(i.tarifa, sp.tarifa)";
+
+    /** Invoices of cell s (an alias of billing_summary); further conditions are appended by the caller. */
+    private static final String IN_CELL = """
+            FROM invoice i LEFT JOIN supply_point sp ON sp.cups = i.cups
+            WHERE i.periodo_inicio = s.periodo_inicio AND COALESCE(i.zona, sp.zona) = s.zona
+              AND COALESCE(i.tarifa, sp.tarifa) = s.tarifa""";
+
+    private final BillingSummaryRepository summaryRepo;
+    private final SupplyPointRepository supplyPointRepo;
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate named;
+
+    public BillingSummaryService(BillingSummaryRepository summaryRepo,
+                                 SupplyPointRepository supplyPointRepo,
+                                 JdbcTemplate jdbc) {
+        this.summaryRepo = summaryRepo;
+        this.supplyPointRepo = supplyPointRepo;
+        this.jdbc = jdbc;
+        this.named = new NamedParameterJdbcTemplate(jdbc);
+    }
+
+    /** One summary line; avgTotal is sumTotal / invoices (HALF_UP, 2 decimals). */
+    public record SummaryRow(YearMonth period, String zona, String tarifa, long invoices,
+                             BigDecimal sumBase, BigDecimal sumImpuestos, BigDecimal sumTotal,
+                             BigDecimal minTotal, BigDecimal maxTotal, BigDecimal avgTotal, BigDecimal sumKwh) {}
+
+    /** Rows of the range plus their grand total (period / zona / tarifa null when they differ). */
+    public record SummaryReport(YearMonth from, YearMonth to, List<SummaryRow> rows, SummaryRow total) {}
+
+    public record RebuildResult(YearMonth period, int cells, long durationMs) {}
+
+    /** Invoices of one billing run, summed per cell in memory and merged into the table once per cell. */
+    public static final class Accumulator {
+        private final LocalDate period;
+        private final Map<List<String>, Cell> cells = new LinkedHashMap<>();
+
+        public Accumulator(LocalDate periodoInicio) {
+            this.period = periodoInicio;
+        }
+
+        public void add(String zona, String tarifa, BigDecimal base, BigDecimal impuestos, BigDecimal total,
+                        BigDecimal kwh) {
+            Cell c = cells.computeIfAbsent(List.of(zona, tarifa), k -> new Cell(total));
+            c.n++;
+            c.base = c.base.add(base);
+            c.impuestos = c.impuestos.add(impuestos);
+            c.total = c.total.add(total);
+            c.min = c.min.min(total);
+            c.max = c.max.max(total);
+            c.kwh = c.kwh.add(kwh);
+        }
+
+        public boolean isEmpty() {
+            return cells.isEmpty();
+        }
+
+        private static final class Cell {
+            long n;
+            BigDecimal base = BigDecimal.ZERO, impuestos = BigDecimal.ZERO, total = BigDecimal.ZERO, kwh = BigDecimal.ZERO;
+            BigDecimal min, max;
+
+            Cell(BigDecimal first) {
+                min = first;
+                max = first;
+            }
+        }
+    }
+
+    /** Merges a billing run into the table: one MERGE per touched cell, in one JDBC batch. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Accumulator acc) {
+        if (acc.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(acc.cells.size());
+        Date period = Date.valueOf(acc.period);
+        acc.cells.forEach((key, c) -> rows.add(new Object[]{period, key.get(0), key.get(1), c.n,
+                c.base, c.impuestos, c.total, c.min, c.max, c.kwh}));
+        jdbc.batchUpdate(MERGE, rows);
+    }
+
+    /**
+     * Takes one invoice (still loaded, lines reachable) out of its cell. The cell is dropped when
+     * it becomes empty; min / max are recomputed from the remaining invoices when it held either.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(Invoice invoice) {
+        String zona = invoice.getZona();
+        String tarifa = invoice.getTarifa();
+        if (zona == null || tarifa == null) {
+            SupplyPoint sp = supplyPointRepo.findById(invoice.getCups()).orElse(null);
+            if (sp == null) {
+                log.warn("Summary not updated for invoice {}: supply point {} not found",
+                        invoice.getNumeroFactura(), invoice.getCups());
+                return;
+            }
+            zona = sp.getZona();
+            tarifa = sp.getTarifa();
+        }
+        BigDecimal kwh = invoice.getLines().stream()
+                .filter(l -> l.getTipo() == InvoiceLine.TipoLineaEnum.TERMINO_VARIABLE)
+                .map(InvoiceLine::getCantidad)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        Date period = Date.valueOf(invoice.getPeriodoInicio());
+        int updated = jdbc.update("""
+                UPDATE billing_summary SET invoice_count = invoice_count - 1,
+                       sum_base = sum_base - ?, sum_impuestos = sum_impuestos - ?, sum_total = sum_total - ?,
+                       sum_kwh = sum_kwh - ?
+                WHERE periodo_inicio = ? AND zona = ? AND tarifa = ?
+                """, invoice.getBase(), invoice.getImpuestos(), invoice.getTotal(), kwh,
+                period, zona, tarifa);
+        if (updated == 0) {
+            log.warn("Summary not updated for invoice {}: no cell {} / {} / {}",
+                    invoice.getNumeroFactura(), invoice.getPeriodoInicio(), zona, tarifa);
+            return;
+        }
+        jdbc.update("DELETE FROM billing_summary WHERE periodo_inicio = ? AND zona = ? AND tarifa = ? " +
+                    "AND invoice_count <= 0", period, zona, tarifa);
+        jdbc.update("UPDATE billing_summary s SET " +
+                    "min_total = (SELECT MIN(i.total) " + IN_CELL + " AND i.id <> ?), " +
+                    "max_total = (SELECT MAX(i.total) " + IN_CELL + " AND i.id <> ?) " +
+                    "WHERE s.periodo_inicio = ? AND s.zona = ? AND s.tarifa = ? AND (s.min_total = ? OR s.max_total = ?)",
+                invoice.getId(), invoice.getId(), period, zona, tarifa, invoice.getTotal(), invoice.getTotal());
+    }
+
+    /**
+     * Takes a set of invoices (still present) out of their cells with three set-based statements:
+     * one MERGE subtracting their per-cell aggregate, one DELETE of the cells left empty and one
+     * UPDATE recomputing min / max of the cells where one of them held either.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeAll(Collection<Long> invoiceIds) {
+        if (invoiceIds.isEmpty()) return;
+        Map<String, Object> ids = Map.of("ids", invoiceIds);
+        named.update("""
+                MERGE INTO billing_summary s
+                USING (""" + AGGREGATE + " AND i.id IN (:ids)" + BY_CELL + """
+                      ) AS d(periodo_inicio, zona, tarifa, n, base, impuestos, total, min_total, max_total, kwh)
+                ON s.periodo_inicio = d.periodo_inicio AND s.zona = d.zona AND s.tarifa = d.tarifa
+                WHEN MATCHED THEN UPDATE SET
+                    invoice_count = s.invoice_count - d.n,
+                    sum_base = s.sum_base - d.base,
+                    sum_impuestos = s.sum_impuestos - d.impuestos,
+                    sum_total = s.sum_total - d.total,
+                    sum_kwh = s.sum_kwh - d.kwh
+                """, ids);
+        jdbc.update("DELETE FROM billing_summary WHERE invoice_count <= 0");
+        named.update("UPDATE billing_summary s SET " +
+                     "min_total = (SELECT MIN(i.total) " + IN_CELL + " AND i.id NOT IN (:ids)), " +
+                     "max_total = (SELECT MAX(i.total) " + IN_CELL + " AND i.id NOT IN (:ids)) " +
+                     "WHERE EXISTS (SELECT 1 " + IN_CELL + " AND i.id IN (:ids) " +
+                     "AND (i.total = s.min_total OR i.total = s.max_total))", ids);
+    }
+
+    @Transactional(readOnly = true)
+    public SummaryReport report(YearMonth from, YearMonth to, String zona, String tarifa) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        List<SummaryRow> rows = summaryRepo.findRange(from.atDay(1), to.atDay(1), zona, tarifa).stream()
+                .map(s -> row(YearMonth.from(s.getId().getPeriodoInicio()), s.getId().getZona(), s.getId().getTarifa(),
+                        s.getInvoiceCount(), s.getSumBase(), s.getSumImpuestos(), s.getSumTotal(),
+                        s.getMinTotal(), s.getMaxTotal(), s.getSumKwh()))
+                .toList();
+        return new SummaryReport(from, to, rows, grandTotal(rows));
+    }
+
+    /**
+     * Recomputes the cells of one period (or all, when null) from the invoice table in one
+     * set-based statement.
+     */
+    @Transactional
+    public RebuildResult rebuild(YearMonth period) {
+        long start = System.currentTimeMillis();
+        int cells;
+        if (period == null) {
+            jdbc.update("DELETE FROM billing_summary");
+            cells = jdbc.update("INSERT INTO billing_summary (periodo_inicio, zona, tarifa, invoice_count, sum_base, " +
+                    "sum_impuestos, sum_total, min_total, max_total, sum_kwh) " + AGGREGATE +
+                    BY_CELL);
+        } else {
+            Date p = Date.valueOf(period.atDay(1));
+            jdbc.update("DELETE FROM billing_summary WHERE periodo_inicio = ?", p);
+            cells = jdbc.update("INSERT INTO billing_summary (periodo_inicio, zona, tarifa, invoice_count, sum_base, " +
+                    "sum_impuestos, sum_total, min_total, max_total, sum_kwh) " + AGGREGATE +
+                    " AND i.periodo_inicio = ?" + BY_CELL, p);
+        }
+        RebuildResult result = new RebuildResult(period, cells, System.currentTimeMillis() - start);
+        log.info("Billing summary rebuilt: {}", result);
+        return result;
+    }
+
+    private static SummaryRow row(YearMonth period, String zona, String tarifa, long n, BigDecimal base,
+                                  BigDecimal impuestos, BigDecimal total, BigDecimal min, BigDecimal max,
+                                  BigDecimal kwh) {
+        BigDecimal avg = n == 0 ? null : total.divide(BigDecimal.valueOf(n), 2, RoundingMode.HALF_UP);
+        return new SummaryRow(period, zona, tarifa, n, base, impuestos, total, min, max, avg, kwh);
+    }
+
+    private static SummaryRow grandTotal(List<SummaryRow> rows) {
+        long n = 0;
+        BigDecimal base = BigDecimal.ZERO, impuestos = BigDecimal.ZERO, total = BigDecimal.ZERO, kwh = BigDecimal.ZERO;
+        BigDecimal min = null, max = null;
+        for (SummaryRow r : rows) {
+            n += r.invoices();
+            base = base.add(r.sumBase());
+            impuestos = impuestos.add(r.sumImpuestos());
+            total = total.add(r.sumTotal());
+            kwh = kwh.add(r.sumKwh());
+            min = min == null ? r.minTotal() : min.min(r.minTotal());
+            max = max == null ? r.maxTotal() : max.max(r.maxTotal());
+        }
+        YearMonth period = rows.stream().map(SummaryRow::period).distinct().count() == 1 ? rows.get(0).period() : null;
+        String zona = rows.stream().map(SummaryRow::zona).distinct().count() == 1 ? rows.get(0).zona() : null;
+        String tarifa = rows.stream().map(SummaryRow::tarifa).distinct().count() == 1 ? rows.get(0).tarifa() : null;
+        return row(period, zona, tarifa, n, base, impuestos, total, min, max, kwh);
+    }
+}
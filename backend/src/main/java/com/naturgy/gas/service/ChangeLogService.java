@@ -0,0 +1,242 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.entity.ChangeLogEntry.EntityType;
+import com.naturgy.gas.entity.ChangeLogEntry.Operation;
+import com.naturgy.gas.entity.ChangeLogPurge;
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.repository.ChangeLogRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Transactional outbox of invoice and reading changes, read by downstream systems as a feed.
+ *
+ * Entries are written with {@code MANDATORY} propagation, i.e. always inside the transaction
+ * that makes the change, so a change is in the feed exactly when it is committed.
+ *
+ * The cursor is the entry id. Ids are assigned at insert, not at commit, so a transaction still
+ * open may own an id lower than one already committed. The feed therefore stops below the
+ * lowest id any open writer may own: each writing transaction registers, before its first
+ * insert, the highest id issued so far and deregisters when it completes. A consumer that
+ * resumes from the last id it read never skips an entry.
+ *
+ * Entries older than {@code gas.changes.retention} are purged periodically; a cursor that
+ * points into purged history is refused (410) so the consumer knows to resynchronize.
+ * {@link #bounds()} tells a new or resynchronized consumer where it can start. The purge
+ * mark is stored in change_log_purge, so this still holds after a restart on a persistent database.
+ */
+@Service
+public class ChangeLogService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogService.class);
+
+    private static final String INSERT =
+            "INSERT INTO change_log (entity_type, operation, entity_key, cups, changed_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final ChangeLogRepository repo;
+    private final JdbcTemplate jdbc;
+    private final Duration retention;
+    private final int maxPageSize;
+
+    /** Highest id known to be issued; -1 until read from the table. */
+    private final AtomicLong highWater = new AtomicLong(-1);
+    /** Open writing transactions → highest id issued when they registered. */
+    private final Map<Object, Long> openWriters = new ConcurrentHashMap<>();
+    /** Highest purged id; -1 until read from change_log_purge. */
+    private final AtomicLong purgedThrough = new AtomicLong(-1);
+
+    public ChangeLogService(ChangeLogRepository repo,
+                            JdbcTemplate jdbc,
+                            @Value("${gas.changes.retention:P7D}") Duration retention,
+                            @Value("${gas.changes.max-page-size:1000}") int maxPageSize) {
+        this.repo = repo;
+        this.jdbc = jdbc;
+        this.retention = retention;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public record ChangePage(List<ChangeLogEntry> entries, long nextCursor, boolean hasMore) {}
+
+    public record PurgeResult(int deleted, long purgedThrough) {}
+
+    /**
+     * Valid cursors run from purgedThrough (the oldest retained entry is the next one) to head
+     * (the newest readable entry).
+     */
+    public record FeedBounds(long purgedThrough, long head) {}
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(EntityType type, Operation operation, String entityKey, String cups) {
+        enlist();
+        ChangeLogEntry entry = repo.save(new ChangeLogEntry(type, operation, entityKey, cups, Instant.now()));
+        highWater.accumulateAndGet(entry.getId(), Math::max);
+    }
+
+    /** One JDBC batch for many readings (bulk import path). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordReadings(Operation operation, List<GasReading> readings) {
+        recordBatch(EntityType.READING, operation, readings.size(),
+                i -> readingKey(readings.get(i).getCups(), readings.get(i).getFecha()),
+                i -> readings.get(i).getCups());
+    }
+
+    /** One JDBC batch for many invoices (invoice id → CUPS, e.g. a period rollback). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInvoices(Operation operation, Map<Long, String> cupsById) {
+        List<Map.Entry<Long, String>> invoices = List.copyOf(cupsById.entrySet());
+        recordBatch(EntityType.INVOICE, operation, invoices.size(),
+                i -> String.valueOf(invoices.get(i).getKey()), i -> invoices.get(i).getValue());
+    }
+
+    private void recordBatch(EntityType type, Operation operation, int size,
+                             IntFunction<String> key, IntFunction<String> cups) {
+        if (size == 0) return;
+        enlist();
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbc.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, type.name());
+                ps.setString(2, operation.name());
+                ps.setString(3, key.apply(i));
+                ps.setString(4, cups.apply(i));
+                ps.setTimestamp(5, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return size;
+            }
+        });
+        highWater.accumulateAndGet(repo.maxId(), Math::max);
+    }
+
+    public static String readingKey(String cups, LocalDate fecha) {
+        return cups + "/" + fecha;
+    }
+
+    /**
+     * Entries with id > after, in id order, up to limit. nextCursor is the id to pass as after
+     * next time (unchanged when the page is empty).
+     */
+    public ChangePage read(long after, int limit) {
+        if (after < 0) {
+            throw new IllegalArgumentException("after must be >= 0");
+        }
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        long purged = purgedThrough();
+        if (after < purged) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Cursor " + after
+                    + " is older than the retained change log (purged through id " + purged
+                    + "); resynchronize and restart from a cursor in /api/gas/changes/head");
+        }
+        long through = visibleThrough();
+        List<ChangeLogEntry> entries = repo.findPage(after, through, PageRequest.ofSize(limit + 1));
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) entries = entries.subList(0, limit);
+        long next = entries.isEmpty() ? after : entries.get(entries.size() - 1).getId();
+        return new ChangePage(entries, next, hasMore);
+    }
+
+    public FeedBounds bounds() {
+        return new FeedBounds(purgedThrough(), visibleThrough());
+    }
+
+    @Scheduled(fixedDelayString = "${gas.changes.purge-interval:PT1H}",
+               initialDelayString = "${gas.changes.purge-interval:PT1H}")
+    @Transactional
+    public PurgeResult purge() {
+        long through = Math.min(repo.maxIdBefore(Instant.now().minus(retention)), visibleThrough());
+        long purged = purgedThrough();
+        if (through <= purged) {
+            return new PurgeResult(0, purged);
+        }
+        int deleted = repo.deleteThrough(through);
+        jdbc.update("MERGE INTO change_log_purge (id, purged_through) KEY (id) VALUES (?, ?)",
+                ChangeLogPurge.ROW_ID, through);
+        purgedThrough.accumulateAndGet(through, Math::max);
+        log.info("Change log purge: {} entries up to id {} (retention {})", deleted, through, retention);
+        return new PurgeResult(deleted, through);
+    }
+
+    /** Highest id below which every entry is committed (or rolled back). */
+    long visibleThrough() {
+        long through = highWater();
+        for (long floor : openWriters.values()) {
+            through = Math.min(through, floor);
+        }
+        return through;
+    }
+
+    private long highWater() {
+        long h = highWater.get();
+        if (h < 0) {
+            synchronized (highWater) {
+                h = highWater.get();
+                if (h < 0) {
+                    h = repo.maxId();
+                    highWater.accumulateAndGet(h, Math::max);
+                }
+            }
+        }
+        return h;
+    }
+
+    private long purgedThrough() {
+        long p = purgedThrough.get();
+        if (p < 0) {
+            synchronized (purgedThrough) {
+                p = purgedThrough.get();
+                if (p < 0) {
+                    Long stored = jdbc.queryForObject(
+                            "SELECT COALESCE(MAX(purged_through), 0) FROM change_log_purge", Long.class);
+                    p = stored != null ? stored : 0;
+                    purgedThrough.accumulateAndGet(p, Math::max);
+                }
+            }
+        }
+        return p;
+    }
+
+    /** Registers the current transaction as an open writer (once), with the ids issued so far as its floor. */
+    private void enlist() {
+        if (TransactionSynchronizationManager.hasResource(this)) return;
+        Object token = new Object();
+        openWriters.put(token, highWater());
+        TransactionSynchronizationManager.bindResource(this, token);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLogService.this);
+                openWriters.remove(token);
+            }
+        });
+    }
+}
@@ -0,0 +1,367 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.analytics.HyperLogLog;
+import com.naturgy.gas.analytics.QuantileSketch;
+import com.naturgy.gas.analytics.TopKSketch;
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.entity.InvoiceLine;
+import com.naturgy.gas.entity.SupplyPoint;
+import com.naturgy.gas.event.InvoiceCreatedEvent;
+import com.naturgy.gas.event.ReadingsIngestedEvent;
+import com.naturgy.gas.event.SeedCompletedEvent;
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Approximate consumption statistics per zona × tarifa × month, kept as mergeable sketches
+ * and fed as a stream from billing and reading ingestion (after commit, so rolled-back work
+ * never shows up). A query merges the cells of its window, so its cost depends on the number
+ * of months × zonas × tarifas, never on the number of invoices or readings.
+ *
+ * Error bounds (reported with every answer):
+ * <ul>
+ *   <li>kWh percentiles: within ± {@code gas.analytics.relative-accuracy} (default 1%) of the exact value;</li>
+ *   <li>top consumers: each kWh figure overestimates by at most its {@code maxOverestimateKwh},
+ *       itself ≤ total kWh / {@code gas.analytics.top-k-capacity};</li>
+ *   <li>distinct CUPS: standard error ≈ 1.6%.</li>
+ * </ul>
+ * Sketches only grow: deleted invoices and compacted readings are not subtracted, use
+ * {@link #rebuild()} to resynchronize with the tables.
+ */
+@Service
+public class ConsumptionStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumptionStatsService.class);
+    /** Keys per IN list when checking buffered updates against the snapshot. */
+    private static final int REPLAY_CHUNK = 500;
+
+    private final SupplyPointRepository supplyPointRepo;
+    private final JdbcTemplate jdbc;
+    /** Read-only, repeatable read: the load and the replay check see one snapshot. */
+    private final TransactionTemplate snapshotTx;
+    private final double relativeAccuracy;
+    private final int topKCapacity;
+    private final boolean rebuildOnStartup;
+    /** Live cells, replaced as a whole by {@link #rebuild()}. */
+    private volatile Map<CellKey, Cell> cells = new ConcurrentHashMap<>();
+    /**
+     * Updates that arrived while a rebuild was loading, replayed after the swap unless the load
+     * already saw them; null when no rebuild runs. Updates hold the read lock, the swap the write lock.
+     */
+    private Queue<Update> pending;
+    private final ReadWriteLock swap = new ReentrantReadWriteLock();
+
+    public ConsumptionStatsService(SupplyPointRepository supplyPointRepo,
+                                   JdbcTemplate jdbc,
+                                   TransactionTemplate tx,
+                                   @Value("${gas.analytics.relative-accuracy:0.01}") double relativeAccuracy,
+                                   @Value("${gas.analytics.top-k-capacity:256}") int topKCapacity,
+                                   @Value("${gas.analytics.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.supplyPointRepo = supplyPointRepo;
+        this.jdbc = jdbc;
+        this.snapshotTx = new TransactionTemplate(tx.getTransactionManager());
+        this.snapshotTx.setReadOnly(true);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.relativeAccuracy = relativeAccuracy;
+        this.topKCapacity = topKCapacity;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    record CellKey(String zona, String tarifa, YearMonth month) {}
+
+    private sealed interface Update permits InvoiceUpdate, ReadingUpdate {}
+
+    private record InvoiceUpdate(long invoiceId, CellKey key, String cups, double kwh) implements Update {}
+
+    private record ReadingUpdate(CellKey key, String cups, LocalDate fecha) implements Update {}
+
+    /** One zona × tarifa × month. Guarded by its own monitor. */
+    private final class Cell {
+        final QuantileSketch kwh = new QuantileSketch(relativeAccuracy);
+        final TopKSketch topConsumers = new TopKSketch(topKCapacity);
+        final HyperLogLog billedCups = new HyperLogLog();
+        final HyperLogLog readingCups = new HyperLogLog();
+        long invoices;
+        long readings;
+    }
+
+    public record Percentiles(double p50, double p90, double p95, double p99, double min, double max,
+                              double relativeAccuracy) {}
+
+    public record TopConsumer(String cups, double kwh, double maxOverestimateKwh) {}
+
+    public record DistinctCount(long estimate, double standardError) {}
+
+    public record ConsumptionStats(YearMonth from, YearMonth to, String zona, String tarifa,
+                                   long invoices, long readings, double totalKwh,
+                                   Percentiles kwhPerInvoice,
+                                   List<TopConsumer> topConsumers, double topConsumersErrorBoundKwh,
+                                   DistinctCount distinctBilledCups, DistinctCount distinctReadingCups) {}
+
+    /** {@code replayed}: updates that committed during the load without being seen by it. */
+    public record RebuildResult(long invoices, long readings, long replayed, int cells, long durationMs) {}
+
+    public void recordInvoice(long invoiceId, String zona, String tarifa, YearMonth month, String cups, double kwh) {
+        CellKey key = new CellKey(zona, tarifa, month);
+        swap.readLock().lock();
+        try {
+            addInvoice(cells, key, cups, kwh);
+            if (pending != null) pending.add(new InvoiceUpdate(invoiceId, key, cups, kwh));
+        } finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    public void recordReading(String zona, String tarifa, LocalDate fecha, String cups) {
+        CellKey key = new CellKey(zona, tarifa, YearMonth.from(fecha));
+        swap.readLock().lock();
+        try {
+            addReading(cells, key, cups);
+            if (pending != null) pending.add(new ReadingUpdate(key, cups, fecha));
+        } finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    private void addInvoice(Map<CellKey, Cell> target, CellKey key, String cups, double kwh) {
+        Cell cell = target.computeIfAbsent(key, k -> new Cell());
+        synchronized (cell) {
+            cell.kwh.add(Math.max(0, kwh));
+            cell.topConsumers.add(cups, kwh);
+            cell.billedCups.add(cups);
+            cell.invoices++;
+        }
+    }
+
+    private void addReading(Map<CellKey, Cell> target, CellKey key, String cups) {
+        Cell cell = target.computeIfAbsent(key, k -> new Cell());
+        synchronized (cell) {
+            cell.readingCups.add(cups);
+            cell.readings++;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvoiceCreated(InvoiceCreatedEvent e) {
+        recordInvoice(e.invoiceId(), e.zona(), e.tarifa(), YearMonth.from(e.periodoInicio()), e.cups(), e.kwh().doubleValue());
+    }
+
+    /** Readings of CUPS without a supply point carry no zona/tarifa and are not counted. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReadingsIngested(ReadingsIngestedEvent e) {
+        Set<String> cups = e.readings().stream().map(GasReading::getCups).collect(Collectors.toSet());
+        Map<String, SupplyPoint> points = supplyPointRepo.findAllById(cups).stream()
+                .collect(Collectors.toMap(SupplyPoint::getCups, Function.identity()));
+        for (GasReading r : e.readings()) {
+            SupplyPoint sp = points.get(r.getCups());
+            if (sp != null) {
+                recordReading(sp.getZona(), sp.getTarifa(), r.getFecha(), r.getCups());
+            }
+        }
+    }
+
+    /** Rebuilt once the seed has loaded (it may still be running in the background at ready). */
+    @EventListener(SeedCompletedEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) rebuild();
+    }
+
+    /**
+     * Window [from, to] (inclusive months); null zona/tarifa means all.
+     * Merges the matching cells into fresh sketches, holding each cell only while it is merged.
+     */
+    public ConsumptionStats query(YearMonth from, YearMonth to, String zona, String tarifa, int top) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        QuantileSketch kwh = new QuantileSketch(relativeAccuracy);
+        TopKSketch topConsumers = new TopKSketch(topKCapacity);
+        HyperLogLog billed = new HyperLogLog();
+        HyperLogLog read = new HyperLogLog();
+        long invoices = 0, readings = 0;
+
+        for (Map.Entry<CellKey, Cell> entry : cells.entrySet()) {
+            CellKey k = entry.getKey();
+            if (k.month().isBefore(from) || k.month().isAfter(to)) continue;
+            if (zona != null && !zona.equals(k.zona())) continue;
+            if (tarifa != null && !tarifa.equals(k.tarifa())) continue;
+            Cell c = entry.getValue();
+            synchronized (c) {
+                kwh.merge(c.kwh);
+                topConsumers.merge(c.topConsumers);
+                billed.merge(c.billedCups);
+                read.merge(c.readingCups);
+                invoices += c.invoices;
+                readings += c.readings;
+            }
+        }
+
+        Percentiles percentiles = new Percentiles(kwh.quantile(0.5), kwh.quantile(0.9), kwh.quantile(0.95),
+                kwh.quantile(0.99), kwh.min(), kwh.max(), relativeAccuracy);
+        List<TopConsumer> topList = new ArrayList<>();
+        for (TopKSketch.Item item : topConsumers.top(top)) {
+            topList.add(new TopConsumer(item.key(), item.weight(), item.error()));
+        }
+        return new ConsumptionStats(from, to, zona, tarifa, invoices, readings, topConsumers.total(),
+                percentiles, topList, topConsumers.errorBound(),
+                new DistinctCount(billed.estimate(), HyperLogLog.STANDARD_ERROR),
+                new DistinctCount(read.estimate(), HyperLogLog.STANDARD_ERROR));
+    }
+
+    /**
+     * Rebuilds every cell from invoice (variable-term kWh) and gas_reading, streaming both tables
+     * into a new map that replaces the live one in a single swap, so queries meanwhile keep
+     * answering from the previous cells. The load reads one repeatable-read snapshot whose
+     * highest invoice id is the mark. Updates arriving meanwhile are buffered; after the swap
+     * those the snapshot cannot contain (invoice ids beyond the mark) are applied, and the rest
+     * only if the same snapshot shows they committed too late for the load.
+     */
+    public synchronized RebuildResult rebuild() {
+        long start = System.currentTimeMillis();
+        Map<CellKey, Cell> fresh = new ConcurrentHashMap<>();
+        Queue<Update> buffer = new ConcurrentLinkedQueue<>();
+        setPending(buffer);
+        try {
+            RebuildResult result = snapshotTx.execute(status -> {
+                long mark = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM invoice", Long.class);
+                long[] loaded = load(fresh);
+                swap.writeLock().lock();
+                try {
+                    cells = fresh;
+                    pending = null;
+                } finally {
+                    swap.writeLock().unlock();
+                }
+                long replayed = replay(fresh, List.copyOf(buffer), mark);
+                return new RebuildResult(loaded[0], loaded[1], replayed, fresh.size(), System.currentTimeMillis() - start);
+            });
+            log.info("Consumption sketches rebuilt: {}", result);
+            return result;
+        } finally {
+            setPending(null);
+        }
+    }
+
+    private void setPending(Queue<Update> buffer) {
+        swap.writeLock().lock();
+        try {
+            pending = buffer;
+        } finally {
+            swap.writeLock().unlock();
+        }
+    }
+
+    /** Invoice and reading rows loaded into {@code target}. */
+    private long[] load(Map<CellKey, Cell> target) {
+        long[] invoices = {0};
+        jdbc.query("""
+                SELECT i.cups, i.periodo_inicio, COALESCE(i.zona, sp.zona), COALESCE(i.tarifa, sp.tarifa), l.cantidad
+                FROM invoice i
+                LEFT JOIN supply_point sp ON sp.cups = i.cups
+                JOIN invoice_line l ON l.invoice_id = i.id AND l.tipo = ?
+                WHERE COALESCE(i.zona, sp.zona) IS NOT NULL AND COALESCE(i.tarifa, sp.tarifa) IS NOT NULL
+                """, rs -> {
+            addInvoice(target, new CellKey(rs.getString(3), rs.getString(4), YearMonth.from(rs.getDate(2).toLocalDate())),
+                    rs.getString(1), rs.getDouble(5));
+            invoices[0]++;
+        }, InvoiceLine.TipoLineaEnum.TERMINO_VARIABLE.name());
+
+        long[] readings = {0};
+        jdbc.query("""
+                SELECT r.cups, r.fecha, sp.zona, sp.tarifa
+                FROM gas_reading r
+                JOIN supply_point sp ON sp.cups = r.cups
+                """, rs -> {
+            addReading(target, new CellKey(rs.getString(3), rs.getString(4), YearMonth.from(rs.getDate(2).toLocalDate())),
+                    rs.getString(1));
+            readings[0]++;
+        });
+
+        return new long[] {invoices[0], readings[0]};
+    }
+
+    /**
+     * Applies the buffered updates the load did not see. Runs in the load's snapshot, so a row it
+     * finds here was loaded; readings have no ordered key and are always looked up.
+     */
+    private long replay(Map<CellKey, Cell> target, List<Update> buffered, long mark) {
+        List<Long> invoiceIds = new ArrayList<>();
+        List<ReadingUpdate> readings = new ArrayList<>();
+        for (Update u : buffered) {
+            if (u instanceof InvoiceUpdate i && i.invoiceId() <= mark) invoiceIds.add(i.invoiceId());
+            if (u instanceof ReadingUpdate r) readings.add(r);
+        }
+        Set<Long> loadedInvoices = loadedInvoices(invoiceIds);
+        Set<String> loadedReadings = loadedReadings(readings);
+
+        long replayed = 0;
+        for (Update u : buffered) {
+            if (u instanceof InvoiceUpdate i && !loadedInvoices.contains(i.invoiceId())) {
+                addInvoice(target, i.key(), i.cups(), i.kwh());
+                replayed++;
+            } else if (u instanceof ReadingUpdate r && !loadedReadings.contains(r.cups() + '|' + r.fecha())) {
+                addReading(target, r.key(), r.cups());
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private Set<Long> loadedInvoices(List<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptySet();
+        Set<Long> found = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += REPLAY_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REPLAY_CHUNK, ids.size()));
+            found.addAll(jdbc.queryForList("SELECT id FROM invoice WHERE id IN (" + placeholders(chunk.size(), "?") + ")",
+                    Long.class, chunk.toArray()));
+        }
+        return found;
+    }
+
+    /** Keys as {@code cups|fecha}. */
+    private Set<String> loadedReadings(List<ReadingUpdate> readings) {
+        if (readings.isEmpty()) return Collections.emptySet();
+        Set<String> found = new HashSet<>();
+        for (int from = 0; from < readings.size(); from += REPLAY_CHUNK) {
+            List<ReadingUpdate> chunk = readings.subList(from, Math.min(from + REPLAY_CHUNK, readings.size()));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = chunk.get(i).cups();
+                args[2 * i + 1] = chunk.get(i).fecha();
+            }
+            jdbc.query("SELECT cups, fecha FROM gas_reading WHERE (cups, fecha) IN (" + placeholders(chunk.size(), "(?, ?)") + ")",
+                    rs -> {
+                        found.add(rs.getString(1) + '|' + rs.getDate(2).toLocalDate());
+                    }, args);
+        }
+        return found;
+    }
+
+    private static String placeholders(int n, String one) {
+        return String.join(", ", Collections.nCopies(n, one));
+    }
+}
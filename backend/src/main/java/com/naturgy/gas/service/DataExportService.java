@@ -0,0 +1,348 @@
+package com.naturgy.gas.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams invoices (one row per line) and readings as CSV or NDJSON.
+ *
+ * Readings come from a forward-only, read-only JDBC cursor with {@code gas.export.fetch-size};
+ * H2 is switched to lazy query execution for the duration of the export so it does not
+ * materialize the result either.
+ *
+ * Invoices do not come from a single cursor: joining invoice_line and ordering by invoice made
+ * H2 sort, and so materialize, the whole joined result before returning the first row. They
+ * are paged by primary key instead, {@code fetch-size} at a time, each page a cheap index range
+ * scan, with the lines of the page fetched by one IN query.
+ *
+ * Each row is written as soon as it is read (a hand-written CSV writer or Jackson's streaming
+ * generator), so heap use does not depend on the row count.
+ */
+@Service
+public class DataExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(DataExportService.class);
+
+    public enum Format { CSV, NDJSON }
+
+    /**
+     * Keyset page of invoices in primary-key order; lines are fetched per page below. Zona and
+     * tarifa are the ones the invoice was billed under (the supply point's for older invoices).
+     */
+    private static final String INVOICE_PAGE_SQL = """
+            SELECT i.id, i.numero_factura, i.cups, COALESCE(i.zona, sp.zona), COALESCE(i.tarifa, sp.tarifa),
+                   i.periodo_inicio, i.periodo_fin, i.fecha_emision, i.base, i.impuestos, i.total
+            FROM invoice i
+            LEFT JOIN supply_point sp ON sp.cups = i.cups
+            WHERE i.id > ?
+              AND (CAST(? AS DATE) IS NULL OR i.periodo_inicio >= ?)
+              AND (CAST(? AS DATE) IS NULL OR i.periodo_inicio <= ?)
+              AND (CAST(? AS VARCHAR) IS NULL OR COALESCE(i.zona, sp.zona) = ?)
+              AND (CAST(? AS VARCHAR) IS NULL OR COALESCE(i.tarifa, sp.tarifa) = ?)
+            ORDER BY i.id
+            LIMIT ?
+            """;
+
+    private static final String INVOICE_LINES_SQL = """
+            SELECT invoice_id, id, tipo, descripcion, cantidad, precio_unitario, importe
+            FROM invoice_line
+            WHERE invoice_id IN (%s)
+            ORDER BY invoice_id, id
+            """;
+
+    private static final String[] INVOICE_COLUMNS = {
+            "invoice_id", "numero_factura", "cups", "zona", "tarifa",
+            "periodo_inicio", "periodo_fin", "fecha_emision", "base", "impuestos", "total",
+            "line_id", "tipo", "descripcion", "cantidad", "precio_unitario", "importe"};
+    private static final int INVOICE_FIELDS = 11;
+
+    private static final String READING_SQL = """
+            SELECT cups, fecha, lectura_m3, tipo
+            FROM gas_reading
+            WHERE (CAST(? AS VARCHAR) IS NULL OR cups = ?)
+              AND (CAST(? AS DATE) IS NULL OR fecha >= ?)
+              AND (CAST(? AS DATE) IS NULL OR fecha <= ?)
+            ORDER BY cups, fecha
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public DataExportService(JdbcTemplate jdbc, ObjectMapper objectMapper,
+                             @Value("${gas.export.fetch-size:1000}") int fetchSize) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /** Invoices whose period start lies in [from, to] (first days of month; null = open). */
+    public long exportInvoices(LocalDate from, LocalDate to, String zona, String tarifa,
+                               Format format, boolean gzip, OutputStream out) throws IOException {
+        Object[] filters = {from, from, to, to, zona, zona, tarifa, tarifa};
+        return export("invoices", format, gzip, out, (con, writer) -> streamInvoices(con, filters, writer));
+    }
+
+    /** Readings of one CUPS (or all) with fecha in [from, to] (null = open). */
+    public long exportReadings(String cups, LocalDate from, LocalDate to,
+                               Format format, boolean gzip, OutputStream out) throws IOException {
+        Object[] params = {cups, cups, from, from, to, to};
+        return export("readings", format, gzip, out, (con, writer) -> stream(con, READING_SQL, params, writer));
+    }
+
+    private interface RowSource {
+        long write(Connection con, RowWriter writer) throws SQLException;
+    }
+
+    private long export(String what, Format format, boolean gzip, OutputStream out,
+                        RowSource source) throws IOException {
+        long start = System.currentTimeMillis();
+        GZIPOutputStream gz = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        OutputStream target = gz != null ? gz : out;
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(target) : new NdjsonRowWriter(target);
+
+        long rows;
+        try {
+            rows = jdbc.execute((ConnectionCallback<Long>) con -> source.write(con, writer));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        if (gz != null) gz.finish();
+        log.info("Export {} format={} gzip={}: {} rows in {} ms", what, format, gzip, rows,
+                System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private long stream(Connection con, String sql, Object[] params, RowWriter writer) throws SQLException {
+        setLazy(con, true);
+        try (PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            bind(ps, 1, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData md = rs.getMetaData();
+                String[] columns = new String[md.getColumnCount()];
+                for (int c = 0; c < columns.length; c++) columns[c] = md.getColumnLabel(c + 1).toLowerCase();
+                writer.header(columns);
+                Object[] row = new Object[columns.length];
+                long rows = 0;
+                while (rs.next()) {
+                    for (int c = 0; c < row.length; c++) row[c] = rs.getObject(c + 1);
+                    writer.row(row);
+                    rows++;
+                }
+                return rows;
+            }
+        } finally {
+            setLazy(con, false);
+        }
+    }
+
+    /**
+     * Invoices are walked in keyset pages of {@code fetch-size} ids over the primary key, and the
+     * lines of each page are read with one IN query. Neither query orders across the join, so H2
+     * never has to sort or buffer more than one page.
+     */
+    private long streamInvoices(Connection con, Object[] filters, RowWriter writer) throws SQLException {
+        writer.header(INVOICE_COLUMNS);
+        Object[] row = new Object[INVOICE_COLUMNS.length];
+        long rows = 0;
+        long lastId = Long.MIN_VALUE;
+        try (PreparedStatement page = con.prepareStatement(INVOICE_PAGE_SQL)) {
+            while (true) {
+                page.setLong(1, lastId);
+                bind(page, 2, filters);
+                page.setInt(filters.length + 2, fetchSize);
+                List<Object[]> invoices = new ArrayList<>();
+                try (ResultSet rs = page.executeQuery()) {
+                    while (rs.next()) {
+                        Object[] invoice = new Object[INVOICE_FIELDS];
+                        for (int c = 0; c < INVOICE_FIELDS; c++) invoice[c] = rs.getObject(c + 1);
+                        invoices.add(invoice);
+                    }
+                }
+                if (invoices.isEmpty()) return rows;
+                rows += writeWithLines(con, invoices, row, writer);
+                if (invoices.size() < fetchSize) return rows;
+                lastId = ((Number) invoices.get(invoices.size() - 1)[0]).longValue();
+            }
+        }
+    }
+
+    /** One row per line of each invoice (in page order); an invoice without lines gets one row with empty line columns. */
+    private static long writeWithLines(Connection con, List<Object[]> invoices, Object[] row,
+                                       RowWriter writer) throws SQLException {
+        String sql = INVOICE_LINES_SQL.formatted(String.join(",", Collections.nCopies(invoices.size(), "?")));
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int i = 0; i < invoices.size(); i++) ps.setObject(i + 1, invoices.get(i)[0]);
+            try (ResultSet rs = ps.executeQuery()) {
+                long rows = 0;
+                boolean more = rs.next();
+                for (Object[] invoice : invoices) {
+                    System.arraycopy(invoice, 0, row, 0, INVOICE_FIELDS);
+                    long id = ((Number) invoice[0]).longValue();
+                    boolean hasLines = false;
+                    while (more && rs.getLong(1) == id) {
+                        for (int c = INVOICE_FIELDS; c < row.length; c++) row[c] = rs.getObject(c - INVOICE_FIELDS + 2);
+                        writer.row(row);
+                        rows++;
+                        hasLines = true;
+                        more = rs.next();
+                    }
+                    if (!hasLines) {
+                        Arrays.fill(row, INVOICE_FIELDS, row.length, null);
+                        writer.row(row);
+                        rows++;
+                    }
+                }
+                return rows;
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, int first, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object p = params[i];
+            if (p instanceof LocalDate d) ps.setDate(first + i, Date.valueOf(d));
+            else if (p == null) ps.setNull(first + i, Types.NULL);
+            else ps.setObject(first + i, p);
+        }
+    }
+
+    /** H2-specific: stream results instead of materializing them; a no-op on other databases. */
+    private static void setLazy(Connection con, boolean lazy) {
+        try (Statement st = con.createStatement()) {
+            st.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        } catch (SQLException e) {
+            log.debug("Lazy query execution not available: {}", e.getMessage());
+        }
+    }
+
+    private interface RowWriter {
+        void header(String[] columns);
+        void row(Object[] values);
+        void finish() throws IOException;
+    }
+
+    /** RFC 4180 CSV: header line, values quoted only when they contain a separator, quote or newline. */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer w;
+        private int columns;
+
+        CsvRowWriter(OutputStream out) {
+            this.w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void header(String[] names) {
+            columns = names.length;
+            try {
+                w.write(String.join(",", names));
+                w.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void row(Object[] values) {
+            try {
+                for (int c = 0; c < columns; c++) {
+                    if (c > 0) w.write(',');
+                    Object v = values[c];
+                    if (v == null) continue;
+                    String s = v instanceof BigDecimal bd ? bd.toPlainString() : v.toString();
+                    if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                        w.write('"');
+                        w.write(s.replace("\"", "\"\""));
+                        w.write('"');
+                    } else {
+                        w.write(s);
+                    }
+                }
+                w.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            w.flush();
+        }
+    }
+
+    /** One JSON object per row and line, keys = lower-case column labels. */
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator gen;
+        private String[] names;
+
+        NdjsonRowWriter(OutputStream out) {
+            try {
+                this.gen = objectMapper.getFactory().createGenerator(out);
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.setRootValueSeparator(null); // rows are separated by the newline written below
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void header(String[] columns) {
+            names = columns;
+        }
+
+        @Override
+        public void row(Object[] values) {
+            try {
+                gen.writeStartObject();
+                for (int c = 0; c < names.length; c++) {
+                    Object v = values[c];
+                    gen.writeFieldName(names[c]);
+                    if (v == null) gen.writeNull();
+                    else if (v instanceof BigDecimal bd) gen.writeNumber(bd);
+                    else if (v instanceof Number n) gen.writeNumber(n.longValue());
+                    else gen.writeString(v.toString());
+                }
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            gen.flush();
+        }
+    }
+}
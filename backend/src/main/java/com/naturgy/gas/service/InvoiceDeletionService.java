@@ -0,0 +1,41 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.repository.InvoiceRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Deletes invoices together with their change log entry and billing summary update, in one transaction.
+ * In-memory caches are left to the caller, to be invalidated once the deletion is committed.
+ */
+@Service
+public class InvoiceDeletionService {
+
+    private final InvoiceRepository invoiceRepo;
+    private final ChangeLogService changeLog;
+    private final BillingSummaryService summaries;
+
+    public InvoiceDeletionService(InvoiceRepository invoiceRepo, ChangeLogService changeLog,
+                                  BillingSummaryService summaries) {
+        this.invoiceRepo = invoiceRepo;
+        this.changeLog = changeLog;
+        this.summaries = summaries;
+    }
+
+    /** The deleted invoice (lines cascade), or empty if it did not exist. */
+    @Transactional
+    public Optional<Invoice> delete(Long id) {
+        Optional<Invoice> invoice = invoiceRepo.findById(id);
+        invoice.ifPresent(i -> {
+            summaries.remove(i);
+            invoiceRepo.delete(i);
+            changeLog.record(ChangeLogEntry.EntityType.INVOICE, ChangeLogEntry.Operation.DELETED,
+                    String.valueOf(id), i.getCups());
+        });
+        return invoice;
+    }
+}
@@ -0,0 +1,244 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.InvoiceLine;
+import com.naturgy.gas.event.InvoiceCreatedEvent;
+import com.naturgy.gas.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed store of rendered invoice PDFs.
+ *
+ * Key = invoice id + SHA-256 of everything the PDF shows, so a changed invoice can never be
+ * served a stale document. Lookups go memory (byte-bounded LRU) → disk ({@code {id}-{hash}.pdf}
+ * under {@code gas.pdf-cache.dir}) → render; concurrent misses on the same key share a single
+ * render. With {@code gas.pdf-cache.prerender-threads > 0} invoices are rendered in the
+ * background right after the billing transaction that created them commits.
+ */
+@Service
+public class InvoicePdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfCache.class);
+
+    /** Bump when the PDF layout changes so previously stored documents are not reused. */
+    static final String RENDER_VERSION = "2";
+
+    private final InvoicePdfService pdfService;
+    private final InvoiceRepository invoiceRepo;
+    private final Path dir;
+    private final long maxMemoryBytes;
+    private final ExecutorService prerenderPool;
+
+    private final LinkedHashMap<String, byte[]> hot = new LinkedHashMap<>(64, 0.75f, true);
+    private long hotBytes;
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+
+    public InvoicePdfCache(InvoicePdfService pdfService,
+                           InvoiceRepository invoiceRepo,
+                           @Value("${gas.pdf-cache.dir:_data/pdf-cache}") String dir,
+                           @Value("${gas.pdf-cache.memory-bytes:33554432}") long maxMemoryBytes,
+                           @Value("${gas.pdf-cache.prerender-threads:2}") int prerenderThreads) throws IOException {
+        this.pdfService = pdfService;
+        this.invoiceRepo = invoiceRepo;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.maxMemoryBytes = maxMemoryBytes;
+        Files.createDirectories(this.dir);
+        if (prerenderThreads > 0) {
+            AtomicInteger n = new AtomicInteger();
+            this.prerenderPool = Executors.newFixedThreadPool(prerenderThreads, r -> {
+                Thread t = new Thread(r, "pdf-prerender-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.prerenderPool = null;
+        }
+    }
+
+    public record CacheStats(long memoryHits, long diskHits, long renders, int memoryEntries, long memoryBytes) {}
+
+    /** PDF bytes for an invoice loaded with its lines. */
+    public byte[] get(Invoice invoice) {
+        String key = invoice.getId() + "-" + contentHash(invoice);
+        byte[] cached = fromMemory(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            byte[] pdf = load(invoice, key);
+            mine.complete(pdf);
+            return pdf;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /** Drops every stored version of the invoice (memory and disk). */
+    public void evict(Long invoiceId) {
+        String prefix = invoiceId + "-";
+        synchronized (hot) {
+            Iterator<Map.Entry<String, byte[]>> it = hot.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, byte[]> e = it.next();
+                if (e.getKey().startsWith(prefix)) {
+                    hotBytes -= e.getValue().length;
+                    it.remove();
+                }
+            }
+        }
+        deleteStoredVersions(invoiceId, null);
+    }
+
+    public CacheStats stats() {
+        synchronized (hot) {
+            return new CacheStats(memoryHits.get(), diskHits.get(), renders.get(), hot.size(), hotBytes);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onInvoiceCreated(InvoiceCreatedEvent e) {
+        if (prerenderPool == null) return;
+        prerenderPool.execute(() -> {
+            try {
+                invoiceRepo.findWithLinesById(e.invoiceId()).ifPresent(this::get);
+            } catch (RuntimeException ex) {
+                log.warn("Pre-render failed for invoice {}: {}", e.numeroFactura(), ex.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (prerenderPool != null) prerenderPool.shutdownNow();
+    }
+
+    private byte[] load(Invoice invoice, String key) {
+        Path file = dir.resolve(key + ".pdf");
+        try {
+            byte[] pdf;
+            if (Files.exists(file)) {
+                pdf = Files.readAllBytes(file);
+                diskHits.incrementAndGet();
+            } else {
+                pdf = pdfService.generatePdf(invoice);
+                renders.incrementAndGet();
+                Path tmp = Files.createTempFile(dir, key, ".tmp");
+                Files.write(tmp, pdf);
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                deleteStoredVersions(invoice.getId(), file);
+            }
+            toMemory(key, pdf);
+            return pdf;
+        } catch (IOException e) {
+            throw new UncheckedIOException("PDF cache I/O failed for " + file, e);
+        }
+    }
+
+    private byte[] fromMemory(String key) {
+        synchronized (hot) {
+            return hot.get(key);
+        }
+    }
+
+    private void toMemory(String key, byte[] pdf) {
+        if (pdf.length > maxMemoryBytes) return;
+        synchronized (hot) {
+            byte[] previous = hot.put(key, pdf);
+            hotBytes += pdf.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> eldest = hot.values().iterator();
+            while (hotBytes > maxMemoryBytes && eldest.hasNext()) {
+                hotBytes -= eldest.next().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void deleteStoredVersions(Long invoiceId, Path keep) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, invoiceId + "-*.pdf")) {
+            for (Path f : files) {
+                if (!f.equals(keep)) Files.deleteIfExists(f);
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean stored PDFs of invoice {}: {}", invoiceId, e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 (hex) over every field the PDF renders. Amounts are normalized with
+     * stripTrailingZeros so an entity fresh from billing hashes like the one read back.
+     */
+    public static String contentHash(Invoice invoice) {
+        StringBuilder sb = new StringBuilder(256).append(RENDER_VERSION)
+                .append('|').append(invoice.getNumeroFactura())
+                .append('|').append(invoice.getCups())
+                .append('|').append(invoice.getPeriodoInicio())
+                .append('|').append(invoice.getPeriodoFin())
+                .append('|').append(invoice.getFechaEmision())
+                .append('|').append(num(invoice.getBase()))
+                .append('|').append(num(invoice.getImpuestos()))
+                .append('|').append(num(invoice.getTotal()));
+        for (InvoiceLine l : invoice.getLines()) {
+            sb.append('\n').append(l.getTipo())
+              .append('|').append(l.getDescripcion())
+              .append('|').append(num(l.getCantidad()))
+              .append('|').append(num(l.getPrecioUnitario()))
+              .append('|').append(num(l.getImporte()));
+        }
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String num(BigDecimal v) {
+        return v == null ? "" : v.stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,202 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams all invoice PDFs of a period as a ZIP or as one merged PDF.
+ *
+ * Ids are read in keyset pages and each page is loaded with its lines in one fetch-join query,
+ * in its own read-only transaction so the persistence context is closed with the page, then
+ * rendered in parallel straight through {@link InvoicePdfService}: a bulk export does not fill
+ * the {@link InvoicePdfCache} with every invoice of the period.
+ * Results are written in id order through a reorder window of {@code gas.export.pdf.window}
+ * renders: memory stays bounded by one page of entities plus the window, whatever the period size.
+ */
+@Service
+public class InvoicePdfExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoicePdfExportService.class);
+
+    public enum Format { ZIP, PDF }
+
+    private final InvoiceRepository invoiceRepo;
+    private final InvoicePdfService pdfService;
+    private final TransactionTemplate readOnlyTx;
+    private final ExecutorService renderPool;
+    private final int pageSize;
+    private final int window;
+    private final int maxMergedInvoices;
+
+    public InvoicePdfExportService(InvoiceRepository invoiceRepo,
+                                   InvoicePdfService pdfService,
+                                   TransactionTemplate tx,
+                                   @Value("${gas.export.pdf.threads:0}") int threads,
+                                   @Value("${gas.export.pdf.page-size:200}") int pageSize,
+                                   @Value("${gas.export.pdf.window:64}") int window,
+                                   @Value("${gas.export.pdf.max-merged:5000}") int maxMergedInvoices) {
+        this.invoiceRepo = invoiceRepo;
+        this.pdfService = pdfService;
+        this.readOnlyTx = new TransactionTemplate(tx.getTransactionManager());
+        this.readOnlyTx.setReadOnly(true);
+        this.pageSize = pageSize;
+        this.window = window;
+        this.maxMergedInvoices = maxMergedInvoices;
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        this.renderPool = Executors.newFixedThreadPool(n, r -> {
+            Thread t = new Thread(r, "pdf-export-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Whether the filter matches at least one invoice (checked before the response is committed). */
+    public boolean hasInvoices(YearMonth period, String zona, String tarifa) {
+        return !invoiceRepo.findIdsForPeriod(period.atDay(1), zona, tarifa, 0, PageRequest.ofSize(1)).isEmpty();
+    }
+
+    public int export(YearMonth period, String zona, String tarifa, Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        int count = format == Format.ZIP
+                ? exportZip(period, zona, tarifa, out)
+                : exportMerged(period, zona, tarifa, out);
+        log.info("PDF export period={} zona={} tarifa={} format={}: {} invoices in {} ms",
+                period, zona, tarifa, format, count, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    private int exportZip(YearMonth period, String zona, String tarifa, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED); // PDF content streams are already compressed
+        int count = render(period, zona, tarifa, (numero, pdf) -> {
+            zip.putNextEntry(new ZipEntry("factura-" + numero + ".pdf"));
+            zip.write(pdf);
+            zip.closeEntry();
+        });
+        zip.finish();
+        return count;
+    }
+
+    /**
+     * One PDF with a page per invoice. A PDF cross-reference table can only be written once all
+     * pages are known, so sources stay referenced until the end: capped at {@code gas.export.pdf.max-merged}.
+     * The destination document buffers its streams in a temp file rather than on the heap.
+     */
+    private int exportMerged(YearMonth period, String zona, String tarifa, OutputStream out) throws IOException {
+        List<PDDocument> sources = new ArrayList<>();
+        try (PDDocument merged = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+            int count = render(period, zona, tarifa, (numero, pdf) -> {
+                if (sources.size() >= maxMergedInvoices) {
+                    throw new IllegalArgumentException("Merged export is limited to " + maxMergedInvoices
+                            + " invoices; use format=zip");
+                }
+                PDDocument source = Loader.loadPDF(pdf);
+                sources.add(source);
+                for (PDPage page : source.getPages()) {
+                    merged.importPage(page);
+                }
+            });
+            merged.save(out);
+            return count;
+        } finally {
+            for (PDDocument d : sources) d.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void accept(String numeroFactura, byte[] pdf) throws IOException;
+    }
+
+    private record Rendered(String numeroFactura, byte[] pdf) {}
+
+    private record Page(long lastId, List<Invoice> invoices) {}
+
+    /** Next keyset page with its lines, detached: the session ends with the transaction. */
+    private Page nextPage(YearMonth period, String zona, String tarifa, long afterId) {
+        return readOnlyTx.execute(status -> {
+            List<Long> ids = invoiceRepo.findIdsForPeriod(period.atDay(1), zona, tarifa, afterId,
+                    PageRequest.ofSize(pageSize));
+            if (ids.isEmpty()) return null;
+            List<Invoice> invoices = new ArrayList<>(invoiceRepo.findWithLinesByIdIn(ids));
+            invoices.sort(Comparator.comparing(Invoice::getId));
+            return new Page(ids.get(ids.size() - 1), invoices);
+        });
+    }
+
+    private int render(YearMonth period, String zona, String tarifa, Sink sink) throws IOException {
+        Deque<Future<Rendered>> pending = new ArrayDeque<>(window);
+        long afterId = 0;
+        int count = 0;
+        try {
+            while (true) {
+                Page page = nextPage(period, zona, tarifa, afterId);
+                if (page == null) break;
+                afterId = page.lastId();
+
+                for (Invoice invoice : page.invoices()) {
+                    if (pending.size() >= window) {
+                        write(pending.removeFirst(), sink);
+                    }
+                    pending.addLast(renderPool.submit(() ->
+                            new Rendered(invoice.getNumeroFactura(), pdfService.generatePdf(invoice))));
+                    count++;
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.removeFirst(), sink);
+            }
+            return count;
+        } finally {
+            pending.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private static void write(Future<Rendered> future, Sink sink) throws IOException {
+        Rendered r;
+        try {
+            r = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("PDF export interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+        sink.accept(r.numeroFactura(), r.pdf());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderPool.shutdownNow();
+    }
+}
@@ -2,154 +2,347 @@ package com.naturgy.gas.service;
 
 import com.naturgy.gas.entity.Invoice;
 import com.naturgy.gas.entity.InvoiceLine;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Generates a simple single-page PDF invoice using PDFBox 3.x.
+ * Generates a simple single-page PDF invoice.
+ *
+ * The document skeleton (catalog, page tree, page and the two standard Helvetica font
+ * dictionaries) never changes, so it is serialized once into {@link #HEAD} together with its
+ * cross-reference entries; per invoice only the content stream is laid out, straight into a
+ * per-thread reusable buffer with hand-written number and text encoding (no PDDocument, no
+ * String.format). The layout matches the former PDFBox rendering.
+ *
+ * Every render is recorded in gas.pdf.render (latency) and gas.pdf.size (bytes); PDFs served
+ * from the cache are not renders.
  */
 @Service
 public class InvoicePdfService {
 
+    // A4 in hundredths of a point; coordinates are written as fixed-point with two decimals
+    private static final int PAGE_W = 59528;
+    private static final int PAGE_H = 84189;
+    private static final int MARGIN = 5000;
+
+    private static final byte[] HEAD;
+    private static final byte[] XREF_HEAD;
+    private static final long CONTENT_OFFSET;
+
+    static {
+        String[] objects = {
+                "<< /Type /Catalog /Pages 2 0 R >>",
+                "<< /Type /Pages /Kids [3 0 R] /Count 1 >>",
+                "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 595.28 841.89] "
+                        + "/Resources << /Font << /F1 4 0 R /F2 5 0 R >> >> /Contents 6 0 R >>",
+                "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>",
+                "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>"
+        };
+        StringBuilder head = new StringBuilder("%PDF-1.4\n%âãÏÓ\n");
+        StringBuilder xref = new StringBuilder("xref\n0 7\n0000000000 65535 f \n");
+        for (int i = 0; i < objects.length; i++) {
+            xref.append(pad10(head.length())).append(" 00000 n \n");
+            head.append(i + 1).append(" 0 obj\n").append(objects[i]).append("\nendobj\n");
+        }
+        xref.append(pad10(head.length())).append(" 00000 n \n");
+        HEAD = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        XREF_HEAD = xref.toString().getBytes(StandardCharsets.ISO_8859_1);
+        CONTENT_OFFSET = HEAD.length;
+    }
+
+    private static final byte[] STREAM_START = ascii("6 0 obj\n<< /Length ");
+    private static final byte[] STREAM_DICT_END = ascii(" >>\nstream\n");
+    private static final byte[] STREAM_END = ascii("\nendstream\nendobj\n");
+    private static final byte[] TRAILER = ascii("trailer\n<< /Size 7 /Root 1 0 R >>\nstartxref\n");
+    private static final byte[] EOF = ascii("\n%%EOF\n");
+
+    private static final byte[] F_REGULAR = ascii("/F1 ");
+    private static final byte[] F_BOLD = ascii("/F2 ");
+    private static final byte[] BT = ascii("BT\n");
+    private static final byte[] TF = ascii(" Tf\n");
+    private static final byte[] TD = ascii(" Td\n");
+    private static final byte[] TJ = ascii(" Tj\nET\n");
+
+    /** Retained per thread up to this size; larger one-off buffers are dropped after use. */
+    private static final int MAX_RETAINED = 64 * 1024;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private static final class Buffers {
+        PdfBuffer content = new PdfBuffer(4096);
+        PdfBuffer file = new PdfBuffer(8192);
+    }
+
+    private final Timer renderTimer;
+    private final DistributionSummary sizeSummary;
+
+    public InvoicePdfService(MeterRegistry meters) {
+        this.renderTimer = Timer.builder("gas.pdf.render").description("Invoice PDF render time")
+                .publishPercentileHistogram().register(meters);
+        this.sizeSummary = DistributionSummary.builder("gas.pdf.size").description("Rendered invoice PDF size")
+                .baseUnit("bytes").register(meters);
+    }
+
     public byte[] generatePdf(Invoice invoice) {
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            doc.addPage(page);
-
-            PDType1Font fontBold    = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-            PDType1Font fontRegular = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-
-            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
-                float margin = 50f;
-                float pageWidth = page.getMediaBox().getWidth();
-                float y = page.getMediaBox().getHeight() - margin;
-
-                // --- Header ---
-                cs.beginText();
-                cs.setFont(fontBold, 16);
-                cs.newLineAtOffset(margin, y);
-                cs.showText("FACTURA GAS");
-                cs.endText();
-                y -= 20;
-
-                cs.beginText();
-                cs.setFont(fontRegular, 10);
-                cs.newLineAtOffset(margin, y);
-                cs.showText("N. Factura: " + invoice.getNumeroFactura());
-                cs.endText();
-                y -= 14;
-
-                cs.beginText();
-                cs.setFont(fontRegular, 10);
-                cs.newLineAtOffset(margin, y);
-                cs.showText("CUPS: " + invoice.getCups());
-                cs.endText();
-                y -= 14;
-
-                cs.beginText();
-                cs.setFont(fontRegular, 10);
-                cs.newLineAtOffset(margin, y);
-                cs.showText("Periodo: " + invoice.getPeriodoInicio() + " / " + invoice.getPeriodoFin());
-                cs.endText();
-                y -= 14;
-
-                cs.beginText();
-                cs.setFont(fontRegular, 10);
-                cs.newLineAtOffset(margin, y);
-                cs.showText("Fecha emision: " + invoice.getFechaEmision());
-                cs.endText();
-                y -= 24;
-
-                // --- Lines header ---
-                drawLine(cs, margin, pageWidth - margin, y);
-                y -= 14;
-
-                cs.beginText();
-                cs.setFont(fontBold, 10);
-                cs.newLineAtOffset(margin, y);
-                cs.showText(String.format("%-25s %10s %14s %12s", "Concepto", "Cantidad", "Precio unit.", "Importe"));
-                cs.endText();
-                y -= 12;
-                drawLine(cs, margin, pageWidth - margin, y);
-                y -= 14;
-
-                // --- Invoice lines ---
-                for (InvoiceLine line : invoice.getLines()) {
-                    String desc = safe(line.getDescripcion());
-                    String qty  = line.getCantidad().toPlainString();
-                    String preu = line.getPrecioUnitario().toPlainString();
-                    String imp  = line.getImporte().toPlainString();
-
-                    cs.beginText();
-                    cs.setFont(fontRegular, 9);
-                    cs.newLineAtOffset(margin, y);
-                    cs.showText(String.format("%-25s %10s %14s %12s", trunc(desc, 25), trunc(qty, 10), trunc(preu, 14), trunc(imp, 12)));
-                    cs.endText();
-                    y -= 14;
-                }
-
-                y -= 10;
-                drawLine(cs, margin, pageWidth - margin, y);
-                y -= 16;
-
-                // --- Totals ---
-                printTotalRow(cs, fontBold, fontRegular, margin, y, "Base imponible:", invoice.getBase().toPlainString());
-                y -= 14;
-                printTotalRow(cs, fontBold, fontRegular, margin, y, "IVA:", invoice.getImpuestos().toPlainString());
-                y -= 14;
-                printTotalRow(cs, fontBold, fontBold, margin, y, "TOTAL:", invoice.getTotal().toPlainString() + " EUR");
-            }
+        Buffers buffers = BUFFERS.get();
+        PdfBuffer file = buffers.file;
+        file.reset();
+        writePdf(invoice, file);
+        byte[] pdf = file.toByteArray();
+        if (file.capacity() > MAX_RETAINED) buffers.file = new PdfBuffer(8192);
+        return pdf;
+    }
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            doc.save(baos);
-            return baos.toByteArray();
+    /** Writes the PDF to {@code out} without an intermediate copy of the document. */
+    public void writePdf(Invoice invoice, OutputStream out) {
+        long start = System.nanoTime();
+        Buffers buffers = BUFFERS.get();
+        PdfBuffer cs = buffers.content;
+        cs.reset();
+        try {
+            layout(invoice, cs);
+
+            out.write(HEAD);
+            out.write(STREAM_START);
+            writeDecimal(out, cs.size());
+            out.write(STREAM_DICT_END);
+            cs.writeTo(out);
+            out.write(STREAM_END);
+            long xrefOffset = CONTENT_OFFSET + STREAM_START.length + digits(cs.size())
+                    + STREAM_DICT_END.length + cs.size() + STREAM_END.length;
+            out.write(XREF_HEAD);
+            out.write(TRAILER);
+            writeDecimal(out, xrefOffset);
+            out.write(EOF);
+            renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            sizeSummary.record(xrefOffset + XREF_HEAD.length + TRAILER.length + digits(xrefOffset) + EOF.length);
         } catch (IOException e) {
-            throw new RuntimeException("Error generating PDF for invoice " + invoice.getNumeroFactura(), e);
+            throw new UncheckedIOException("Error generating PDF for invoice " + invoice.getNumeroFactura(), e);
+        } finally {
+            if (cs.capacity() > MAX_RETAINED) buffers.content = new PdfBuffer(4096);
+        }
+    }
+
+    private void layout(Invoice invoice, PdfBuffer cs) {
+        int left = MARGIN;
+        int right = PAGE_W - MARGIN;
+        int y = PAGE_H - MARGIN;
+
+        // --- Header ---
+        cs.text(F_BOLD, 16, left, y).str("FACTURA GAS").endText();
+        y -= 2000;
+        cs.text(F_REGULAR, 10, left, y).str("N. Factura: ").str(invoice.getNumeroFactura()).endText();
+        y -= 1400;
+        cs.text(F_REGULAR, 10, left, y).str("CUPS: ").str(invoice.getCups()).endText();
+        y -= 1400;
+        cs.text(F_REGULAR, 10, left, y).str("Periodo: ").str(String.valueOf(invoice.getPeriodoInicio()))
+                .str(" / ").str(String.valueOf(invoice.getPeriodoFin())).endText();
+        y -= 1400;
+        cs.text(F_REGULAR, 10, left, y).str("Fecha emision: ").str(String.valueOf(invoice.getFechaEmision())).endText();
+        y -= 2400;
+
+        // --- Lines header ---
+        cs.rule(left, right, y);
+        y -= 1400;
+        cs.text(F_BOLD, 10, left, y)
+                .left("Concepto", 25).sp().right("Cantidad", 10).sp().right("Precio unit.", 14).sp().right("Importe", 12)
+                .endText();
+        y -= 1200;
+        cs.rule(left, right, y);
+        y -= 1400;
+
+        // --- Invoice lines ---
+        for (InvoiceLine line : invoice.getLines()) {
+            cs.text(F_REGULAR, 9, left, y)
+                    .left(line.getDescripcion(), 25).sp()
+                    .right(plain(line.getCantidad()), 10).sp()
+                    .right(plain(line.getPrecioUnitario()), 14).sp()
+                    .right(plain(line.getImporte()), 12)
+                    .endText();
+            y -= 1400;
+        }
+
+        y -= 1000;
+        cs.rule(left, right, y);
+        y -= 1600;
+
+        // --- Totals ---
+        totalRow(cs, F_REGULAR, left, y, "Base imponible:", plain(invoice.getBase()), null);
+        y -= 1400;
+        totalRow(cs, F_REGULAR, left, y, "IVA:", plain(invoice.getImpuestos()), null);
+        y -= 1400;
+        totalRow(cs, F_BOLD, left, y, "TOTAL:", plain(invoice.getTotal()), " EUR");
+    }
+
+    private static void totalRow(PdfBuffer cs, byte[] valueFont, int margin, int y,
+                                 String label, String value, String suffix) {
+        cs.text(F_BOLD, 10, margin + 25000, y).str(label).endText();
+        cs.text(valueFont, 10, margin + 38000, y).str(value).str(suffix).endText();
+    }
+
+    private static String plain(BigDecimal v) {
+        return v == null ? "" : v.toPlainString();
+    }
+
+    /**
+     * Growable byte buffer with the handful of PDF content operators the layout needs.
+     * Text is written as a literal string in WinAnsi (Latin-1 range); the accented vowels and ñ
+     * are transliterated like the previous renderer, anything else outside Latin-1 becomes '?'.
+     */
+    static final class PdfBuffer extends OutputStream {
+        private byte[] buf;
+        private int count;
+
+        PdfBuffer(int initial) {
+            buf = new byte[initial];
+        }
+
+        void reset() { count = 0; }
+        int size() { return count; }
+        int capacity() { return buf.length; }
+        byte[] toByteArray() { return Arrays.copyOf(buf, count); }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buf, 0, count);
+        }
+
+        @Override
+        public void write(int b) {
+            ensure(1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        PdfBuffer text(byte[] font, int size, int x, int y) {
+            write(BT, 0, BT.length);
+            write(font, 0, font.length);
+            decimal(size);
+            write(TF, 0, TF.length);
+            fixed2(x);
+            write(' ');
+            fixed2(y);
+            write(TD, 0, TD.length);
+            write('(');
+            return this;
+        }
+
+        PdfBuffer endText() {
+            write(')');
+            write(TJ, 0, TJ.length);
+            return this;
+        }
+
+        PdfBuffer sp() {
+            write(' ');
+            return this;
+        }
+
+        /** Text, truncated to {@code width} chars and padded with spaces on the right. */
+        PdfBuffer left(String s, int width) {
+            int n = s == null ? 0 : Math.min(s.length(), width);
+            for (int i = 0; i < n; i++) ch(s.charAt(i));
+            for (int i = n; i < width; i++) write(' ');
+            return this;
+        }
+
+        /** Text, truncated to {@code width} chars and padded with spaces on the left. */
+        PdfBuffer right(String s, int width) {
+            int n = s == null ? 0 : Math.min(s.length(), width);
+            for (int i = n; i < width; i++) write(' ');
+            for (int i = 0; i < n; i++) ch(s.charAt(i));
+            return this;
+        }
+
+        PdfBuffer str(String s) {
+            if (s == null) return this;
+            for (int i = 0; i < s.length(); i++) ch(s.charAt(i));
+            return this;
+        }
+
+        /** Horizontal 1pt rule: {@code x1 y m x2 y l S}. */
+        void rule(int x1, int x2, int y) {
+            fixed2(x1); write(' '); fixed2(y); write(' '); write('m'); write('\n');
+            fixed2(x2); write(' '); fixed2(y); write(' '); write('l'); write('\n');
+            write('S'); write('\n');
+        }
+
+        private void ch(char c) {
+            switch (c) {
+                case '(', ')', '\\' -> { write('\\'); write(c); }
+                case 'é' -> write('e');
+                case 'ó' -> write('o');
+                case 'í' -> write('i');
+                case 'ú' -> write('u');
+                case 'á' -> write('a');
+                case 'ñ' -> write('n');
+                default -> write(c >= 0x20 && c <= 0xff && (c < 0x7f || c >= 0xa0) ? c : '?');
+            }
+        }
+
+        private void decimal(long v) {
+            ensure(20);
+            if (v < 0) { buf[count++] = '-'; v = -v; }
+            int start = count;
+            do {
+                buf[count++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v != 0);
+            for (int i = start, j = count - 1; i < j; i++, j--) {
+                byte t = buf[i]; buf[i] = buf[j]; buf[j] = t;
+            }
+        }
+
+        /** Hundredths as a decimal with at most two fraction digits (12345 → 123.45, 5000 → 50). */
+        private void fixed2(int hundredths) {
+            if (hundredths < 0) { write('-'); hundredths = -hundredths; }
+            decimal(hundredths / 100);
+            int frac = hundredths % 100;
+            if (frac != 0) {
+                write('.');
+                write('0' + frac / 10);
+                if (frac % 10 != 0) write('0' + frac % 10);
+            }
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+            }
         }
     }
 
-    private void drawLine(PDPageContentStream cs, float x1, float x2, float y) throws IOException {
-        cs.moveTo(x1, y);
-        cs.lineTo(x2, y);
-        cs.stroke();
+    private static void writeDecimal(OutputStream out, long v) throws IOException {
+        if (v >= 10) writeDecimal(out, v / 10);
+        out.write((int) ('0' + v % 10));
     }
 
-    private void printTotalRow(PDPageContentStream cs, PDType1Font labelFont, PDType1Font valueFont,
-                                float margin, float y, String label, String value) throws IOException {
-        cs.beginText();
-        cs.setFont(labelFont, 10);
-        cs.newLineAtOffset(margin + 250, y);
-        cs.showText(label);
-        cs.endText();
-
-        cs.beginText();
-        cs.setFont(valueFont, 10);
-        cs.newLineAtOffset(margin + 380, y);
-        cs.showText(value);
-        cs.endText();
+    private static int digits(long v) {
+        int d = 1;
+        while (v >= 10) { v /= 10; d++; }
+        return d;
     }
 
-    /** Replace non-Latin-1 chars to avoid PDFBox Type1 font encoding issues. */
-    private String safe(String s) {
-        if (s == null) return "";
-        return s.replace("\u00e9", "e")  // é -> e
-                .replace("\u00f3", "o")  // ó -> o
-                .replace("\u00ed", "i")  // í -> i
-                .replace("\u00fa", "u")  // ú -> u
-                .replace("\u00e1", "a")  // á -> a
-                .replace("\u00f1", "n"); // ñ -> n
+    private static String pad10(int v) {
+        String s = Integer.toString(v);
+        return "0".repeat(10 - s.length()) + s;
     }
 
-    private String trunc(String s, int max) {
-        if (s == null) return "";
-        return s.length() > max ? s.substring(0, max) : s;
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
     }
 }
@@ -0,0 +1,89 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.repository.InvoiceLineRepository;
+import com.naturgy.gas.repository.InvoiceLineView;
+import com.naturgy.gas.repository.InvoiceRepository;
+import com.naturgy.gas.repository.InvoiceView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of invoices: DTO projections instead of entities, so serialization never
+ * triggers lazy loading. A page costs a fixed number of queries whatever its size:
+ * count + headers, plus one IN query for the lines of the whole page when requested.
+ */
+@Service
+@Transactional(readOnly = true)
+public class InvoiceQueryService {
+
+    private final InvoiceRepository invoiceRepo;
+    private final InvoiceLineRepository lineRepo;
+    private final int maxPageSize;
+
+    public InvoiceQueryService(InvoiceRepository invoiceRepo,
+                               InvoiceLineRepository lineRepo,
+                               @Value("${gas.invoices.max-page-size:1000}") int maxPageSize) {
+        this.invoiceRepo = invoiceRepo;
+        this.lineRepo = lineRepo;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /** Listing filters; null fields are not applied. Periods are inclusive months. */
+    public record InvoiceFilter(String cups, YearMonth from, YearMonth to, String zona, String tarifa) {}
+
+    public Page<InvoiceView> list(InvoiceFilter filter, int page, int size, boolean withLines) {
+        if (page < 0) {
+            throw new IllegalArgumentException("page must be >= 0");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxPageSize);
+        }
+        Page<InvoiceView> headers = invoiceRepo.findViews(filter.cups(),
+                filter.from() != null ? filter.from().atDay(1) : null,
+                filter.to() != null ? filter.to().atDay(1) : null,
+                filter.zona(), filter.tarifa(),
+                PageRequest.of(page, size, Sort.by("id")));
+        if (!withLines || headers.isEmpty()) {
+            return headers;
+        }
+        Map<Long, List<InvoiceLineView>> lines = lineRepo.findViewsByInvoiceIdIn(
+                        headers.getContent().stream().map(InvoiceView::id).toList())
+                .stream()
+                .collect(Collectors.groupingBy(InvoiceLineView::invoiceId));
+        return headers.map(h -> h.withLines(lines.getOrDefault(h.id(), List.of())));
+    }
+
+    public Optional<InvoiceView> get(Long id, boolean withLines) {
+        return invoiceRepo.findViewById(id)
+                .map(h -> withLines ? h.withLines(lineRepo.findViewsByInvoiceIdIn(List.of(id))) : h);
+    }
+
+    /** Views of the given invoices in the order of ids (missing ids are skipped); one or two queries. */
+    public List<InvoiceView> byIds(List<Long> ids, boolean withLines) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, InvoiceView> views = invoiceRepo.findViewsByIdIn(ids).stream()
+                .collect(Collectors.toMap(InvoiceView::id, Function.identity()));
+        Map<Long, List<InvoiceLineView>> lines = withLines
+                ? lineRepo.findViewsByInvoiceIdIn(ids).stream().collect(Collectors.groupingBy(InvoiceLineView::invoiceId))
+                : Map.of();
+        return ids.stream()
+                .map(views::get)
+                .filter(Objects::nonNull)
+                .map(v -> withLines ? v.withLines(lines.getOrDefault(v.id(), List.of())) : v)
+                .toList();
+    }
+}
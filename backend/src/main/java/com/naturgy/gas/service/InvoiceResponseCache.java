@@ -0,0 +1,196 @@
+package com.naturgy.gas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naturgy.gas.event.InvoiceCreatedEvent;
+import com.naturgy.gas.repository.InvoiceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ready-to-send bodies of single-invoice responses (JSON with or without lines, and PDF),
+ * each with a strong ETag and, when it pays off, a precompressed gzip variant.
+ *
+ * Issued invoices never change, so a hit serves the request (or its 304) without touching the
+ * database. Entries are dropped by {@link #evict(Long)} when an invoice is deleted and when an
+ * invoice id is (re-)billed; a load that overlaps an eviction is served but not stored.
+ * Memory is bounded by {@code gas.response-cache.max-bytes} over both variants (LRU).
+ */
+@Service
+public class InvoiceResponseCache {
+
+    public enum Kind { JSON, JSON_HEADERS, PDF }
+
+    /** identity and (nullable) gzip bodies of one response; etag is the bare hash, unquoted. */
+    public record Entry(String etag, String numeroFactura, byte[] identity, byte[] gzip) {
+        long bytes() {
+            return identity.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    public record CacheStats(long hits, long misses, int entries, long bytes) {}
+
+    private final InvoiceQueryService queryService;
+    private final InvoiceRepository invoiceRepo;
+    private final InvoicePdfCache pdfCache;
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final int gzipMinBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public InvoiceResponseCache(InvoiceQueryService queryService,
+                                InvoiceRepository invoiceRepo,
+                                InvoicePdfCache pdfCache,
+                                ObjectMapper objectMapper,
+                                @Value("${gas.response-cache.max-bytes:16777216}") long maxBytes,
+                                @Value("${gas.response-cache.gzip-min-bytes:256}") int gzipMinBytes) {
+        this.queryService = queryService;
+        this.invoiceRepo = invoiceRepo;
+        this.pdfCache = pdfCache;
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    /** Cached response for the invoice, loading it on a miss; empty if the invoice does not exist. */
+    public Optional<Entry> get(Long id, Kind kind) {
+        String key = id + "-" + kind;
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Optional.of(cached);
+        }
+        misses.incrementAndGet();
+        long epoch = invalidations.get();
+        Optional<Entry> loaded = load(id, kind);
+        loaded.ifPresent(e -> put(key, e, epoch));
+        return loaded;
+    }
+
+    /** Drops every cached response of the invoice. */
+    public void evict(Long invoiceId) {
+        invalidations.incrementAndGet();
+        String prefix = invoiceId + "-";
+        synchronized (entries) {
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> e = it.next();
+                if (e.getKey().startsWith(prefix)) {
+                    bytes -= e.getValue().bytes();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvoiceCreated(InvoiceCreatedEvent e) {
+        evict(e.invoiceId());
+    }
+
+    public CacheStats stats() {
+        synchronized (entries) {
+            return new CacheStats(hits.get(), misses.get(), entries.size(), bytes);
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header admits gzip: a {@code gzip} or {@code *} coding
+     * whose quality is not zero.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) continue;
+            boolean refused = false;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(p.substring(2)) <= 0;
+                    } catch (NumberFormatException ignored) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    private Optional<Entry> load(Long id, Kind kind) {
+        if (kind == Kind.PDF) {
+            return invoiceRepo.findWithLinesById(id).map(invoice -> {
+                byte[] pdf = pdfCache.get(invoice);
+                return new Entry(InvoicePdfCache.contentHash(invoice), invoice.getNumeroFactura(), pdf, gzip(pdf));
+            });
+        }
+        return queryService.get(id, kind == Kind.JSON).map(view -> {
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(view);
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Entry(sha256(json), view.numeroFactura(), json, gzip(json));
+        });
+    }
+
+    private void put(String key, Entry entry, long epoch) {
+        if (entry.bytes() > maxBytes) return;
+        synchronized (entries) {
+            if (invalidations.get() != epoch) return; // an eviction ran while we were loading
+            Entry previous = entries.put(key, entry);
+            bytes += entry.bytes() - (previous != null ? previous.bytes() : 0);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().bytes();
+                eldest.remove();
+            }
+        }
+    }
+
+    /** gzip of the body, or null when it is too small to bother or does not shrink. */
+    private byte[] gzip(byte[] body) {
+        if (body.length < gzipMinBytes) return null;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gz = new GZIPOutputStream(buf)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buf.size() < body.length ? buf.toByteArray() : null;
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
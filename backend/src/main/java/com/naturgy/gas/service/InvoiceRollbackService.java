@@ -0,0 +1,135 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.repository.InvoiceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Undoes a billing run: removes the invoices of a period, optionally only those of one zona /
+ * tarifa (the ones billed under) or of a CUPS list, with set-based statements instead of one
+ * {@code DELETE /api/gas/invoices/{id}} per invoice.
+ *
+ * Work is split in chunks of {@code gas.rollback.chunk-size} invoice ids, each in its own
+ * transaction: select the next ids, take them out of billing_summary, delete their lines and
+ * themselves with one statement each and write their change log entries. A failure leaves the
+ * committed chunks removed and the rest untouched; running the rollback again finishes it.
+ * Caches and the period's search segment are evicted per chunk once it is committed, so a later
+ * failing chunk never leaves removed invoices served from them.
+ *
+ * Invoice numbers continue after the highest one left in the period (see BillingService), so
+ * after a full rollback the period's sequence restarts at 001.
+ */
+@Service
+public class InvoiceRollbackService {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceRollbackService.class);
+
+    private final NamedParameterJdbcTemplate named;
+    private final InvoiceRepository invoiceRepo;
+    private final TransactionTemplate tx;
+    private final BillingSummaryService summaries;
+    private final ChangeLogService changeLog;
+    private final InvoicePdfCache pdfCache;
+    private final InvoiceResponseCache responseCache;
+    private final InvoiceSearchIndex searchIndex;
+    private final int chunkSize;
+
+    public InvoiceRollbackService(JdbcTemplate jdbc,
+                                  InvoiceRepository invoiceRepo,
+                                  TransactionTemplate tx,
+                                  BillingSummaryService summaries,
+                                  ChangeLogService changeLog,
+                                  InvoicePdfCache pdfCache,
+                                  InvoiceResponseCache responseCache,
+                                  InvoiceSearchIndex searchIndex,
+                                  @Value("${gas.rollback.chunk-size:500}") int chunkSize) {
+        this.named = new NamedParameterJdbcTemplate(jdbc);
+        this.invoiceRepo = invoiceRepo;
+        this.tx = tx;
+        this.summaries = summaries;
+        this.changeLog = changeLog;
+        this.pdfCache = pdfCache;
+        this.responseCache = responseCache;
+        this.searchIndex = searchIndex;
+        this.chunkSize = chunkSize;
+    }
+
+    public record RollbackResult(YearMonth period, String zona, String tarifa, List<String> cups,
+                                 long invoicesDeleted, long linesDeleted, int chunks,
+                                 long nextSequence, long durationMs) {}
+
+    private record ChunkResult(Map<Long, String> cupsById, int lines) {}
+
+    /** cups null or empty means every CUPS of the period (within zona / tarifa when given). */
+    public RollbackResult rollback(YearMonth period, String zona, String tarifa, List<String> cups) {
+        long start = System.currentTimeMillis();
+        List<String> cupsFilter = cups == null || cups.isEmpty() ? null : List.copyOf(cups);
+        String select = selectSql(zona, tarifa, cupsFilter);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("periodo", Date.valueOf(period.atDay(1)))
+                .addValue("zona", zona)
+                .addValue("tarifa", tarifa)
+                .addValue("cups", cupsFilter)
+                .addValue("limit", chunkSize);
+
+        long invoices = 0, lines = 0, afterId = 0;
+        int chunks = 0;
+        while (true) {
+            params.addValue("afterId", afterId);
+            ChunkResult chunk = tx.execute(status -> deleteChunk(select, params));
+            if (chunk.cupsById().isEmpty()) break;
+            chunk.cupsById().keySet().forEach(id -> {
+                pdfCache.evict(id);
+                responseCache.evict(id);
+            });
+            searchIndex.invalidate(period);
+            chunks++;
+            invoices += chunk.cupsById().size();
+            lines += chunk.lines();
+            afterId = chunk.cupsById().keySet().stream().mapToLong(Long::longValue).max().orElseThrow();
+        }
+
+        RollbackResult result = new RollbackResult(period, zona, tarifa, cupsFilter, invoices, lines, chunks,
+                invoiceRepo.maxSequenceForPeriod(period.atDay(1)) + 1, System.currentTimeMillis() - start);
+        log.info("Billing rollback: {}", result);
+        return result;
+    }
+
+    private ChunkResult deleteChunk(String select, MapSqlParameterSource params) {
+        Map<Long, String> cupsById = new LinkedHashMap<>();
+        named.query(select, params, rs -> { cupsById.put(rs.getLong(1), rs.getString(2)); });
+        if (cupsById.isEmpty()) return new ChunkResult(cupsById, 0);
+
+        Map<String, Object> ids = Map.of("ids", cupsById.keySet());
+        summaries.removeAll(cupsById.keySet());
+        int lines = named.update("DELETE FROM invoice_line WHERE invoice_id IN (:ids)", ids);
+        named.update("DELETE FROM invoice WHERE id IN (:ids)", ids);
+        changeLog.recordInvoices(ChangeLogEntry.Operation.DELETED, cupsById);
+        return new ChunkResult(cupsById, lines);
+    }
+
+    private static String selectSql(String zona, String tarifa, List<String> cups) {
+        StringBuilder sql = new StringBuilder("SELECT i.id, i.cups FROM invoice i ");
+        if (zona != null || tarifa != null) {
+            sql.append("LEFT JOIN supply_point sp ON sp.cups = i.cups ");
+        }
+        sql.append("WHERE i.periodo_inicio = :periodo AND i.id > :afterId ");
+        if (zona != null) sql.append("AND COALESCE(i.zona, sp.zona) = :zona ");
+        if (tarifa != null) sql.append("AND COALESCE(i.tarifa, sp.tarifa) = :tarifa ");
+        if (cups != null) sql.append("AND i.cups IN (:cups) ");
+        return sql.append("ORDER BY i.id LIMIT :limit").toString();
+    }
+}
@@ -0,0 +1,222 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.event.InvoiceCreatedEvent;
+import com.naturgy.gas.repository.InvoiceView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory secondary index for invoice search by period range, zona, tarifa and total range.
+ *
+ * One segment per billing period, built on first use with a single query served by the
+ * (periodo_inicio, total) index: invoice ids sorted by total, the totals in cents alongside,
+ * and one bitset per zona and per tarifa (the ones the invoice was billed under) over those positions. A query
+ * binary-searches the total range, intersects it with the zona/tarifa bitsets and counts bits,
+ * so counting costs O(n/64) words per period and a page only touches the ids it returns.
+ *
+ * A segment is dropped when an invoice of its period is billed or deleted. Invoices billed
+ * before zona / tarifa were stored fall back to the supply point's, so supply point changes
+ * still drop every segment.
+ */
+@Service
+public class InvoiceSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceSearchIndex.class);
+
+    private final JdbcTemplate jdbc;
+    private final InvoiceQueryService queryService;
+    private final int maxPageSize;
+    private final int maxMonths;
+    private final Map<YearMonth, CompletableFuture<Segment>> segments = new ConcurrentHashMap<>();
+
+    public InvoiceSearchIndex(JdbcTemplate jdbc,
+                              InvoiceQueryService queryService,
+                              @Value("${gas.invoices.max-page-size:1000}") int maxPageSize,
+                              @Value("${gas.search.max-months:120}") int maxMonths) {
+        this.jdbc = jdbc;
+        this.queryService = queryService;
+        this.maxPageSize = maxPageSize;
+        this.maxMonths = maxMonths;
+    }
+
+    /** Search filters; null zona / tarifa / totals are not applied. Totals are inclusive, in euros. */
+    public record SearchCriteria(YearMonth from, YearMonth to, String zona, String tarifa,
+                                 BigDecimal minTotal, BigDecimal maxTotal) {}
+
+    /** One page (ordered by period, then total descending) plus the match count, overall and per period. */
+    public record SearchResult(long total, int page, int size, Map<YearMonth, Long> countsByPeriod,
+                               List<InvoiceView> items) {}
+
+    /** Ids ordered by total (then id); totals in cents; bit i of a zona/tarifa set refers to ids[i]. */
+    private record Segment(long[] ids, long[] totals, Map<String, BitSet> byZona, Map<String, BitSet> byTarifa) {
+        static final Segment EMPTY = new Segment(new long[0], new long[0], Map.of(), Map.of());
+    }
+
+    public SearchResult search(SearchCriteria c, int page, int size, boolean withLines) {
+        if (c.from().isAfter(c.to())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (c.from().plusMonths(maxMonths).isBefore(c.to())) {
+            throw new IllegalArgumentException("period range is limited to " + maxMonths + " months");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("page must be >= 0");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxPageSize);
+        }
+        long minCents = c.minTotal() != null ? cents(c.minTotal(), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maxCents = c.maxTotal() != null ? cents(c.maxTotal(), RoundingMode.FLOOR) : Long.MAX_VALUE;
+
+        Map<YearMonth, Long> counts = new LinkedHashMap<>();
+        List<Long> pageIds = new ArrayList<>(size);
+        long skip = (long) page * size;
+        long total = 0;
+        for (YearMonth ym = c.from(); !ym.isAfter(c.to()); ym = ym.plusMonths(1)) {
+            Segment s = segment(ym);
+            BitSet matches = matches(s, c.zona(), c.tarifa(), minCents, maxCents);
+            int count = matches.cardinality();
+            if (count == 0) continue;
+            counts.put(ym, (long) count);
+            total += count;
+            if (pageIds.size() == size) continue;
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            for (int i = matches.length() - 1; i >= 0 && pageIds.size() < size; i = matches.previousSetBit(i - 1)) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    pageIds.add(s.ids()[i]);
+                }
+            }
+        }
+        return new SearchResult(total, page, size, counts, queryService.byIds(pageIds, withLines));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvoiceCreated(InvoiceCreatedEvent e) {
+        invalidate(YearMonth.from(e.periodoInicio()));
+    }
+
+    public void invalidate(YearMonth period) {
+        segments.remove(period);
+    }
+
+    public void invalidateAll() {
+        segments.clear();
+    }
+
+    private static BitSet matches(Segment s, String zona, String tarifa, long minCents, long maxCents) {
+        int lo = lowerBound(s.totals(), minCents);
+        int hi = maxCents == Long.MAX_VALUE ? s.totals().length : lowerBound(s.totals(), maxCents + 1);
+        BitSet bits = new BitSet(s.ids().length);
+        if (lo >= hi) return bits;
+        bits.set(lo, hi);
+        if (zona != null) bits.and(s.byZona().getOrDefault(zona, new BitSet()));
+        if (tarifa != null) bits.and(s.byTarifa().getOrDefault(tarifa, new BitSet()));
+        return bits;
+    }
+
+    /** First position whose total is >= key. */
+    private static int lowerBound(long[] totals, long key) {
+        int lo = 0, hi = totals.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (totals[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Concurrent callers for the same period share one build, which runs outside the map's locks.
+     * An invalidation removes the pending future, so a build that read pre-change rows still
+     * answers the callers already waiting on it but is never handed to later ones.
+     */
+    private Segment segment(YearMonth period) {
+        CompletableFuture<Segment> pending = segments.get(period);
+        if (pending == null) {
+            CompletableFuture<Segment> mine = new CompletableFuture<>();
+            pending = segments.putIfAbsent(period, mine);
+            if (pending == null) {
+                try {
+                    Segment built = build(period);
+                    mine.complete(built);
+                    return built;
+                } catch (RuntimeException e) {
+                    segments.remove(period, mine);
+                    mine.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private Segment build(YearMonth period) {
+        long start = System.currentTimeMillis();
+        Integer n = jdbc.queryForObject("SELECT COUNT(*) FROM invoice WHERE periodo_inicio = ?",
+                Integer.class, Date.valueOf(period.atDay(1)));
+        if (n == null || n == 0) return Segment.EMPTY;
+
+        // rows arriving between the count and the scan are picked up by the next rebuild
+        long[] ids = new long[n];
+        long[] totals = new long[n];
+        Map<String, BitSet> byZona = new HashMap<>();
+        Map<String, BitSet> byTarifa = new HashMap<>();
+        int[] pos = {0};
+        jdbc.query("""
+                SELECT i.id, i.total, COALESCE(i.zona, sp.zona), COALESCE(i.tarifa, sp.tarifa)
+                FROM invoice i
+                LEFT JOIN supply_point sp ON sp.cups = i.cups
+                WHERE i.periodo_inicio = ?
+                ORDER BY i.total, i.id
+                """, rs -> {
+            int i = pos[0];
+            if (i == ids.length) return;
+            ids[i] = rs.getLong(1);
+            totals[i] = cents(rs.getBigDecimal(2), RoundingMode.HALF_UP);
+            String zona = rs.getString(3);
+            String tarifa = rs.getString(4);
+            if (zona != null) byZona.computeIfAbsent(zona, k -> new BitSet(ids.length)).set(i);
+            if (tarifa != null) byTarifa.computeIfAbsent(tarifa, k -> new BitSet(ids.length)).set(i);
+            pos[0]++;
+        }, Date.valueOf(period.atDay(1)));
+
+        int size = pos[0];
+        Segment s = size == ids.length
+                ? new Segment(ids, totals, byZona, byTarifa)
+                : new Segment(Arrays.copyOf(ids, size), Arrays.copyOf(totals, size), byZona, byTarifa);
+        log.debug("Search segment {} built: {} invoices in {} ms", period, size, System.currentTimeMillis() - start);
+        return s;
+    }
+
+    private static long cents(BigDecimal amount, RoundingMode rounding) {
+        return amount.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,400 @@
+package com.naturgy.gas.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naturgy.gas.entity.SupplyPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bulk upsert of master and reference data (supply points, tariffs, conversion factors, taxes)
+ * from CSV or a JSON array, instead of one POST per row.
+ *
+ * Rows are read and validated one at a time; valid rows are written in chunks of
+ * {@code gas.master-import.chunk-size}: one JDBC batch UPDATE by natural key, then one batch
+ * INSERT of the rows whose update matched nothing. The per-statement update counts give the
+ * inserted / updated figures, so writers running at the same time do not skew them. If the
+ * insert hits a key written meanwhile (or twice in the chunk), it is rolled back to a savepoint
+ * and the chunk's remaining rows are applied one by one. Invalid rows are reported by position
+ * and skipped.
+ *
+ * By default each chunk commits on its own and a failing chunk is reported and skipped; input
+ * that breaks off (malformed JSON) keeps the rows before it and is reported as an error. With
+ * allOrNothing every chunk joins one transaction, which is rolled back if any row was rejected:
+ * the table is changed only by an input that is valid as a whole (meant for reference tables).
+ */
+@Service
+public class MasterDataImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(MasterDataImportService.class);
+
+    public enum Format { CSV, JSON }
+
+    /**
+     * Target table: CSV columns (header line skipped) and the JSON fields that supply them,
+     * in the order of the INSERT parameters.
+     */
+    public enum Kind {
+        SUPPLY_POINTS("INSERT INTO supply_point (cups, zona, tarifa, estado) VALUES (?, ?, ?, ?)",
+                "UPDATE supply_point SET zona = ?, tarifa = ?, estado = ? WHERE cups = ?", new int[]{1, 2, 3, 0},
+                new String[]{"cups", "zona", "tarifa", "estado"},
+                c -> new Object[]{required("cups", c[0]), required("zona", c[1]), required("tarifa", c[2]),
+                        estado(c[3]).name()}),
+        TARIFFS("INSERT INTO gas_tariff (tarifa, fijo_mes_eur, variable_eur_kwh, vigencia_desde) VALUES (?, ?, ?, ?)",
+                "UPDATE gas_tariff SET fijo_mes_eur = ?, variable_eur_kwh = ? WHERE tarifa = ? AND vigencia_desde = ?",
+                new int[]{1, 2, 0, 3},
+                new String[]{"tarifa", "fijoMesEur", "variableEurKwh", "vigenciaDesde"},
+                c -> new Object[]{required("tarifa", c[0]), decimal("fijo_mes_eur", c[1], 4),
+                        decimal("variable_eur_kwh", c[2], 6), date("vigencia_desde", c[3])}),
+        CONVERSION_FACTORS("INSERT INTO gas_conversion_factor (zona, mes, coef_conv, pcs_kwh_m3) VALUES (?, ?, ?, ?)",
+                "UPDATE gas_conversion_factor SET coef_conv = ?, pcs_kwh_m3 = ? WHERE zona = ? AND mes = ?",
+                new int[]{2, 3, 0, 1},
+                new String[]{"zona", "mes", "coefConv", "pcsKwhM3"},
+                c -> new Object[]{required("zona", c[0]), month("mes", c[1]), positive("coef_conv", c[2], 6),
+                        positive("pcs_kwh_m3", c[3], 6)}),
+        TAXES("INSERT INTO tax_config (tax_code, tax_rate, vigencia_desde) VALUES (?, ?, ?)",
+                "UPDATE tax_config SET tax_rate = ? WHERE tax_code = ? AND vigencia_desde = ?", new int[]{1, 0, 2},
+                new String[]{"taxCode", "taxRate", "vigenciaDesde"},
+                c -> new Object[]{required("tax_code", c[0]), rate("tax_rate", c[1]), date("vigencia_desde", c[2])});
+
+        private final String insert;
+        private final String update;
+        /** Positions of the insert parameters in the update's parameter order (values, then key). */
+        private final int[] updateOrder;
+        private final String[] fields;
+        private final Function<String[], Object[]> validator;
+
+        Kind(String insert, String update, int[] updateOrder, String[] fields, Function<String[], Object[]> validator) {
+            this.insert = insert;
+            this.update = update;
+            this.updateOrder = updateOrder;
+            this.fields = fields;
+            this.validator = validator;
+        }
+
+        private Object[] updateParams(Object[] row) {
+            Object[] params = new Object[updateOrder.length];
+            for (int i = 0; i < params.length; i++) params[i] = row[updateOrder[i]];
+            return params;
+        }
+    }
+
+    /**
+     * Outcome of one import. inserted / updated count rows applied; committed is false when an
+     * all-or-nothing import was rolled back (then nothing was applied).
+     */
+    public record UpsertResult(Kind kind, int rows, int inserted, int updated, int rejected, boolean committed,
+                               List<String> errors) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final ObjectMapper objectMapper;
+    private final InvoiceSearchIndex searchIndex;
+    private final int chunkSize;
+
+    public MasterDataImportService(JdbcTemplate jdbc,
+                                   TransactionTemplate tx,
+                                   ObjectMapper objectMapper,
+                                   InvoiceSearchIndex searchIndex,
+                                   @Value("${gas.master-import.chunk-size:1000}") int chunkSize) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.objectMapper = objectMapper;
+        this.searchIndex = searchIndex;
+        this.chunkSize = chunkSize;
+    }
+
+    /** The caller owns (and closes) the stream. */
+    public UpsertResult upsert(Kind kind, Format format, InputStream in, boolean allOrNothing) throws IOException {
+        Upsert upsert = new Upsert(kind, allOrNothing);
+        if (allOrNothing) {
+            IOException[] failure = new IOException[1];
+            tx.executeWithoutResult(status -> {
+                try {
+                    read(upsert, format, in);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+                if (failure[0] != null || !upsert.errors.isEmpty()) status.setRollbackOnly();
+            });
+            if (failure[0] != null) throw failure[0];
+        } else {
+            try {
+                read(upsert, format, in);
+            } catch (IllegalArgumentException e) {
+                if (upsert.rows == 0) throw e;
+                // earlier chunks are committed: apply the rows read so far and report where the input broke
+                upsert.flush();
+                upsert.errors.add(e.getMessage());
+            }
+        }
+        UpsertResult result = upsert.result();
+        if (kind == Kind.SUPPLY_POINTS && result.committed() && result.inserted() + result.updated() > 0) {
+            searchIndex.invalidateAll(); // zona / tarifa may have changed
+        }
+        log.info("Master data import {}: rows={} inserted={} updated={} rejected={} committed={}",
+                kind, result.rows(), result.inserted(), result.updated(), result.rejected(), result.committed());
+        return result;
+    }
+
+    private void read(Upsert upsert, Format format, InputStream in) throws IOException {
+        if (format == Format.CSV) readCsv(upsert, in);
+        else readJson(upsert, in);
+        upsert.flush();
+    }
+
+    private static void readCsv(Upsert upsert, InputStream in) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (br.readLine() == null) { // skip header
+            upsert.errors.add("Empty file");
+            return;
+        }
+        int columns = upsert.kind.fields.length;
+        String line;
+        int row = 1;
+        while ((line = br.readLine()) != null) {
+            row++;
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            String[] cols = line.split(",", -1);
+            if (cols.length < columns) {
+                upsert.reject("Row " + row, "expected " + columns + " columns, got " + cols.length);
+                continue;
+            }
+            upsert.add("Row " + row, cols);
+        }
+    }
+
+    /** Streams a JSON array of flat objects token by token; unknown fields are ignored. */
+    private void readJson(Upsert upsert, InputStream in) throws IOException {
+        try (JsonParser p = objectMapper.getFactory().createParser(in)) {
+            readJsonArray(upsert, p);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void readJsonArray(Upsert upsert, JsonParser p) throws IOException {
+        if (p.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("Expected a JSON array of objects");
+        }
+        String[] fields = upsert.kind.fields;
+        int item = 0;
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IllegalArgumentException("Truncated JSON array after item " + item);
+            }
+            item++;
+            if (token != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                upsert.reject("Item " + item, "expected an object");
+                continue;
+            }
+            String[] cols = new String[fields.length];
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+                int index = indexOf(fields, name);
+                if (index >= 0 && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                    cols[index] = p.getText(); // numbers keep their literal text, so no double rounding
+                } else {
+                    p.skipChildren();
+                }
+            }
+            upsert.add("Item " + item, cols);
+        }
+    }
+
+    private static int indexOf(String[] fields, String name) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /** Pending rows of one import, merged every chunkSize valid rows. */
+    private final class Upsert {
+        private final Kind kind;
+        private final boolean allOrNothing;
+        private final List<Object[]> pending = new ArrayList<>(chunkSize);
+        private final List<String> positions = new ArrayList<>(chunkSize);
+        private final List<String> errors = new ArrayList<>();
+        private int rows, inserted, updated, rejected;
+
+        Upsert(Kind kind, boolean allOrNothing) {
+            this.kind = kind;
+            this.allOrNothing = allOrNothing;
+        }
+
+        void reject(String position, String message) {
+            rows++;
+            rejected++;
+            errors.add(position + ": " + message);
+        }
+
+        void add(String position, String[] cols) {
+            Object[] params;
+            try {
+                params = kind.validator.apply(cols);
+            } catch (IllegalArgumentException e) {
+                reject(position, e.getMessage());
+                return;
+            }
+            rows++;
+            pending.add(params);
+            positions.add(position);
+            if (pending.size() >= chunkSize) flush();
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+            if (allOrNothing && !errors.isEmpty()) {
+                // the import will be rolled back: keep validating, stop writing
+                pending.clear();
+                positions.clear();
+                return;
+            }
+            try {
+                int[] applied = tx.execute(this::apply);
+                inserted += applied[0];
+                updated += applied[1];
+            } catch (DataAccessException e) {
+                rejected += pending.size();
+                errors.add(positions.get(0) + " to " + positions.get(positions.size() - 1) + ": chunk not applied: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+            pending.clear();
+            positions.clear();
+        }
+
+        /** {inserted, updated} for the pending rows. */
+        private int[] apply(TransactionStatus status) {
+            int[] counts = jdbc.batchUpdate(kind.update, pending.stream().map(kind::updateParams).toList());
+            int changed = 0;
+            List<Object[]> missing = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) changed++;
+                else missing.add(pending.get(i));
+            }
+            if (missing.isEmpty()) return new int[]{0, changed};
+
+            Object savepoint = status.createSavepoint();
+            try {
+                jdbc.batchUpdate(kind.insert, missing);
+                status.releaseSavepoint(savepoint);
+                return new int[]{missing.size(), changed};
+            } catch (DuplicateKeyException e) {
+                status.rollbackToSavepoint(savepoint);
+            }
+            int added = 0;
+            for (Object[] row : missing) {
+                if (jdbc.update(kind.update, kind.updateParams(row)) > 0) {
+                    changed++;
+                } else {
+                    jdbc.update(kind.insert, row);
+                    added++;
+                }
+            }
+            return new int[]{added, changed};
+        }
+
+        UpsertResult result() {
+            boolean committed = !allOrNothing || errors.isEmpty();
+            return committed
+                    ? new UpsertResult(kind, rows, inserted, updated, rejected, true, errors)
+                    : new UpsertResult(kind, rows, 0, 0, rejected, false, errors);
+        }
+    }
+
+    // ---- row validation: each helper returns the JDBC parameter or throws with the row message ----
+
+    private static String required(String column, String value) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(column + " must not be blank");
+        }
+        return value.trim();
+    }
+
+    private static SupplyPoint.EstadoEnum estado(String value) {
+        String estado = required("estado", value);
+        try {
+            return SupplyPoint.EstadoEnum.valueOf(estado);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid estado '" + estado + "'");
+        }
+    }
+
+    private static Date date(String column, String value) {
+        try {
+            return Date.valueOf(LocalDate.parse(required(column, value)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + value + "'");
+        }
+    }
+
+    private static String month(String column, String value) {
+        try {
+            return YearMonth.parse(required(column, value)).toString();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + value + "', expected YYYY-MM");
+        }
+    }
+
+    /** A non-negative decimal with at most scale decimals (the column's scale). */
+    private static BigDecimal decimal(String column, String value, int scale) {
+        BigDecimal d;
+        try {
+            d = new BigDecimal(required(column, value));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + value + "'");
+        }
+        if (d.signum() < 0) {
+            throw new IllegalArgumentException(column + " < 0");
+        }
+        if (d.stripTrailingZeros().scale() > scale) {
+            throw new IllegalArgumentException(column + " has more than " + scale + " decimals");
+        }
+        return d;
+    }
+
+    private static BigDecimal positive(String column, String value, int scale) {
+        BigDecimal d = decimal(column, value, scale);
+        if (d.signum() == 0) {
+            throw new IllegalArgumentException(column + " must be > 0");
+        }
+        return d;
+    }
+
+    private static BigDecimal rate(String column, String value) {
+        BigDecimal d = decimal(column, value, 4);
+        if (d.compareTo(BigDecimal.ONE) > 0) {
+            throw new IllegalArgumentException(column + " must be between 0 and 1");
+        }
+        return d;
+    }
+}
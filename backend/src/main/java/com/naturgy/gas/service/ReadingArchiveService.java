@@ -0,0 +1,357 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.GasReading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps gas_reading bounded: readings older than the horizon are moved to a cold archive,
+ * except the last reading of each month per CUPS, which is what billing needs
+ * (findLastBefore / findLastOnOrBefore at period boundaries) and therefore stays hot.
+ *
+ * Archive layout under {gas.archive.dir}, one pair of append-only files per year:
+ *   readings-YYYY.gz   concatenated gzip members, one per block of ≤ blockRows readings of one CUPS;
+ *                      each member holds "fecha,lectura_m3,tipo" lines
+ *   readings-YYYY.idx  sparse index, one line per block: cups,minFecha,maxFecha,offset,length,rows
+ *
+ * Blocks are fsync'ed before their index lines are written (and fsync'ed) and before the hot rows
+ * are deleted, so the index never points at data that is not on disk, and a crash can leave a
+ * reading in both places (reads de-duplicate, hot wins) but never lose it.
+ * Archive lookups read only the blocks the index points to.
+ */
+@Service
+public class ReadingArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingArchiveService.class);
+
+    private static final String CANDIDATES_SQL =
+            "SELECT cups, fecha, lectura_m3, tipo, YEAR(fecha) AS y FROM (" +
+            "SELECT r.*, ROW_NUMBER() OVER (PARTITION BY r.cups, YEAR(r.fecha), MONTH(r.fecha) " +
+            "ORDER BY r.fecha DESC) AS rn FROM gas_reading r WHERE r.fecha < ?) t " +
+            "WHERE rn > 1 ORDER BY y, cups, fecha";
+
+    private static final String DELETE_SQL = "DELETE FROM gas_reading WHERE cups = ? AND fecha = ?";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final Path archiveDir;
+    private final int horizonMonths;
+    private final int blockRows;
+    private final Map<Integer, YearIndex> indexCache = new ConcurrentHashMap<>();
+
+    public ReadingArchiveService(JdbcTemplate jdbc,
+                                 TransactionTemplate tx,
+                                 @Value("${gas.archive.dir:_data/archive/readings}") String archiveDir,
+                                 @Value("${gas.archive.horizon-months:24}") int horizonMonths,
+                                 @Value("${gas.archive.block-rows:1024}") int blockRows) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+        this.archiveDir = Paths.get(archiveDir).toAbsolutePath().normalize();
+        this.horizonMonths = horizonMonths;
+        this.blockRows = blockRows;
+    }
+
+    public record CompactionResult(LocalDate horizon, long archived, Map<Integer, Long> archivedByYear, long durationMs) {}
+
+    /** Default horizon: first day of the month {@code gas.archive.horizon-months} before the current one. */
+    public LocalDate defaultHorizon() {
+        return YearMonth.now().minusMonths(horizonMonths).atDay(1);
+    }
+
+    /**
+     * Archives every reading dated before {@code horizon} that is not the last of its month
+     * for its CUPS. The horizon is clamped to a month start so the kept boundary is unambiguous,
+     * and must lie before the current (still open) billing period, whose last reading is not known yet.
+     */
+    public synchronized CompactionResult compact(LocalDate horizon) {
+        YearMonth open = YearMonth.now();
+        if (!YearMonth.from(horizon).isBefore(open)) {
+            throw new IllegalArgumentException("horizon " + horizon + " must be before the open billing period " + open);
+        }
+        LocalDate start = YearMonth.from(horizon).atDay(1);
+        long t0 = System.nanoTime();
+        Map<Integer, Long> byYear = new TreeMap<>();
+        try {
+            Files.createDirectories(archiveDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create archive dir " + archiveDir, e);
+        }
+
+        ArchiveWriter writer = new ArchiveWriter(byYear);
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CANDIDATES_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(blockRows);
+            ps.setDate(1, Date.valueOf(start));
+            return ps;
+        }, (RowCallbackHandler) rs -> writer.accept(rs.getInt("y"), new GasReading(
+                rs.getString("cups"), rs.getDate("fecha").toLocalDate(),
+                rs.getBigDecimal("lectura_m3"), GasReading.TipoEnum.valueOf(rs.getString("tipo")))));
+        writer.close();
+
+        long archived = byYear.values().stream().mapToLong(Long::longValue).sum();
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        log.info("Reading compaction: horizon={} archived={} byYear={} in {} ms", start, archived, byYear, ms);
+        return new CompactionResult(start, archived, byYear, ms);
+    }
+
+    /** All archived readings of a CUPS, ordered by fecha. */
+    public List<GasReading> findArchived(String cups) {
+        return read(cups, null, null);
+    }
+
+    public Optional<GasReading> findArchived(String cups, LocalDate fecha) {
+        return read(cups, fecha, fecha).stream().findFirst();
+    }
+
+    /** Latest archived reading of a CUPS dated within [from, to], reading only the blocks that overlap it. */
+    public Optional<GasReading> findLastArchived(String cups, LocalDate from, LocalDate to) {
+        List<GasReading> found = read(cups, from, to);
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(found.size() - 1));
+    }
+
+    /** Hot readings plus archived ones not present in the hot list, ordered by fecha. */
+    public List<GasReading> mergeWithArchive(String cups, List<GasReading> hot) {
+        Map<LocalDate, GasReading> merged = new TreeMap<>();
+        for (GasReading r : findArchived(cups)) merged.put(r.getFecha(), r);
+        for (GasReading r : hot) merged.put(r.getFecha(), r);
+        return new ArrayList<>(merged.values());
+    }
+
+    // -------------------------------------------------------------------------
+    // Reading the archive
+    // -------------------------------------------------------------------------
+
+    /** Archived readings of a CUPS within [from, to] (null bounds are open), ordered by fecha. */
+    private List<GasReading> read(String cups, LocalDate from, LocalDate to) {
+        Map<LocalDate, GasReading> out = new TreeMap<>();
+        for (int year : archivedYears()) {
+            if (from != null && year < from.getYear() || to != null && year > to.getYear()) continue;
+            List<IndexEntry> entries = yearIndex(year).byCups.getOrDefault(cups, List.of());
+            if (entries.isEmpty()) continue;
+            try (FileChannel data = FileChannel.open(dataFile(year), StandardOpenOption.READ)) {
+                for (IndexEntry e : entries) {
+                    if (from != null && e.max.isBefore(from) || to != null && e.min.isAfter(to)) continue;
+                    ByteBuffer buf = ByteBuffer.allocate(e.length);
+                    while (buf.hasRemaining()) {
+                        if (data.read(buf, e.offset + buf.position()) < 0) {
+                            throw new IOException("archive block beyond end of file");
+                        }
+                    }
+                    readBlock(cups, buf.array(), from, to, out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read reading archive " + year, e);
+            }
+        }
+        return new ArrayList<>(out.values());
+    }
+
+    private static void readBlock(String cups, byte[] block, LocalDate from, LocalDate to,
+                                  Map<LocalDate, GasReading> out) throws IOException {
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(block)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] cols = line.split(",", -1);
+                LocalDate fecha = LocalDate.parse(cols[0]);
+                if (from != null && fecha.isBefore(from) || to != null && fecha.isAfter(to)) continue;
+                out.put(fecha, new GasReading(cups, fecha, new BigDecimal(cols[1]), GasReading.TipoEnum.valueOf(cols[2])));
+            }
+        }
+    }
+
+    /** Years with an archive index, ascending. */
+    List<Integer> archivedYears() {
+        List<Integer> years = new ArrayList<>();
+        if (!Files.isDirectory(archiveDir)) return years;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(archiveDir, "readings-*.idx")) {
+            for (Path p : ds) {
+                String n = p.getFileName().toString();
+                years.add(Integer.parseInt(n.substring("readings-".length(), n.length() - ".idx".length())));
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Unreadable archive dir " + archiveDir + ": " + e.getMessage(), e);
+        }
+        years.sort(Comparator.naturalOrder());
+        return years;
+    }
+
+    /** Parsed sparse index, reloaded whenever the append-only .idx file has grown. */
+    private YearIndex yearIndex(int year) {
+        Path idx = indexFile(year);
+        try {
+            long size = Files.size(idx);
+            YearIndex cached = indexCache.get(year);
+            if (cached != null && cached.size == size) return cached;
+            Map<String, List<IndexEntry>> byCups = new HashMap<>();
+            try (BufferedReader br = Files.newBufferedReader(idx)) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    String[] c = line.split(",", -1);
+                    if (c.length < 6) continue; // torn last line after a crash
+                    byCups.computeIfAbsent(c[0], k -> new ArrayList<>()).add(new IndexEntry(
+                            LocalDate.parse(c[1]), LocalDate.parse(c[2]), Long.parseLong(c[3]), Integer.parseInt(c[4])));
+                }
+            }
+            YearIndex loaded = new YearIndex(size, byCups);
+            indexCache.put(year, loaded);
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load archive index " + idx, e);
+        }
+    }
+
+    private Path dataFile(int year) { return archiveDir.resolve("readings-" + year + ".gz"); }
+    private Path indexFile(int year) { return archiveDir.resolve("readings-" + year + ".idx"); }
+
+    private record IndexEntry(LocalDate min, LocalDate max, long offset, int length) {}
+
+    private record YearIndex(long size, Map<String, List<IndexEntry>> byCups) {}
+
+    // -------------------------------------------------------------------------
+    // Writing the archive
+    // -------------------------------------------------------------------------
+
+    /**
+     * Receives candidates ordered by (year, cups, fecha), cuts them into per-CUPS blocks,
+     * appends each block to its year file and deletes archived rows from the hot table
+     * once their blocks are durable.
+     */
+    private final class ArchiveWriter {
+        private final Map<Integer, Long> byYear;
+        private final List<GasReading> block = new ArrayList<>();
+        private final List<GasReading> durablePending = new ArrayList<>();
+        private final StringBuilder pendingIndex = new StringBuilder();
+        private int year = -1;
+        private FileChannel data;
+        private Writer index;
+
+        ArchiveWriter(Map<Integer, Long> byYear) {
+            this.byYear = byYear;
+        }
+
+        void accept(int y, GasReading r) {
+            try {
+                if (y != year) {
+                    flushBlock();
+                    closeYear();
+                    openYear(y);
+                } else if (!block.isEmpty() && (!block.get(0).getCups().equals(r.getCups()) || block.size() >= blockRows)) {
+                    flushBlock();
+                }
+                block.add(r);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write reading archive " + y, e);
+            }
+        }
+
+        void close() {
+            try {
+                flushBlock();
+                closeYear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write reading archive " + year, e);
+            }
+        }
+
+        private void openYear(int y) throws IOException {
+            year = y;
+            data = FileChannel.open(dataFile(y), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            index = Files.newBufferedWriter(indexFile(y), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        private void closeYear() throws IOException {
+            if (data == null) return;
+            makeDurableAndDelete();
+            data.close();
+            index.close();
+            data = null;
+            index = null;
+        }
+
+        private void flushBlock() throws IOException {
+            if (block.isEmpty()) return;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.size() * 16);
+            try (Writer w = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+                for (GasReading r : block) {
+                    w.write(r.getFecha().toString());
+                    w.write(',');
+                    w.write(r.getLecturaM3().toPlainString());
+                    w.write(',');
+                    w.write(r.getTipo().name());
+                    w.write('\n');
+                }
+            }
+            long offset = data.size();
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            while (buf.hasRemaining()) data.write(buf);
+            GasReading first = block.get(0);
+            // Held back until the block is on disk, see makeDurableAndDelete
+            pendingIndex.append(first.getCups()).append(',').append(first.getFecha()).append(',')
+                    .append(block.get(block.size() - 1).getFecha()).append(',').append(offset).append(',')
+                    .append(bytes.size()).append(',').append(block.size()).append('\n');
+            durablePending.addAll(block);
+            byYear.merge(year, (long) block.size(), Long::sum);
+            block.clear();
+            if (durablePending.size() >= blockRows) makeDurableAndDelete();
+        }
+
+        /** fsync data, then append and fsync the index lines, then remove the archived rows from gas_reading in one transaction. */
+        private void makeDurableAndDelete() throws IOException {
+            if (durablePending.isEmpty()) return;
+            data.force(true);
+            index.append(pendingIndex);
+            pendingIndex.setLength(0);
+            index.flush();
+            try (FileChannel idx = FileChannel.open(indexFile(year), StandardOpenOption.WRITE)) {
+                idx.force(true);
+            }
+            List<Object[]> keys = new ArrayList<>(durablePending.size());
+            for (GasReading r : durablePending) {
+                keys.add(new Object[]{r.getCups(), Date.valueOf(r.getFecha())});
+            }
+            tx.executeWithoutResult(s -> jdbc.batchUpdate(DELETE_SQL, keys));
+            durablePending.clear();
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.event.ReadingsIngestedEvent;
+import com.naturgy.gas.ingest.ReadingBinaryFormat;
+import com.naturgy.gas.repository.GasReadingBatchWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses and validates gas readings from any stream and writes them in JDBC batches.
+ * Shared by the multipart import endpoint, the resumable upload protocol, directory
+ * ingestion (CSV) and the binary bulk endpoint, so every path applies the same row rules.
+ *
+ * Per import (tag format=csv|binary): gas.readings.import (duration), gas.readings.import.throughput
+ * (rows/s), gas.readings.import.rows by outcome (inserted, duplicate, rejected) and
+ * gas.readings.import.rejected by reason.
+ */
+@Service
+public class ReadingImportService {
+
+    private static final GasReading.TipoEnum[] TIPOS = GasReading.TipoEnum.values();
+
+    private enum Rejection { MALFORMED, INVALID_DATE, INVALID_LECTURA, NEGATIVE_LECTURA, INVALID_TIPO, INVALID_CUPS }
+
+    private final GasReadingBatchWriter batchWriter;
+    private final ApplicationEventPublisher events;
+    private final MeterRegistry meters;
+    private final int batchSize;
+    private final int maxCups;
+
+    public ReadingImportService(GasReadingBatchWriter batchWriter,
+                                ApplicationEventPublisher events,
+                                MeterRegistry meters,
+                                @Value("${gas.import.batch-size:500}") int batchSize,
+                                @Value("${gas.import.binary.max-cups:1000000}") int maxCups) {
+        this.batchWriter = batchWriter;
+        this.events = events;
+        this.meters = meters;
+        this.batchSize = batchSize;
+        this.maxCups = maxCups;
+    }
+
+    public record ImportResult(int inserted, int skipped, List<String> errors) {
+        public Map<String, Object> toResponse() {
+            return Map.of("inserted", inserted, "skipped", skipped, "errors", errors);
+        }
+    }
+
+    /**
+     * Reads cups,fecha,lectura_m3,tipo CSV (with header) line by line; never buffers the
+     * whole input. The caller owns (and closes) the stream.
+     */
+    public ImportResult importCsv(InputStream in) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = br.readLine(); // skip header
+        if (header == null) {
+            return new ImportResult(0, 0, List.of("Empty file"));
+        }
+        Batch batch = new Batch("Row", "csv");
+        String line;
+        int row = 1;
+        while ((line = br.readLine()) != null) {
+            row++;
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            String[] cols = line.split(",", -1);
+            if (cols.length < 4) {
+                batch.reject(row, Rejection.MALFORMED, "expected 4 columns, got " + cols.length);
+                continue;
+            }
+            String cups = cols[0].trim();
+            String fechaStr = cols[1].trim();
+            String lecturaStr = cols[2].trim();
+            String tipoStr = cols[3].trim();
+
+            LocalDate fecha;
+            try { fecha = LocalDate.parse(fechaStr); }
+            catch (DateTimeParseException e) {
+                batch.reject(row, Rejection.INVALID_DATE, "invalid date '" + fechaStr + "'");
+                continue;
+            }
+
+            BigDecimal lecturaM3;
+            try { lecturaM3 = new BigDecimal(lecturaStr); }
+            catch (NumberFormatException e) {
+                batch.reject(row, Rejection.INVALID_LECTURA, "invalid lectura_m3 '" + lecturaStr + "'");
+                continue;
+            }
+            if (lecturaM3.compareTo(BigDecimal.ZERO) < 0) {
+                batch.reject(row, Rejection.NEGATIVE_LECTURA, "lectura_m3 < 0");
+                continue;
+            }
+
+            GasReading.TipoEnum tipo;
+            try { tipo = GasReading.TipoEnum.valueOf(tipoStr); }
+            catch (IllegalArgumentException e) {
+                batch.reject(row, Rejection.INVALID_TIPO, "invalid tipo '" + tipoStr + "'");
+                continue;
+            }
+
+            batch.add(row, new GasReading(cups, fecha, lecturaM3, tipo));
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Reads the {@link ReadingBinaryFormat} stream record by record straight into batches.
+     * A malformed header fails the whole request; bad records are reported and skipped.
+     */
+    public ImportResult importBinary(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        String[] dictionary = readHeader(data);
+
+        Batch batch = new Batch("Record", "binary");
+        byte[] record = new byte[ReadingBinaryFormat.RECORD_BYTES];
+        int n = 0;
+        while (true) {
+            int read = data.readNBytes(record, 0, record.length);
+            if (read == 0) break;
+            n++;
+            if (read < record.length) {
+                batch.reject(n, Rejection.MALFORMED, "truncated record (" + read + " of " + record.length + " bytes)");
+                break;
+            }
+            int cupsIndex = readInt(record, 0);
+            int epochDay = readInt(record, 4);
+            long scaled = readLong(record, 8);
+            int tipoOrdinal = record[16];
+
+            if (cupsIndex < 0 || cupsIndex >= dictionary.length) {
+                batch.reject(n, Rejection.INVALID_CUPS, "cups index " + cupsIndex + " out of range");
+                continue;
+            }
+            if (scaled < 0) {
+                batch.reject(n, Rejection.NEGATIVE_LECTURA, "lectura_m3 < 0");
+                continue;
+            }
+            if (tipoOrdinal < 0 || tipoOrdinal >= TIPOS.length) {
+                batch.reject(n, Rejection.INVALID_TIPO, "invalid tipo ordinal " + tipoOrdinal);
+                continue;
+            }
+            LocalDate fecha;
+            try { fecha = LocalDate.ofEpochDay(epochDay); }
+            catch (java.time.DateTimeException e) {
+                batch.reject(n, Rejection.INVALID_DATE, "invalid epoch day " + epochDay);
+                continue;
+            }
+            batch.add(n, new GasReading(dictionary[cupsIndex], fecha,
+                    BigDecimal.valueOf(scaled, ReadingBinaryFormat.LECTURA_SCALE), TIPOS[tipoOrdinal]));
+        }
+        return batch.finish();
+    }
+
+    /**
+     * The declared dictionary size is untrusted: it is checked against {@code max-cups}, and
+     * the list only grows as entries are actually read, so a lying header ends as a truncated
+     * header rather than a huge allocation.
+     */
+    private String[] readHeader(DataInputStream data) throws IOException {
+        try {
+            byte[] magic = new byte[ReadingBinaryFormat.MAGIC.length];
+            data.readFully(magic);
+            if (!Arrays.equals(magic, ReadingBinaryFormat.MAGIC)) {
+                throw new IllegalArgumentException("Not a GRB1 readings stream (bad magic)");
+            }
+            int count = data.readInt();
+            if (count < 0) {
+                throw new IllegalArgumentException("Invalid CUPS dictionary size " + count);
+            }
+            if (count > maxCups) {
+                throw new IllegalArgumentException("CUPS dictionary size " + count + " exceeds the maximum of " + maxCups);
+            }
+            List<String> dictionary = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[data.readUnsignedShort()];
+                data.readFully(bytes);
+                dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return dictionary.toArray(String[]::new);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException("Truncated GRB1 header");
+        }
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+    }
+
+    private static long readLong(byte[] b, int off) {
+        return ((long) readInt(b, off) << 32) | (readInt(b, off + 4) & 0xffffffffL);
+    }
+
+    private record RowError(int position, String message) {}
+
+    /**
+     * Accumulates valid rows and flushes them through the batch writer every {@code batchSize} rows;
+     * each flush publishes a {@link ReadingsIngestedEvent} with the rows actually inserted.
+     * Duplicates are only known at flush time, so errors are put back in row order at the end.
+     */
+    private final class Batch {
+        private final String unit;
+        private final String format;
+        private final long startNanos = System.nanoTime();
+        private final List<GasReading> pending = new ArrayList<>(batchSize);
+        private final List<Integer> positions = new ArrayList<>(batchSize);
+        private final List<RowError> errors = new ArrayList<>();
+        private final int[] rejected = new int[Rejection.values().length];
+        private int inserted, skipped;
+
+        Batch(String unit, String format) {
+            this.unit = unit;
+            this.format = format;
+        }
+
+        void reject(int position, Rejection reason, String message) {
+            rejected[reason.ordinal()]++;
+            error(position, message);
+        }
+
+        private void error(int position, String message) {
+            errors.add(new RowError(position, message));
+        }
+
+        void add(int position, GasReading reading) {
+            pending.add(reading);
+            positions.add(position);
+            if (pending.size() >= batchSize) flush();
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) return;
+            boolean[] result = batchWriter.insertIfAbsent(pending);
+            List<GasReading> written = new ArrayList<>(result.length);
+            for (int i = 0; i < result.length; i++) {
+                if (result[i]) {
+                    inserted++;
+                    written.add(pending.get(i));
+                } else {
+                    GasReading r = pending.get(i);
+                    error(positions.get(i), "duplicate reading " + r.getCups() + "/" + r.getFecha());
+                    skipped++;
+                }
+            }
+            pending.clear();
+            positions.clear();
+            if (!written.isEmpty()) events.publishEvent(new ReadingsIngestedEvent(written));
+        }
+
+        ImportResult finish() {
+            flush();
+            record();
+            errors.sort(Comparator.comparingInt(RowError::position)); // stable: one row keeps its order
+            List<String> messages = new ArrayList<>(errors.size());
+            for (RowError e : errors) messages.add(unit + " " + e.position() + ": " + e.message());
+            return new ImportResult(inserted, skipped, messages);
+        }
+
+        private void record() {
+            long nanos = System.nanoTime() - startNanos;
+            int rejectedTotal = 0;
+            for (Rejection reason : Rejection.values()) {
+                int n = rejected[reason.ordinal()];
+                rejectedTotal += n;
+                if (n > 0) {
+                    meters.counter("gas.readings.import.rejected", "format", format,
+                            "reason", reason.name().toLowerCase()).increment(n);
+                }
+            }
+            meters.counter("gas.readings.import.rows", "format", format, "outcome", "inserted").increment(inserted);
+            meters.counter("gas.readings.import.rows", "format", format, "outcome", "duplicate").increment(skipped);
+            meters.counter("gas.readings.import.rows", "format", format, "outcome", "rejected").increment(rejectedTotal);
+            meters.timer("gas.readings.import", "format", format).record(nanos, TimeUnit.NANOSECONDS);
+            if (nanos > 0) {
+                meters.summary("gas.readings.import.throughput", "format", format)
+                        .record((inserted + skipped + rejectedTotal) * 1e9 / nanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.GasReading;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Resolves "reading in effect at a date" (findLastOnOrBefore semantics) for many
+ * (cups, date) pairs at once. Pairs are processed in request order, in slices of
+ * {@code gas.lookup.chunk-size}; each slice is one query that joins its distinct pairs,
+ * passed as a VALUES table, with the latest reading on or before each pair's date.
+ *
+ * Compaction ({@link ReadingArchiveService}) keeps only the last reading of each month hot
+ * before its horizon, so for an older date the hot answer may be an earlier month-end while
+ * the reading actually in effect sits in the archive. Any such reading is in the month of the
+ * asked date and after the hot answer, so for dates in an archived year the archive is read for
+ * that window only (its index tells which blocks overlap) and a later archived reading wins.
+ * Answers are therefore the same before and after compaction.
+ */
+@Service
+public class ReadingLookupService {
+
+    private static final String PAIR = "(CAST(? AS VARCHAR), CAST(? AS DATE))";
+
+    /** The VALUES rows are appended by {@link #lookupSlice}. */
+    private static final String AS_OF_PREFIX = """
+            SELECT q.cups, q.as_of, r.fecha, r.lectura_m3, r.tipo
+            FROM (VALUES %s) AS q(cups, as_of)
+            JOIN gas_reading r ON r.cups = q.cups
+             AND r.fecha = (SELECT MAX(m.fecha) FROM gas_reading m WHERE m.cups = q.cups AND m.fecha <= q.as_of)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ReadingArchiveService archive;
+    private final int chunkSize;
+
+    public ReadingLookupService(JdbcTemplate jdbc,
+                                ReadingArchiveService archive,
+                                @Value("${gas.lookup.chunk-size:1000}") int chunkSize) {
+        this.jdbc = jdbc;
+        this.archive = archive;
+        this.chunkSize = chunkSize;
+    }
+
+    public record AsOfQuery(String cups, LocalDate date) {}
+
+    /** One result per query; {@code fecha}, {@code lecturaM3} and {@code tipo} are null when no reading exists. */
+    public record AsOfResult(String cups, LocalDate date, boolean found, LocalDate fecha,
+                             BigDecimal lecturaM3, GasReading.TipoEnum tipo) {}
+
+    /**
+     * Emits one result per query, in the same order, slice by slice so the caller can
+     * stream them out without holding the full result set.
+     */
+    public void resolve(List<AsOfQuery> queries, Consumer<AsOfResult> sink) {
+        for (int from = 0; from < queries.size(); from += chunkSize) {
+            List<AsOfQuery> slice = queries.subList(from, Math.min(from + chunkSize, queries.size()));
+            Map<AsOfQuery, AsOfResult> found = lookupSlice(new LinkedHashSet<>(slice));
+            applyArchive(slice, found);
+            for (AsOfQuery q : slice) {
+                AsOfResult r = found.get(q);
+                sink.accept(r != null ? r : new AsOfResult(q.cups(), q.date(), false, null, null, null));
+            }
+        }
+    }
+
+    private Map<AsOfQuery, AsOfResult> lookupSlice(Set<AsOfQuery> pairs) {
+        String sql = AS_OF_PREFIX.formatted(String.join(", ", Collections.nCopies(pairs.size(), PAIR)));
+        Object[] args = new Object[pairs.size() * 2];
+        int i = 0;
+        for (AsOfQuery q : pairs) {
+            args[i++] = q.cups();
+            args[i++] = Date.valueOf(q.date());
+        }
+        Map<AsOfQuery, AsOfResult> found = new HashMap<>(pairs.size() * 2);
+        jdbc.query(sql, rs -> {
+            String cups = rs.getString(1);
+            LocalDate asOf = rs.getDate(2).toLocalDate();
+            found.put(new AsOfQuery(cups, asOf), new AsOfResult(cups, asOf, true, rs.getDate(3).toLocalDate(),
+                    rs.getBigDecimal(4), GasReading.TipoEnum.valueOf(rs.getString(5))));
+        }, args);
+        return found;
+    }
+
+    /** Replaces hot answers by a later archived reading of the asked month, for dates in archived years. */
+    private void applyArchive(List<AsOfQuery> slice, Map<AsOfQuery, AsOfResult> found) {
+        Set<Integer> years = new HashSet<>(archive.archivedYears());
+        if (years.isEmpty()) return;
+        for (AsOfQuery q : new LinkedHashSet<>(slice)) {
+            if (!years.contains(q.date().getYear())) continue;
+            AsOfResult hot = found.get(q);
+            LocalDate from = q.date().withDayOfMonth(1);
+            if (hot != null && !hot.fecha().isBefore(from)) from = hot.fecha().plusDays(1);
+            if (from.isAfter(q.date())) continue;
+            archive.findLastArchived(q.cups(), from, q.date()).ifPresent(r -> found.put(q,
+                    new AsOfResult(q.cups(), q.date(), true, r.getFecha(), r.getLecturaM3(), r.getTipo())));
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.service.ReadingImportService.ImportResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Resumable chunked upload of gas-readings CSV files (plain or gzip).
+ *
+ * Protocol: initiate → PUT numbered chunks (0-based, any order, re-uploads allowed) → complete.
+ * Each chunk is written to {gas.upload.dir}/{uploadId}/ and only becomes visible once fully
+ * received (tmp file + atomic rename). A consumer thread per upload parses the chunks in order
+ * as soon as they are contiguous, decompressing gzip on the fly, so neither the file nor its
+ * decompressed content is ever held in memory.
+ *
+ * The consumer only takes a pool thread once the first chunk arrives, so initiated but abandoned
+ * uploads never starve the pool; they are discarded after {gas.upload.idle-timeout} without chunks.
+ */
+@Service
+public class ReadingUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingUploadService.class);
+
+    private static final String META_FILE = "upload.properties";
+    private static final String CHUNK_PREFIX = "chunk-";
+    private static final String CHUNK_SUFFIX = ".part";
+
+    private final ReadingImportService importService;
+    private final Path uploadRoot;
+    private final Duration idleTimeout;
+    private final ExecutorService consumers;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ReadingUploadService(ReadingImportService importService,
+                                @Value("${gas.upload.dir:${java.io.tmpdir}/gas-uploads}") String uploadDir,
+                                @Value("${gas.upload.idle-timeout:PT30M}") Duration idleTimeout,
+                                @Value("${gas.upload.max-concurrent:4}") int maxConcurrent) {
+        this.importService = importService;
+        this.uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.idleTimeout = idleTimeout;
+        AtomicInteger n = new AtomicInteger();
+        this.consumers = Executors.newFixedThreadPool(maxConcurrent, r -> {
+            Thread t = new Thread(r, "reading-upload-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public record UploadStatus(String uploadId, String fileName, boolean gzip, String state,
+                               List<Integer> receivedChunks, int nextChunk, long bytesReceived,
+                               Integer totalChunks) {}
+
+    public UploadStatus initiate(String fileName, boolean gzip) {
+        String uploadId = UUID.randomUUID().toString();
+        Path dir = uploadRoot.resolve(uploadId);
+        boolean compressed = gzip || (fileName != null && fileName.toLowerCase().endsWith(".gz"));
+        try {
+            Files.createDirectories(dir);
+            Properties meta = new Properties();
+            meta.setProperty("fileName", fileName != null ? fileName : "");
+            meta.setProperty("gzip", Boolean.toString(compressed));
+            try (Writer w = Files.newBufferedWriter(dir.resolve(META_FILE))) {
+                meta.store(w, "reading upload");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initiate upload: " + e.getMessage(), e);
+        }
+        UploadSession session = new UploadSession(uploadId, dir, fileName, compressed);
+        sessions.put(uploadId, session);
+        log.info("Upload initiated: id={} file={} gzip={}", uploadId, fileName, compressed);
+        return session.status();
+    }
+
+    public UploadStatus storeChunk(String uploadId, int index, InputStream body) {
+        UploadSession session = session(uploadId);
+        if (index < 0) {
+            throw new IllegalArgumentException("chunk index must be >= 0");
+        }
+        Integer total = session.totalChunks();
+        if (total != null && index >= total) {
+            throw new IllegalArgumentException("chunk index " + index + " beyond totalChunks " + total);
+        }
+        Path target = session.chunkPath(index);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            long bytes = Files.copy(body, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            session.chunkStored(index, bytes);
+            startConsumer(session);
+        } catch (IOException e) {
+            // Partial chunk stays invisible (tmp file); the client simply retries this index
+            throw new RuntimeException("Failed to store chunk " + index + ": " + e.getMessage(), e);
+        }
+        return session.status();
+    }
+
+    public UploadStatus status(String uploadId) {
+        return session(uploadId).status();
+    }
+
+    /**
+     * Declares the final chunk count and waits for the consumer to drain the stream.
+     * Fails with 409 if any chunk in [0, totalChunks) has not been received yet,
+     * leaving the upload open so the client can send the missing chunks and retry.
+     */
+    public ImportResult complete(String uploadId, int totalChunks) {
+        UploadSession session = session(uploadId);
+        if (totalChunks < 1) {
+            throw new IllegalArgumentException("totalChunks must be >= 1");
+        }
+        List<Integer> missing = session.missingChunks(totalChunks);
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Upload " + uploadId + " is missing chunks " + missing);
+        }
+        session.markComplete(totalChunks);
+        try {
+            ImportResult result = session.result.get();
+            log.info("Upload completed: id={} inserted={} skipped={} errors={}",
+                    uploadId, result.inserted(), result.skipped(), result.errors().size());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while completing upload " + uploadId, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IllegalArgumentException("Failed to import upload " + uploadId + ": " + cause.getMessage(), cause);
+        } finally {
+            discard(session);
+        }
+    }
+
+    public void abort(String uploadId) {
+        UploadSession session = session(uploadId);
+        session.abort();
+        discard(session);
+        log.info("Upload aborted: id={}", uploadId);
+    }
+
+    /** Discards uploads that were initiated but never received a chunk within the idle timeout. */
+    @Scheduled(fixedDelayString = "${gas.upload.sweep-interval:PT1M}",
+               initialDelayString = "${gas.upload.sweep-interval:PT1M}")
+    public void expireIdleSessions() {
+        for (UploadSession session : sessions.values()) {
+            synchronized (session) {
+                if (session.result != null || session.idleFor().compareTo(idleTimeout) < 0) continue;
+                session.abort();
+            }
+            discard(session);
+            log.info("Upload expired without chunks: id={}", session.uploadId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        consumers.shutdownNow();
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /** Submits the session's consumer once; called for every stored chunk. */
+    private void startConsumer(UploadSession session) {
+        if (session.result != null) return;
+        synchronized (session) {
+            if (session.result != null) return;
+            if (session.aborted) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found: " + session.uploadId);
+            }
+            session.result = submitConsumer(session);
+        }
+    }
+
+    private Future<ImportResult> submitConsumer(UploadSession session) {
+        return consumers.submit(() -> {
+            try (InputStream chunks = new ChunkSequenceInputStream(session);
+                 InputStream in = session.gzip ? new GZIPInputStream(chunks, 64 * 1024) : chunks) {
+                return importService.importCsv(in);
+            } catch (IOException | RuntimeException e) {
+                if (session.totalChunks() == null) {
+                    // Nobody is waiting on complete(): drop the session so it does not leak
+                    log.warn("Upload {} failed before completion: {}", session.uploadId, e.getMessage());
+                    discard(session);
+                }
+                throw e;
+            }
+        });
+    }
+
+    /** Returns the live session, restoring it from disk after a restart when possible. */
+    private UploadSession session(String uploadId) {
+        try {
+            UUID.fromString(uploadId); // also guards against path traversal
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found: " + uploadId);
+        }
+        return sessions.computeIfAbsent(uploadId, this::restore);
+    }
+
+    private UploadSession restore(String uploadId) {
+        Path dir = uploadRoot.resolve(uploadId);
+        Path metaFile = dir.resolve(META_FILE);
+        if (!Files.exists(metaFile)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload not found: " + uploadId);
+        }
+        try {
+            Properties meta = new Properties();
+            try (Reader r = Files.newBufferedReader(metaFile)) {
+                meta.load(r);
+            }
+            UploadSession session = new UploadSession(uploadId, dir, meta.getProperty("fileName"),
+                    Boolean.parseBoolean(meta.getProperty("gzip")));
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, CHUNK_PREFIX + "*" + CHUNK_SUFFIX)) {
+                for (Path p : ds) {
+                    String name = p.getFileName().toString();
+                    int idx = Integer.parseInt(name.substring(CHUNK_PREFIX.length(), name.length() - CHUNK_SUFFIX.length()));
+                    session.chunkStored(idx, Files.size(p));
+                }
+            }
+            // Rows already imported before the restart are reported as duplicates (skipped)
+            if (!session.status().receivedChunks().isEmpty()) {
+                startConsumer(session);
+            }
+            log.info("Upload restored from disk: id={} chunks={}", uploadId, session.status().receivedChunks());
+            return session;
+        } catch (IOException | NumberFormatException e) {
+            throw new RuntimeException("Failed to restore upload " + uploadId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void discard(UploadSession session) {
+        sessions.remove(session.uploadId);
+        try (Stream<Path> files = Files.walk(session.dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Could not clean upload dir {}: {}", session.dir, e.getMessage());
+        }
+    }
+
+    private final class UploadSession {
+        final String uploadId;
+        final Path dir;
+        final String fileName;
+        final boolean gzip;
+        private final TreeSet<Integer> received = new TreeSet<>();
+        private long bytesReceived;
+        private Integer totalChunks;
+        private boolean aborted;
+        private long lastActivity = System.nanoTime();
+        volatile Future<ImportResult> result;
+
+        UploadSession(String uploadId, Path dir, String fileName, boolean gzip) {
+            this.uploadId = uploadId;
+            this.dir = dir;
+            this.fileName = fileName;
+            this.gzip = gzip;
+        }
+
+        Path chunkPath(int index) {
+            return dir.resolve(String.format("%s%06d%s", CHUNK_PREFIX, index, CHUNK_SUFFIX));
+        }
+
+        synchronized void chunkStored(int index, long bytes) {
+            if (received.add(index)) {
+                bytesReceived += bytes;
+            }
+            lastActivity = System.nanoTime();
+            notifyAll();
+        }
+
+        synchronized Integer totalChunks() {
+            return totalChunks;
+        }
+
+        synchronized List<Integer> missingChunks(int total) {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < total && missing.size() < 100; i++) {
+                if (!received.contains(i)) missing.add(i);
+            }
+            return missing;
+        }
+
+        synchronized void markComplete(int total) {
+            totalChunks = total;
+            notifyAll();
+        }
+
+        synchronized Duration idleFor() {
+            return Duration.ofNanos(System.nanoTime() - lastActivity);
+        }
+
+        synchronized void abort() {
+            aborted = true;
+            notifyAll();
+        }
+
+        /** Blocks until chunk {@code index} is on disk; returns null once past the last chunk. */
+        synchronized Path awaitChunk(int index) throws IOException {
+            while (true) {
+                if (aborted) throw new IOException("Upload aborted");
+                if (received.contains(index)) return chunkPath(index);
+                if (totalChunks != null && index >= totalChunks) return null;
+                long idleNanos = System.nanoTime() - lastActivity;
+                long remainingMs = idleTimeout.toMillis() - idleNanos / 1_000_000;
+                if (remainingMs <= 0) {
+                    throw new IOException("Upload idle for more than " + idleTimeout + " waiting for chunk " + index);
+                }
+                try {
+                    wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for chunk " + index, e);
+                }
+            }
+        }
+
+        synchronized UploadStatus status() {
+            int next = 0;
+            while (received.contains(next)) next++;
+            String state = aborted ? "ABORTED" : totalChunks != null ? "COMPLETING" : "RECEIVING";
+            return new UploadStatus(uploadId, fileName, gzip, state,
+                    List.copyOf(received), next, bytesReceived, totalChunks);
+        }
+    }
+
+    /** Concatenates chunk files in index order, waiting for chunks that have not arrived yet. */
+    private static final class ChunkSequenceInputStream extends InputStream {
+        private final UploadSession session;
+        private int index = 0;
+        private InputStream current;
+        private boolean eof;
+
+        ChunkSequenceInputStream(UploadSession session) {
+            this.session = session;
+        }
+
+        private boolean ensureOpen() throws IOException {
+            while (current == null && !eof) {
+                Path next = session.awaitChunk(index);
+                if (next == null) {
+                    eof = true;
+                } else {
+                    current = Files.newInputStream(next);
+                }
+            }
+            return !eof;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (ensureOpen()) {
+                int n = current.read(b, off, len);
+                if (n > 0) return n;
+                current.close();
+                current = null;
+                index++;
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) current.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.event.ReadingsIngestedEvent;
+import com.naturgy.gas.repository.GasReadingRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Single-reading creates and deletes from the API, each committed together with its change log entry.
+ */
+@Service
+public class ReadingWriteService {
+
+    private final GasReadingRepository repo;
+    private final ChangeLogService changeLog;
+    private final ApplicationEventPublisher events;
+
+    public ReadingWriteService(GasReadingRepository repo, ChangeLogService changeLog,
+                               ApplicationEventPublisher events) {
+        this.repo = repo;
+        this.changeLog = changeLog;
+        this.events = events;
+    }
+
+    /** 409 if a reading for the same CUPS and date already exists. */
+    @Transactional
+    public GasReading create(GasReading reading) {
+        if (repo.existsById(new GasReading.GasReadingId(reading.getCups(), reading.getFecha()))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Reading already exists: " + reading.getCups() + "/" + reading.getFecha());
+        }
+        GasReading saved = repo.save(reading);
+        changeLog.record(ChangeLogEntry.EntityType.READING, ChangeLogEntry.Operation.CREATED,
+                ChangeLogService.readingKey(saved.getCups(), saved.getFecha()), saved.getCups());
+        events.publishEvent(new ReadingsIngestedEvent(List.of(saved)));
+        return saved;
+    }
+
+    /** False if the reading did not exist. */
+    @Transactional
+    public boolean delete(String cups, LocalDate fecha) {
+        GasReading.GasReadingId id = new GasReading.GasReadingId(cups, fecha);
+        if (!repo.existsById(id)) return false;
+        repo.deleteById(id);
+        changeLog.record(ChangeLogEntry.EntityType.READING, ChangeLogEntry.Operation.DELETED,
+                ChangeLogService.readingKey(cups, fecha), cups);
+        return true;
+    }
+}
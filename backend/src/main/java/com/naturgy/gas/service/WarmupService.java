@@ -0,0 +1,191 @@
+package com.naturgy.gas.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naturgy.gas.entity.GasConversionFactor;
+import com.naturgy.gas.entity.GasTariff;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.InvoiceLine;
+import com.naturgy.gas.entity.TaxConfig;
+import com.naturgy.gas.repository.InvoiceLineView;
+import com.naturgy.gas.repository.InvoiceView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional JIT warm-up at startup ({@code gas.warmup.enabled}): on a background thread, runs the
+ * billing arithmetic ({@link BillingCalculator}), PDF rendering and invoice JSON serialization on
+ * in-memory fixtures, so the first real billing run and downloads do not pay for interpreted code.
+ * Nothing is read from or written to the database or the caches, and the renders go to a private
+ * {@link InvoicePdfService} so they do not show up in the gas.pdf metrics.
+ *
+ * Work runs in rounds of {@link #ROUND}; it stops once {@link #STABLE_ROUNDS} consecutive rounds
+ * spent less than {@link #STABLE_COMPILE_SHARE} of their time in the JIT compilers, or after
+ * {@code gas.warmup.max-duration}. As the "warmupService" health contributor it keeps the
+ * readiness probe at 503 until then; the outcome is logged and shown in the probe's details.
+ */
+@Service
+public class WarmupService implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    static final Duration ROUND = Duration.ofMillis(250);
+    static final int STABLE_ROUNDS = 3;
+    static final double STABLE_COMPILE_SHARE = 0.02;
+
+    // fixtures shaped like the sample master data
+    private static final GasTariff TARIFF =
+            new GasTariff("RL1", new BigDecimal("5.00"), new BigDecimal("0.050000"), LocalDate.of(2026, 1, 1));
+    private static final GasConversionFactor FACTOR =
+            new GasConversionFactor("ZONA1", "2026-02", new BigDecimal("1.0"), new BigDecimal("11.5"));
+    private static final TaxConfig IVA = new TaxConfig("IVA", new BigDecimal("0.21"), LocalDate.of(2025, 1, 1));
+    private static final LocalDate PERIOD_START = LocalDate.of(2026, 2, 1);
+    private static final LocalDate PERIOD_END = LocalDate.of(2026, 2, 28);
+
+    public enum State { DISABLED, PENDING, RUNNING, COMPLETE }
+
+    public record WarmupResult(long durationMs, int rounds, long iterations, long compilationMs, boolean stable) {}
+
+    private final InvoicePdfService pdfService = new InvoicePdfService(new SimpleMeterRegistry());
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration maxDuration;
+
+    private volatile State state;
+    private volatile WarmupResult result;
+    private volatile String error;
+    private long sink; // keeps the results alive so the work is not optimized away
+
+    public WarmupService(ObjectMapper objectMapper,
+                         @Value("${gas.warmup.enabled:false}") boolean enabled,
+                         @Value("${gas.warmup.max-duration:PT30S}") Duration maxDuration) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxDuration = maxDuration;
+        this.state = enabled ? State.PENDING : State.DISABLED;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) return;
+        Thread t = new Thread(this::warmUp, "jit-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public WarmupResult warmUp() {
+        state = State.RUNNING;
+        try {
+            result = runRounds();
+            log.info("JIT warm-up {} in {} ms: rounds={}, iterations={}, compilation={} ms",
+                    result.stable() ? "stabilized" : "stopped at gas.warmup.max-duration",
+                    result.durationMs(), result.rounds(), result.iterations(), result.compilationMs());
+            return result;
+        } catch (RuntimeException e) {
+            // a failed warm-up only costs speed; it must not keep the instance out of rotation
+            error = String.valueOf(e.getMessage());
+            log.warn("JIT warm-up failed, continuing without it", e);
+            return null;
+        } finally {
+            state = State.COMPLETE;
+        }
+    }
+
+    public State state() {
+        return state;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (state) {
+            case DISABLED, COMPLETE -> Health.up();
+            default -> Health.outOfService();
+        };
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("state", state);
+        details.put("maxDurationMs", maxDuration.toMillis());
+        WarmupResult r = result;
+        if (r != null) {
+            details.put("durationMs", r.durationMs());
+            details.put("rounds", r.rounds());
+            details.put("iterations", r.iterations());
+            details.put("compilationMs", r.compilationMs());
+            details.put("stable", r.stable());
+        }
+        if (error != null) details.put("error", error);
+        return builder.withDetails(details).build();
+    }
+
+    // -------------------------------------------------------------------------
+
+    private WarmupResult runRounds() {
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean measurable = jit != null && jit.isCompilationTimeMonitoringSupported();
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        long compileStart = measurable ? jit.getTotalCompilationTime() : 0;
+        long iterations = 0;
+        int rounds = 0, quiet = 0;
+
+        while (System.nanoTime() < deadline && quiet < STABLE_ROUNDS) {
+            long roundStart = System.nanoTime();
+            long roundEnd = Math.min(deadline, roundStart + ROUND.toNanos());
+            long compileBefore = measurable ? jit.getTotalCompilationTime() : 0;
+            while (System.nanoTime() < roundEnd) {
+                iteration(iterations++);
+            }
+            rounds++;
+            if (measurable) {
+                long compileMs = jit.getTotalCompilationTime() - compileBefore;
+                long roundMs = (System.nanoTime() - roundStart) / 1_000_000;
+                quiet = compileMs <= roundMs * STABLE_COMPILE_SHARE ? quiet + 1 : 0;
+            }
+        }
+        long compilationMs = measurable ? jit.getTotalCompilationTime() - compileStart : -1;
+        return new WarmupResult((System.nanoTime() - start) / 1_000_000, rounds, iterations, compilationMs,
+                quiet >= STABLE_ROUNDS);
+    }
+
+    /** One synthetic invoice through calculation, PDF and JSON; inputs vary so nothing is constant. */
+    private void iteration(long i) {
+        String cups = "ES00210000WARMUP" + (i % 1000);
+        BigDecimal m3 = BigDecimal.valueOf(100 + i % 900, 0).add(BigDecimal.valueOf(i % 1000, 3));
+        BillingCalculator.Amounts amounts = BillingCalculator.calculate(m3, FACTOR, TARIFF, IVA, 28);
+        Invoice invoice = BillingCalculator.invoice("GAS-202602-" + cups + "-001", cups, PERIOD_START, PERIOD_END,
+                amounts, TARIFF, IVA, PERIOD_END);
+
+        byte[] pdf = pdfService.generatePdf(invoice);
+
+        List<InvoiceLineView> lines = new ArrayList<>(invoice.getLines().size());
+        long lineId = i * 4;
+        for (InvoiceLine l : invoice.getLines()) {
+            lines.add(new InvoiceLineView(i, lineId++, l.getTipo(), l.getDescripcion(), l.getCantidad(),
+                    l.getPrecioUnitario(), l.getImporte()));
+        }
+        InvoiceView view = new InvoiceView(i, invoice.getNumeroFactura(), cups, PERIOD_START, PERIOD_END,
+                amounts.base(), amounts.impuestos(), amounts.total(), PERIOD_END, lines);
+        try {
+            sink += pdf.length + objectMapper.writeValueAsBytes(view).length;
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.service.ReadingArchiveService;
+import com.naturgy.gas.service.ReadingLookupService;
+import com.naturgy.gas.service.ReadingLookupService.AsOfQuery;
+import com.naturgy.gas.service.ReadingLookupService.AsOfResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Batched as-of lookup: one query per slice, results in request order, found=false for
+ * unknown CUPS and dates before the first reading, duplicates answered each time.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:asoflookuptest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.lookup.max-items=5"
+})
+@AutoConfigureMockMvc
+class AsOfLookupTest {
+
+    private static final String AA = "ES0021000000001AA";
+    private static final String BB = "ES0021000000002BB";
+
+    @Autowired MockMvc mvc;
+    @Autowired DataSource dataSource;
+    @Autowired ReadingArchiveService archiveService;
+
+    @Test
+    void each_slice_is_one_query_and_results_keep_request_order() {
+        AtomicInteger queries = new AtomicInteger();
+        JdbcTemplate counting = new JdbcTemplate(dataSource) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch, Object... args) {
+                queries.incrementAndGet();
+                super.query(sql, rch, args);
+            }
+        };
+        ReadingLookupService service = new ReadingLookupService(counting, archiveService, 2);
+
+        List<AsOfResult> results = resolve(service,
+                new AsOfQuery(AA, LocalDate.of(2026, 2, 15)),
+                new AsOfQuery(BB, LocalDate.of(2026, 3, 1)),
+                new AsOfQuery(AA, LocalDate.of(2026, 1, 31)),
+                new AsOfQuery(BB, LocalDate.of(2026, 1, 1)),
+                new AsOfQuery(AA, LocalDate.of(2030, 1, 1)));
+
+        assertEquals(3, queries.get(), "5 pairs in slices of 2");
+        assertEquals(List.of(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 2, 28), LocalDate.of(2026, 1, 31),
+                        LocalDate.of(2025, 12, 31), LocalDate.of(2026, 2, 28)),
+                results.stream().map(AsOfResult::fecha).toList());
+        assertEquals(0, results.get(1).lecturaM3().compareTo(new BigDecimal("980.20")));
+        assertEquals(GasReading.TipoEnum.ESTIMADA, results.get(1).tipo());
+        assertEquals(BB, results.get(3).cups());
+        assertEquals(LocalDate.of(2026, 1, 1), results.get(3).date());
+    }
+
+    @Test
+    void unknown_cups_and_dates_before_the_first_reading_are_not_found() {
+        ReadingLookupService service = new ReadingLookupService(new JdbcTemplate(dataSource), archiveService, 1000);
+
+        List<AsOfResult> results = resolve(service,
+                new AsOfQuery("ES0021000000999XX", LocalDate.of(2026, 2, 28)),
+                new AsOfQuery(AA, LocalDate.of(2025, 12, 30)),
+                new AsOfQuery(AA, LocalDate.of(2025, 12, 31)));
+
+        assertEquals(3, results.size());
+        assertFalse(results.get(0).found());
+        assertEquals("ES0021000000999XX", results.get(0).cups());
+        assertNull(results.get(0).fecha());
+        assertFalse(results.get(1).found());
+        assertNull(results.get(1).lecturaM3());
+        assertTrue(results.get(2).found());
+        assertEquals(LocalDate.of(2025, 12, 31), results.get(2).fecha());
+    }
+
+    @Test
+    void duplicate_queries_are_answered_each_time() {
+        ReadingLookupService service = new ReadingLookupService(new JdbcTemplate(dataSource), archiveService, 1000);
+        AsOfQuery q = new AsOfQuery(AA, LocalDate.of(2026, 2, 1));
+
+        List<AsOfResult> results = resolve(service, q, new AsOfQuery(BB, LocalDate.of(2026, 2, 1)), q);
+
+        assertEquals(3, results.size());
+        assertEquals(results.get(0), results.get(2));
+        assertEquals(LocalDate.of(2026, 1, 31), results.get(0).fecha());
+    }
+
+    @Test
+    void endpoint_streams_one_entry_per_pair_for_both_request_shapes() throws Exception {
+        var items = mvc.perform(post("/api/gas/readings/as-of").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": [{\"cups\": \"" + BB + "\", \"date\": \"2026-02-27\"},"
+                                + " {\"cups\": \"ES0021000000999XX\", \"date\": \"2026-02-27\"}]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(items))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].fecha", is("2026-01-31")))
+                .andExpect(jsonPath("$[1].found", is(false)));
+
+        var shared = mvc.perform(post("/api/gas/readings/as-of").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\": \"2026-02-28\", \"cups\": [\"" + AA + "\", \"" + AA + "\"]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(shared))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].lecturaM3", contains(1325.80, 1325.80)));
+    }
+
+    @Test
+    void endpoint_rejects_incomplete_or_oversized_requests() throws Exception {
+        mvc.perform(post("/api/gas/readings/as-of").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cups\": [\"" + AA + "\"]}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/gas/readings/as-of").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\": [{\"cups\": \"" + AA + "\"}]}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/gas/readings/as-of").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"date\": \"2026-02-28\", \"cups\": [\"A\", \"B\", \"C\", \"D\", \"E\", \"F\"]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static List<AsOfResult> resolve(ReadingLookupService service, AsOfQuery... queries) {
+        List<AsOfResult> results = new ArrayList<>();
+        service.resolve(List.of(queries), results::add);
+        return results;
+    }
+}
@@ -0,0 +1,80 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.Invoice;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Batch fetch resolves many ids with a fixed number of IN queries and reports missing ids apart.
+ */
+@TestPropertySource(properties = {
+        "gas.test.db=batchfetchtest",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "gas.batch.max-items=3"
+})
+@AutoConfigureMockMvc
+class BatchFetchTest extends BilledPeriodTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired EntityManagerFactory emf;
+
+    private Statistics stats;
+    private List<Long> ids;
+
+    @BeforeEach
+    void resetStatistics() {
+        ids = periodInvoices().stream().map(Invoice::getId).toList();
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void invoices_with_lines_cost_headers_and_one_lines_query() throws Exception {
+        long first = ids.get(0), last = ids.get(ids.size() - 1);
+        mvc.perform(post("/api/gas/invoices/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + last + ", 999999, " + first + ", " + last + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found.*", hasSize(2)))
+                .andExpect(jsonPath("$.found['" + first + "'].numeroFactura", startsWith("GAS-202602-")))
+                .andExpect(jsonPath("$.found['" + last + "'].lines", not(empty())))
+                .andExpect(jsonPath("$.missing", contains(999999)));
+        assertEquals(2, stats.getPrepareStatementCount(), "headers + lines");
+        assertEquals(0, stats.getEntityLoadCount(), "projections only, no entities");
+    }
+
+    @Test
+    void supply_points_in_one_query() throws Exception {
+        mvc.perform(post("/api/gas/supply-points/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"ES0021000000003CC\", \"ES0021000000001AA\", \"ES0021000000009ZZ\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found.*.cups", contains("ES0021000000003CC", "ES0021000000001AA")))
+                .andExpect(jsonPath("$.found.ES0021000000001AA.zona", is("ZONA1")))
+                .andExpect(jsonPath("$.missing", contains("ES0021000000009ZZ")));
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void empty_or_oversized_batch_is_rejected() throws Exception {
+        mvc.perform(post("/api/gas/invoices/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/gas/supply-points/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"A\", \"B\", \"C\", \"D\"]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("at most 3")));
+    }
+}
@@ -0,0 +1,44 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.repository.InvoiceRepository;
+import com.naturgy.gas.service.BillingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Base of the tests that work on one billed period: the seed is billed for {@link #PERIOD}
+ * before each test (idempotent; 1AA ZONA1/RL1, 2BB ZONA1/RL2, 3CC ZONA2/RL1) and PDFs are
+ * not pre-rendered. Subclasses name their in-memory database with {@code gas.test.db}, so
+ * deleted invoices and moved supply points stay within one class, and add
+ * {@code @TestPropertySource} properties only where they need other limits.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:${gas.test.db};DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0"
+})
+public abstract class BilledPeriodTest {
+
+    protected static final YearMonth PERIOD = YearMonth.of(2026, 2);
+
+    @Autowired protected BillingService billingService;
+    @Autowired protected InvoiceRepository invoiceRepo;
+
+    @BeforeEach
+    void billPeriod() {
+        billingService.runBillingForPeriod(PERIOD.toString());
+    }
+
+    /** Invoices of {@link #PERIOD}, in id order. */
+    protected List<Invoice> periodInvoices() {
+        return invoiceRepo.findAll().stream()
+                .filter(i -> YearMonth.from(i.getPeriodoInicio()).equals(PERIOD))
+                .sorted(Comparator.comparing(Invoice::getId))
+                .toList();
+    }
+}
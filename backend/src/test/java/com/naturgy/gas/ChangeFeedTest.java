@@ -0,0 +1,174 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.entity.ChangeLogEntry.EntityType;
+import com.naturgy.gas.entity.ChangeLogEntry.Operation;
+import com.naturgy.gas.repository.ChangeLogRepository;
+import com.naturgy.gas.repository.InvoiceRepository;
+import com.naturgy.gas.service.BillingService;
+import com.naturgy.gas.service.ChangeLogService;
+import com.naturgy.gas.service.ReadingImportService;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The change feed lists committed invoice / reading changes in cursor order, never lets a
+ * consumer skip an entry of a transaction still in flight, and refuses purged cursors while
+ * telling a new consumer where the retained log starts.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:changefeedtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0",
+        "gas.changes.retention=PT0S"
+})
+@AutoConfigureMockMvc
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ChangeFeedTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired BillingService billingService;
+    @Autowired ReadingImportService importService;
+    @Autowired InvoiceRepository invoiceRepo;
+    @Autowired ChangeLogService changeLog;
+    @Autowired TransactionTemplate tx;
+    @Autowired ChangeLogRepository changeLogRepo;
+    @Autowired JdbcTemplate jdbc;
+
+    private List<ChangeLogEntry> all() {
+        return changeLog.read(0, 1000).entries();
+    }
+
+    @Test
+    @Order(1)
+    void billing_readings_and_deletes_are_fed() throws Exception {
+        billingService.runBillingForPeriod("2026-02");
+        mvc.perform(post("/api/gas/readings").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cups\":\"ES0021000000001AA\",\"fecha\":\"2026-03-31\",\"lecturaM3\":1400,\"tipo\":\"REAL\"}"))
+                .andExpect(status().isCreated());
+        importService.importCsv(new ByteArrayInputStream("""
+                cups,fecha,lectura_m3,tipo
+                ES0021000000002BB,2026-03-31,900,REAL
+                ES0021000000002BB,2026-03-31,901,REAL
+                """.getBytes(StandardCharsets.UTF_8)));
+        Long deleted = invoiceRepo.findAll().get(0).getId();
+        mvc.perform(delete("/api/gas/invoices/{id}", deleted)).andExpect(status().isNoContent());
+
+        List<ChangeLogEntry> entries = all();
+        assertEquals(3, entries.stream().filter(e -> e.getEntityType() == EntityType.INVOICE
+                && e.getOperation() == Operation.CREATED).count());
+        assertEquals(List.of("ES0021000000001AA/2026-03-31", "ES0021000000002BB/2026-03-31"),
+                entries.stream().filter(e -> e.getEntityType() == EntityType.READING).map(ChangeLogEntry::getEntityKey).toList(),
+                "duplicate import row is not fed");
+        ChangeLogEntry last = entries.get(entries.size() - 1);
+        assertEquals(Operation.DELETED, last.getOperation());
+        assertEquals(String.valueOf(deleted), last.getEntityKey());
+
+        long cursor = 0;
+        int seen = 0;
+        ChangeLogService.ChangePage page;
+        do {
+            page = changeLog.read(cursor, 2);
+            assertTrue(page.entries().stream().allMatch(e -> e.getId() > 0));
+            seen += page.entries().size();
+            cursor = page.nextCursor();
+        } while (page.hasMore());
+        assertEquals(entries.size(), seen);
+        assertEquals(last.getId(), cursor);
+
+        mvc.perform(get("/api/gas/changes").param("after", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").value(cursor));
+    }
+
+    @Test
+    @Order(2)
+    void feed_stops_below_an_open_transaction() throws Exception {
+        long start = changeLog.read(0, 1000).nextCursor();
+        tx.executeWithoutResult(status -> {
+            changeLog.record(EntityType.INVOICE, Operation.UPDATED, "open", null);
+            // a later entry commits while this one is still in flight
+            CompletableFuture.runAsync(() -> tx.executeWithoutResult(s ->
+                    changeLog.record(EntityType.INVOICE, Operation.UPDATED, "committed", null))).join();
+            List<ChangeLogEntry> visible = CompletableFuture.supplyAsync(() -> changeLog.read(start, 100).entries()).join();
+            assertTrue(visible.isEmpty(), "must not expose an id above an open writer's");
+        });
+        assertEquals(List.of("open", "committed"),
+                changeLog.read(start, 100).entries().stream().map(ChangeLogEntry::getEntityKey).toList());
+
+        assertThrows(IllegalTransactionStateException.class,
+                () -> changeLog.record(EntityType.INVOICE, Operation.UPDATED, "no-tx", null));
+    }
+
+    @Test
+    @Order(3)
+    void purged_cursor_is_gone() throws Exception {
+        long last = changeLog.read(0, 1000).nextCursor();
+        ChangeLogService.PurgeResult purged = changeLog.purge();
+        assertEquals(last, purged.purgedThrough());
+        assertTrue(purged.deleted() > 0);
+
+        mvc.perform(get("/api/gas/changes").param("after", "0"))
+                .andExpect(status().isGone());
+        mvc.perform(get("/api/gas/changes").param("after", String.valueOf(last)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @Order(4)
+    void purged_cursor_stays_gone_after_a_restart() {
+        long last = changeLogRepo.maxId();
+        tx.executeWithoutResult(status -> changeLog.record(EntityType.INVOICE, Operation.UPDATED, "kept", null));
+
+        // a fresh instance only knows what is in the database, as after a restart
+        ChangeLogService restarted = new ChangeLogService(changeLogRepo, jdbc, Duration.ofDays(7), 1000);
+        ResponseStatusException gone = assertThrows(ResponseStatusException.class, () -> restarted.read(0, 10));
+        assertEquals(HttpStatus.GONE, gone.getStatusCode());
+        assertEquals(List.of("kept"),
+                restarted.read(last, 10).entries().stream().map(ChangeLogEntry::getEntityKey).toList());
+    }
+
+    @Test
+    @Order(5)
+    void new_consumer_bootstraps_from_the_head_after_a_purge() throws Exception {
+        mvc.perform(get("/api/gas/changes").param("after", "0"))
+                .andExpect(status().isGone());
+
+        ChangeLogService.FeedBounds bounds = changeLog.bounds();
+        assertTrue(bounds.purgedThrough() > 0);
+        mvc.perform(get("/api/gas/changes/head"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.purgedThrough").value(bounds.purgedThrough()))
+                .andExpect(jsonPath("$.head").value(bounds.head()));
+
+        mvc.perform(get("/api/gas/changes").param("after", String.valueOf(bounds.purgedThrough())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries[0].entityKey").value("kept"))
+                .andExpect(jsonPath("$.nextCursor").value(bounds.head()));
+        mvc.perform(get("/api/gas/changes").param("after", String.valueOf(bounds.head())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries").isEmpty());
+    }
+}
@@ -0,0 +1,92 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.service.BillingService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Invoice listing uses projections: the number of SQL statements per page does not depend on
+ * the number of invoices or lines (no N+1 through lazy lines during serialization).
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:invoicelistingtest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "gas.pdf-cache.prerender-threads=0"
+})
+@AutoConfigureMockMvc
+class InvoiceListingTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired BillingService billingService;
+    @Autowired EntityManagerFactory emf;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void billAndResetStatistics() {
+        billingService.runBillingForPeriod("2026-02"); // 3 invoices, idempotent
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void page_with_lines_costs_count_headers_and_one_lines_query() throws Exception {
+        mvc.perform(get("/api/gas/invoices").param("page", "0").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].numeroFactura", startsWith("GAS-202602-")))
+                .andExpect(jsonPath("$[0].lines", hasSize(greaterThanOrEqualTo(3))))
+                .andExpect(jsonPath("$[0].lines[0].tipo").exists())
+                .andExpect(jsonPath("$[0].lines[0].invoiceId").doesNotExist())
+                .andExpect(jsonPath("$[1].lines", not(empty())));
+        assertEquals(3, stats.getPrepareStatementCount(), "count + headers + lines");
+        assertEquals(0, stats.getEntityLoadCount(), "projections only, no entities");
+    }
+
+    @Test
+    void headers_only_skips_the_lines_query() throws Exception {
+        mvc.perform(get("/api/gas/invoices").param("size", "2").param("lines", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].lines").value(nullValue()));
+        assertEquals(2, stats.getPrepareStatementCount(), "count + headers");
+    }
+
+    @Test
+    void filters_by_period_range_zona_and_cups() throws Exception {
+        mvc.perform(get("/api/gas/invoices").param("from", "2026-01").param("to", "2026-02"))
+                .andExpect(header().string("X-Total-Count", "3"));
+        mvc.perform(get("/api/gas/invoices").param("period", "2026-03"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mvc.perform(get("/api/gas/invoices").param("zona", "NO-SUCH-ZONA"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mvc.perform(get("/api/gas/invoices").param("cups", "ES0021000000001AA").param("period", "2026-02"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].cups").value("ES0021000000001AA"));
+        mvc.perform(get("/api/gas/invoices").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void detail_is_a_projection_with_lines() throws Exception {
+        mvc.perform(get("/api/gas/invoices/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.lines", not(empty())));
+        assertEquals(2, stats.getPrepareStatementCount(), "header + lines");
+        mvc.perform(get("/api/gas/invoices/999999")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,120 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.repository.InvoiceRepository;
+import com.naturgy.gas.service.BillingService;
+import com.naturgy.gas.service.InvoicePdfCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Single-invoice responses: repeated GETs and 304 revalidations do not reach the database,
+ * gzip variants decode to the identity body, and deletion invalidates.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:responsecachetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "gas.pdf-cache.prerender-threads=0"
+})
+@AutoConfigureMockMvc
+class InvoiceResponseCacheTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired BillingService billingService;
+    @Autowired InvoiceRepository invoiceRepo;
+    @Autowired EntityManagerFactory emf;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void bill() {
+        billingService.runBillingForPeriod("2026-02"); // idempotent
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Long anyInvoiceId() {
+        return invoiceRepo.findAll().get(0).getId();
+    }
+
+    @Test
+    void json_is_served_from_cache_and_revalidated_with_304() throws Exception {
+        Long id = anyInvoiceId();
+        MockHttpServletResponse first = mvc.perform(get("/api/gas/invoices/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(jsonPath("$.id").value(id))
+                .andReturn().getResponse();
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\"") && !etag.startsWith("W/"), "strong ETag: " + etag);
+
+        stats.clear();
+        MockHttpServletResponse second = mvc.perform(get("/api/gas/invoices/{id}", id))
+                .andExpect(status().isOk()).andReturn().getResponse();
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        mvc.perform(get("/api/gas/invoices/{id}", id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        assertEquals(0, stats.getPrepareStatementCount(), "hits never reach the database");
+
+        mvc.perform(get("/api/gas/invoices/{id}", id).param("lines", "false"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.lines").doesNotExist());
+    }
+
+    @Test
+    void gzip_variant_decodes_to_the_identity_body() throws Exception {
+        Long id = anyInvoiceId();
+        byte[] identity = mvc.perform(get("/api/gas/invoices/{id}/pdf", id))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MockHttpServletResponse gz = mvc.perform(get("/api/gas/invoices/{id}/pdf", id)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse();
+        byte[] compressed = gz.getContentAsByteArray();
+        assertTrue(compressed.length < identity.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(identity, in.readAllBytes());
+        }
+
+        Invoice invoice = invoiceRepo.findWithLinesById(id).orElseThrow();
+        assertEquals("\"" + InvoicePdfCache.contentHash(invoice) + "-gzip\"", gz.getHeader(HttpHeaders.ETAG));
+
+        mvc.perform(get("/api/gas/invoices/{id}/pdf", id).header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void delete_invalidates() throws Exception {
+        Long id = anyInvoiceId();
+        mvc.perform(get("/api/gas/invoices/{id}", id)).andExpect(status().isOk());
+        mvc.perform(get("/api/gas/invoices/{id}/pdf", id)).andExpect(status().isOk());
+
+        mvc.perform(delete("/api/gas/invoices/{id}", id)).andExpect(status().isNoContent());
+        mvc.perform(get("/api/gas/invoices/{id}", id)).andExpect(status().isNotFound());
+        mvc.perform(get("/api/gas/invoices/{id}/pdf", id)).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,129 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.SupplyPoint;
+import com.naturgy.gas.repository.GasConversionFactorRepository;
+import com.naturgy.gas.repository.GasTariffRepository;
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Bulk master data import: upserts by natural key in chunks, per-row error report and
+ * all-or-nothing rollback.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:masterimporttest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0",
+        "gas.master-import.chunk-size=2"
+})
+@AutoConfigureMockMvc
+class MasterDataImportTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired SupplyPointRepository supplyPointRepo;
+    @Autowired GasTariffRepository tariffRepo;
+    @Autowired GasConversionFactorRepository factorRepo;
+
+    @Test
+    void csv_upserts_valid_rows_and_reports_the_others() throws Exception {
+        String csv = """
+                cups,zona,tarifa,estado
+                ES0021000000004DD,ZONA2,RL2,ACTIVO
+                ES0021000000001AA,ZONA1,RL1,INACTIVO
+                ES0021000000005EE,ZONA1,RL1,BORRADO
+                ES0021000000006FF,ZONA1
+                ES0021000000007GG,ZONA2,RL1,ACTIVO
+                """;
+        mvc.perform(post("/api/gas/supply-points/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows", is(5)))
+                .andExpect(jsonPath("$.inserted", is(2)))
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.rejected", is(2)))
+                .andExpect(jsonPath("$.committed", is(true)))
+                .andExpect(jsonPath("$.errors", contains(
+                        startsWith("Row 4: invalid estado"), startsWith("Row 5: expected 4 columns"))));
+
+        assertEquals(SupplyPoint.EstadoEnum.INACTIVO,
+                supplyPointRepo.findById("ES0021000000001AA").orElseThrow().getEstado());
+        assertEquals("RL2", supplyPointRepo.findById("ES0021000000004DD").orElseThrow().getTarifa());
+        assertTrue(supplyPointRepo.existsById("ES0021000000007GG"));
+        assertFalse(supplyPointRepo.existsById("ES0021000000005EE"));
+    }
+
+    @Test
+    void all_or_nothing_rolls_back_when_any_row_is_invalid() throws Exception {
+        long tariffs = tariffRepo.count();
+        String json = """
+                [ {"tarifa": "RL7", "fijoMesEur": 9.5, "variableEurKwh": 0.061234, "vigenciaDesde": "2026-01-01"},
+                  {"tarifa": "RL8", "fijoMesEur": 9.5, "variableEurKwh": 0.06, "vigenciaDesde": "2026-01-01"},
+                  {"tarifa": "RL9", "fijoMesEur": -1, "variableEurKwh": 0.06, "vigenciaDesde": "2026-01-01"} ]
+                """;
+        mvc.perform(post("/api/gas/tariffs/import").param("allOrNothing", "true")
+                        .contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.committed", is(false)))
+                .andExpect(jsonPath("$.inserted", is(0)))
+                .andExpect(jsonPath("$.errors", contains("Item 3: fijo_mes_eur < 0")));
+        assertEquals(tariffs, tariffRepo.count(), "first chunk rolled back too");
+
+        mvc.perform(post("/api/gas/tariffs/import").param("allOrNothing", "true")
+                        .contentType(MediaType.APPLICATION_JSON).content(json.replace("-1", "9.5")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted", is(3)));
+        assertEquals(tariffs + 3, tariffRepo.count());
+    }
+
+    @Test
+    void json_decimals_are_taken_literally_and_reruns_update() throws Exception {
+        String json = """
+                [{"zona": "ZONA3", "mes": "2026-03", "coefConv": 1.000123, "pcsKwhM3": 11.7, "extra": {"x": 1}}]
+                """;
+        mvc.perform(post("/api/gas/conversion-factors/import").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(jsonPath("$.inserted", is(1)));
+        mvc.perform(post("/api/gas/conversion-factors/import").contentType(MediaType.APPLICATION_JSON)
+                        .content(json.replace("11.7", "11.8")))
+                .andExpect(jsonPath("$.inserted", is(0)))
+                .andExpect(jsonPath("$.updated", is(1)));
+        var factor = factorRepo.findByZonaAndMes("ZONA3", "2026-03").orElseThrow();
+        assertEquals(0, new BigDecimal("1.000123").compareTo(factor.getCoefConv()));
+        assertEquals(0, new BigDecimal("11.8").compareTo(factor.getPcsKwhM3()));
+
+        mvc.perform(post("/api/gas/taxes/import").contentType(MediaType.APPLICATION_JSON).content("[{\"taxCode\": "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void truncated_json_keeps_the_rows_before_it_and_reports_the_break() throws Exception {
+        String json = """
+                [ {"cups": "ES0021000000008HH", "zona": "ZONA1", "tarifa": "RL1", "estado": "ACTIVO"},
+                  {"cups": "ES0021000000009II", "zona": "ZONA1", "tarifa": "RL1", "estado": " "},
+                  {"cups": "ES0021000000008HH", "zona": "ZONA2", "tarifa": "RL1", "estado": "ACTIVO"},
+                  {"cups": "ES0021000000010JJ", "zona": "ZONA1", "tarifa": "RL1", "estado": "ACTIVO"},
+                  {"cups": "ES00210000000
+                """;
+        mvc.perform(post("/api/gas/supply-points/import").contentType(MediaType.APPLICATION_JSON).content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows", is(4)))
+                .andExpect(jsonPath("$.inserted", is(2)))
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.committed", is(true)))
+                .andExpect(jsonPath("$.errors", contains(
+                        is("Item 2: estado must not be blank"), startsWith("Malformed JSON"))));
+
+        assertEquals("ZONA2", supplyPointRepo.findById("ES0021000000008HH").orElseThrow().getZona(),
+                "a key repeated within a chunk is applied in input order");
+        assertTrue(supplyPointRepo.existsById("ES0021000000010JJ"));
+    }
+}
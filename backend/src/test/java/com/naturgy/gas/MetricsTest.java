@@ -0,0 +1,137 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.GasConversionFactor;
+import com.naturgy.gas.entity.GasTariff;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.TaxConfig;
+import com.naturgy.gas.service.BillingCalculator;
+import com.naturgy.gas.service.BillingService;
+import com.naturgy.gas.service.InvoicePdfService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Application meters: billing run/stage/error timers and counters, reading import outcomes and
+ * rejection reasons, PDF render latency and size, and the Prometheus scrape endpoint.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricstest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0",
+        "management.endpoints.web.exposure.include=health,info,metrics,prometheus",
+        "management.metrics.distribution.percentiles-histogram.http.server.requests=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsTest {
+
+    private static final String CUPS = "ES0021000000777MT";
+
+    @Autowired MockMvc mvc;
+    @Autowired MeterRegistry meters;
+    @Autowired BillingService billingService;
+    @Autowired InvoicePdfService pdfService;
+
+    @Test
+    void billing_run_records_run_stages_and_errors_by_cause() {
+        long runsBefore = meters.get("gas.billing.run").timer().count();
+        double missingBefore = meters.get("gas.billing.errors").tag("cause", "missing_reading").counter().count();
+
+        BillingService.BillingResult billed = billingService.runBillingForPeriod("2026-02");
+        BillingService.BillingResult empty = billingService.runBillingForPeriod("2019-01");
+
+        assertEquals(runsBefore + 2, meters.get("gas.billing.run").timer().count());
+        assertFalse(billed.invoices().isEmpty(), "2026-02 is billed by this test only");
+        for (String stage : new String[]{"load", "compute", "persist"}) {
+            assertTrue(meters.get("gas.billing.stage").tag("stage", stage).timer().count() > 0, stage);
+        }
+        assertTrue(meters.get("gas.billing.cups").tag("outcome", "billed").timer().count()
+                >= billed.invoices().size());
+
+        long missing = empty.errors().stream()
+                .filter(e -> e.cause() == BillingService.BillingError.Cause.MISSING_READING).count();
+        assertTrue(missing > 0, "no readings before the sample data: " + empty.errors());
+        assertEquals(missingBefore + missing,
+                meters.get("gas.billing.errors").tag("cause", "missing_reading").counter().count());
+    }
+
+    @Test
+    void reading_import_counts_rows_by_outcome_and_rejections_by_reason() throws Exception {
+        String csv = "cups,fecha,lectura_m3,tipo\n"
+                + CUPS + ",2020-01-01,100.000,REAL\n"
+                + CUPS + ",2020-01-01,100.000,REAL\n"      // duplicate
+                + CUPS + ",2020-13-01,101.000,REAL\n"      // invalid date
+                + CUPS + ",2020-01-03,-1.000,REAL\n"       // negative
+                + CUPS + ",2020-01-04,102.000\n";          // 3 columns
+        double rejectedBefore = rows("rejected");
+        double insertedBefore = rows("inserted");
+        double duplicateBefore = rows("duplicate");
+
+        mvc.perform(multipart("/api/gas/readings/import")
+                        .file(new MockMultipartFile("file", "r.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1));
+
+        assertEquals(insertedBefore + 1, rows("inserted"));
+        assertEquals(duplicateBefore + 1, rows("duplicate"));
+        assertEquals(rejectedBefore + 3, rows("rejected"));
+        for (String reason : new String[]{"invalid_date", "negative_lectura", "malformed"}) {
+            assertTrue(meters.get("gas.readings.import.rejected").tags("format", "csv", "reason", reason)
+                    .counter().count() >= 1, reason);
+        }
+        Timer imports = meters.get("gas.readings.import").tag("format", "csv").timer();
+        assertTrue(imports.count() >= 1);
+        assertTrue(meters.get("gas.readings.import.throughput").tag("format", "csv").summary().count() >= 1);
+    }
+
+    @Test
+    void pdf_render_records_latency_and_exact_size() {
+        GasTariff tariff = new GasTariff("RL1", new BigDecimal("5.00"), new BigDecimal("0.050000"), LocalDate.of(2026, 1, 1));
+        TaxConfig iva = new TaxConfig("IVA", new BigDecimal("0.21"), LocalDate.of(2025, 1, 1));
+        BillingCalculator.Amounts amounts = BillingCalculator.calculate(new BigDecimal("123.456"),
+                new GasConversionFactor("ZONA1", "2026-02", new BigDecimal("1.0"), new BigDecimal("11.5")),
+                tariff, iva, 28);
+        Invoice invoice = BillingCalculator.invoice("GAS-202602-" + CUPS + "-001", CUPS,
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28), amounts, tariff, iva, LocalDate.of(2026, 2, 28));
+        long before = meters.get("gas.pdf.render").timer().count();
+        double bytesBefore = meters.get("gas.pdf.size").summary().totalAmount();
+
+        byte[] pdf = pdfService.generatePdf(invoice);
+
+        assertEquals(before + 1, meters.get("gas.pdf.render").timer().count());
+        assertEquals(bytesBefore + pdf.length, meters.get("gas.pdf.size").summary().totalAmount());
+    }
+
+    @Test
+    void prometheus_scrape_exposes_application_and_http_meters() throws Exception {
+        billingService.runBillingForPeriod("2019-02"); // no readings: only errors, nothing to roll back
+        mvc.perform(get("/api/gas/supply-points")).andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("gas_billing_run_seconds_count")))
+                .andExpect(content().string(containsString("gas_billing_cups_seconds_bucket")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")));
+    }
+
+    private double rows(String outcome) {
+        var counter = meters.find("gas.readings.import.rows").tags("format", "csv", "outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
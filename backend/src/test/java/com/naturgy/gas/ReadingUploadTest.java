@@ -0,0 +1,147 @@
+package com.naturgy.gas;
+
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.repository.GasReadingRepository;
+import com.naturgy.gas.service.ReadingImportService;
+import com.naturgy.gas.service.ReadingUploadService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Resumable upload: gzip CSV split into chunks sent out of order → complete → rows imported;
+ * abandoned initiates neither block other uploads nor outlive the idle timeout.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReadingUploadTest {
+
+    private static final String CUPS = "ES0021000000999UP";
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper mapper;
+    @Autowired GasReadingRepository readingRepo;
+    @Autowired ReadingImportService importService;
+
+    @TempDir Path tempDir;
+
+    @AfterEach
+    void cleanup() {
+        readingRepo.deleteAll(readingRepo.findByIdCupsOrderByIdFechaAsc(CUPS));
+    }
+
+    @Test
+    void gzip_chunks_out_of_order_are_imported_in_sequence() throws Exception {
+        StringBuilder csv = new StringBuilder("cups,fecha,lectura_m3,tipo\n");
+        LocalDate d = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 50; i++) {
+            csv.append(CUPS).append(',').append(d.plusDays(i)).append(',').append(100 + i).append(".000,REAL\n");
+        }
+        csv.append(CUPS).append(",not-a-date,1.0,REAL\n");
+        byte[] gz = gzip(csv.toString().getBytes(StandardCharsets.UTF_8));
+        int half = gz.length / 2;
+
+        String body = mvc.perform(post("/api/gas/readings/uploads")
+                        .param("fileName", "readings.csv.gz"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode init = mapper.readTree(body);
+        assertTrue(init.get("gzip").asBoolean());
+        String id = init.get("uploadId").asText();
+
+        mvc.perform(put("/api/gas/readings/uploads/{id}/chunks/{n}", id, 1)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(Arrays.copyOfRange(gz, half, gz.length)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextChunk").value(0));
+
+        // Completing with a gap is rejected and leaves the upload resumable
+        mvc.perform(post("/api/gas/readings/uploads/{id}/complete", id).param("totalChunks", "2"))
+                .andExpect(status().isConflict());
+
+        mvc.perform(put("/api/gas/readings/uploads/{id}/chunks/{n}", id, 0)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(Arrays.copyOfRange(gz, 0, half)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextChunk").value(2));
+
+        mvc.perform(post("/api/gas/readings/uploads/{id}/complete", id).param("totalChunks", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(50))
+                .andExpect(jsonPath("$.errors.length()").value(1));
+
+        assertEquals(50, readingRepo.findByIdCupsOrderByIdFechaAsc(CUPS).size());
+        GasReading last = readingRepo.findById(new GasReading.GasReadingId(CUPS, d.plusDays(49))).orElseThrow();
+        assertEquals(0, last.getLecturaM3().compareTo(new java.math.BigDecimal("149")));
+
+        mvc.perform(get("/api/gas/readings/uploads/{id}", id)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void abandoned_initiates_do_not_hold_consumer_threads() throws Exception {
+        // More abandoned sessions than gas.upload.max-concurrent consumer threads
+        for (int i = 0; i < 6; i++) {
+            mvc.perform(post("/api/gas/readings/uploads").param("fileName", "abandoned-" + i + ".csv"))
+                    .andExpect(status().isCreated());
+        }
+
+        String csv = "cups,fecha,lectura_m3,tipo\n" + CUPS + ",2020-03-01,10.000,REAL\n";
+        String id = mapper.readTree(mvc.perform(post("/api/gas/readings/uploads").param("fileName", "readings.csv"))
+                .andReturn().getResponse().getContentAsString()).get("uploadId").asText();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            mvc.perform(put("/api/gas/readings/uploads/{id}/chunks/{n}", id, 0)
+                            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                            .content(csv.getBytes(StandardCharsets.UTF_8)))
+                    .andExpect(status().isOk());
+            mvc.perform(post("/api/gas/readings/uploads/{id}/complete", id).param("totalChunks", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.inserted").value(1));
+        });
+    }
+
+    @Test
+    void initiated_upload_without_chunks_expires_after_idle_timeout() throws Exception {
+        ReadingUploadService service = new ReadingUploadService(importService,
+                tempDir.toString(), Duration.ZERO, 1);
+        String id = service.initiate("never-sent.csv", false).uploadId();
+        assertTrue(Files.isDirectory(tempDir.resolve(id)));
+
+        service.expireIdleSessions();
+
+        assertFalse(Files.exists(tempDir.resolve(id)));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.status(id));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+}
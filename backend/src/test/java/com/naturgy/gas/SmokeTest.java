@@ -1,6 +1,7 @@
 package com.naturgy.gas;
 
 import com.naturgy.gas.repository.*;
+import com.naturgy.gas.seed.SeedService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -28,6 +29,7 @@ class SmokeTest {
     @Autowired TaxConfigRepository taxConfigRepo;
     @Autowired GasReadingRepository gasReadingRepo;
     @Autowired InvoiceRepository invoiceRepo;
+    @Autowired SeedService seedService;
 
     @Test
     void supplyPoints_count() {
@@ -60,4 +62,14 @@ class SmokeTest {
     void invoices_emptyOnStart() {
         assertTrue(invoiceRepo.count() >= 0, "Invoice table should exist");
     }
+
+    @Test
+    void seed_isIdempotent() {
+        seedService.run(null);
+        assertEquals(3, supplyPointRepo.count());
+        assertEquals(3, gasTariffRepo.count());
+        assertEquals(4, conversionFactorRepo.count());
+        assertEquals(1, taxConfigRepo.count());
+        assertEquals(11, gasReadingRepo.count());
+    }
 }
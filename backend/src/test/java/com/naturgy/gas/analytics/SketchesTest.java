@@ -0,0 +1,79 @@
+package com.naturgy.gas.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the documented error bounds of the consumption sketches, including after merging.
+ */
+class SketchesTest {
+
+    @Test
+    void quantiles_stay_within_relative_accuracy_across_merge() {
+        Random rnd = new Random(42);
+        double[] values = new double[50_000];
+        QuantileSketch a = new QuantileSketch(0.01);
+        QuantileSketch b = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(rnd.nextGaussian() * 1.5 + 6); // long-tailed, like kWh per invoice
+            (i % 2 == 0 ? a : b).add(values[i]);
+        }
+        a.merge(b);
+        Arrays.sort(values);
+
+        assertEquals(values.length, a.count());
+        for (double q : new double[]{0.5, 0.9, 0.95, 0.99}) {
+            double exact = values[(int) (q * (values.length - 1))];
+            assertEquals(exact, a.quantile(q), exact * 0.01, "q=" + q);
+        }
+        assertEquals(values[0], a.min());
+        assertEquals(values[values.length - 1], a.max());
+    }
+
+    @Test
+    void distinct_count_within_three_standard_errors() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            String cups = String.format("ES%018dXX", i);
+            a.add(cups);
+            if (i % 3 == 0) b.add(cups); // overlapping subset must not inflate the merge
+        }
+        a.merge(b);
+        assertEquals(n, a.estimate(), n * 3 * HyperLogLog.STANDARD_ERROR);
+
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 50; i++) small.add("CUPS" + i);
+        assertEquals(50, small.estimate(), 1);
+    }
+
+    @Test
+    void heavy_hitters_are_kept_with_bounded_overestimate() {
+        Random rnd = new Random(7);
+        TopKSketch a = new TopKSketch(32);
+        TopKSketch b = new TopKSketch(32);
+        for (int i = 0; i < 20_000; i++) {
+            TopKSketch target = i % 2 == 0 ? a : b;
+            target.add("small-" + rnd.nextInt(5_000), 10);
+            if (i % 100 == 0) {
+                target.add("big-1", 900);
+                target.add("big-2", 600);
+            }
+        }
+        a.merge(b);
+
+        List<TopKSketch.Item> top = a.top(2);
+        assertEquals("big-1", top.get(0).key());
+        assertEquals("big-2", top.get(1).key());
+        double exactBig1 = 200 * 900;
+        assertTrue(top.get(0).weight() >= exactBig1);
+        assertTrue(top.get(0).weight() - exactBig1 <= a.errorBound());
+        assertEquals(20_000 * 10 + 200 * 1500, a.total(), 1e-6);
+    }
+}
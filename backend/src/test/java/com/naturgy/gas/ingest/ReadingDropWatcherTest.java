@@ -0,0 +1,140 @@
+package com.naturgy.gas.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naturgy.gas.repository.GasReadingBatchWriter;
+import com.naturgy.gas.service.ReadingImportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit test: a file renamed into the watched directory is claimed, imported
+ * and moved to done/ with a report; temp names are ignored; only claims whose
+ * lease expired are taken back from processing/.
+ */
+class ReadingDropWatcherTest {
+
+    @TempDir Path dir;
+
+    private final GasReadingBatchWriter writer = mock(GasReadingBatchWriter.class);
+    private ReadingDropWatcher watcher;
+
+    @BeforeEach
+    void insertEverything() {
+        when(writer.insertIfAbsent(any())).thenAnswer(inv -> {
+            boolean[] inserted = new boolean[inv.<List<?>>getArgument(0).size()];
+            Arrays.fill(inserted, true);
+            return inserted;
+        });
+    }
+
+    @AfterEach
+    void stop() {
+        if (watcher != null) watcher.stop();
+    }
+
+    @Test
+    void completed_drop_is_ingested_and_reported() throws Exception {
+        Files.writeString(dir.resolve("early.csv"),
+                "cups,fecha,lectura_m3,tipo\nES1,2026-01-31,10.5,REAL\n");
+        watcher = new ReadingDropWatcher(new ReadingImportService(writer, event -> {}, new SimpleMeterRegistry(), 500, 1_000_000), new ObjectMapper(), dir.toString(), 2, Duration.ofMinutes(5));
+        watcher.start();
+
+        Path tmp = dir.resolve(".feb.csv.tmp");
+        Files.writeString(tmp, "cups,fecha,lectura_m3,tipo\nES1,2026-02-28,20.0,REAL\nES1,bad,1,REAL\n");
+        Files.move(tmp, dir.resolve("feb.csv"), StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> reports = awaitReports(dir.resolve(ReadingDropWatcher.DONE), 2);
+        JsonNode feb = reports.stream()
+                .map(this::read)
+                .filter(n -> n.get("file").asText().equals("feb.csv"))
+                .findFirst().orElseThrow();
+        assertEquals("DONE", feb.get("status").asText());
+        assertEquals(1, feb.get("inserted").asInt());
+        assertEquals(1, feb.get("errors").size());
+
+        verify(writer, times(2)).insertIfAbsent(any());
+        try (Stream<Path> left = Files.list(dir.resolve(ReadingDropWatcher.PROCESSING))) {
+            assertEquals(0, left.count());
+        }
+        assertFalse(Files.exists(dir.resolve("feb.csv")));
+    }
+
+    @Test
+    void only_claims_with_an_expired_lease_are_recovered() throws Exception {
+        Path processing = Files.createDirectories(dir.resolve(ReadingDropWatcher.PROCESSING));
+        Path live = Files.writeString(processing.resolve("1700000000000-0a1b2c3d-live.csv"), "");
+        Path crashed = Files.writeString(processing.resolve("1700000000000-4e5f6a7b-crashed.csv"), "");
+        Files.setLastModifiedTime(crashed, FileTime.from(Instant.now().minus(Duration.ofMinutes(10))));
+        watcher = new ReadingDropWatcher(new ReadingImportService(writer, event -> {}, new SimpleMeterRegistry(), 500, 1_000_000),
+                new ObjectMapper(), dir.toString(), 1, Duration.ofMinutes(5));
+
+        watcher.recoverExpiredClaims();
+
+        assertTrue(Files.exists(live), "claim still leased by another instance must stay in processing/");
+        assertFalse(Files.exists(crashed));
+        assertTrue(Files.exists(dir.resolve("crashed.csv")));
+    }
+
+    @Test
+    void fresh_claim_with_the_producers_old_mtime_is_not_recovered() throws Exception {
+        Path processing = Files.createDirectories(dir.resolve(ReadingDropWatcher.PROCESSING));
+        // renamed a moment ago by another instance, which has not touched it yet
+        Path claimed = Files.writeString(processing.resolve(System.currentTimeMillis() + "-0a1b2c3d-fresh.csv"), "");
+        Files.setLastModifiedTime(claimed, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        watcher = new ReadingDropWatcher(new ReadingImportService(writer, event -> {}, new SimpleMeterRegistry(), 500, 1_000_000),
+                new ObjectMapper(), dir.toString(), 1, Duration.ofMinutes(5));
+
+        watcher.recoverExpiredClaims();
+
+        assertTrue(Files.exists(claimed), "the lease starts at the claim time in the name");
+        assertFalse(Files.exists(dir.resolve("fresh.csv")));
+    }
+
+    @Test
+    void temp_names_are_not_completed_drops() throws Exception {
+        Path partial = Files.writeString(dir.resolve("x.csv.part"), "");
+        Path hidden = Files.writeString(dir.resolve(".x.csv"), "");
+        assertFalse(ReadingDropWatcher.isCompletedDrop(partial));
+        assertFalse(ReadingDropWatcher.isCompletedDrop(hidden));
+        assertTrue(ReadingDropWatcher.isCompletedDrop(Files.writeString(dir.resolve("x.csv.gz"), "")));
+    }
+
+    private List<Path> awaitReports(Path doneDir, int expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < deadline) {
+            try (Stream<Path> s = Files.list(doneDir)) {
+                List<Path> reports = s.filter(p -> p.toString().endsWith(".report.json")).toList();
+                if (reports.size() >= expected) return reports;
+            }
+            Thread.sleep(100);
+        }
+        fail("Timed out waiting for " + expected + " ingest reports");
+        return List.of();
+    }
+
+    private JsonNode read(Path p) {
+        try {
+            return new ObjectMapper().readTree(p.toFile());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
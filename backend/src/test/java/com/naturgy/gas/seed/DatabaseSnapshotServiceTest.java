@@ -0,0 +1,71 @@
+package com.naturgy.gas.seed;
+
+import com.naturgy.gas.entity.SupplyPoint;
+import com.naturgy.gas.repository.GasReadingRepository;
+import com.naturgy.gas.repository.SeedManifestRepository;
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The seed records what it loaded; a snapshot restores the database, manifest included, so the
+ * seed has nothing left to load afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshottest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0"
+})
+class DatabaseSnapshotServiceTest {
+
+    @TempDir static Path snapshots;
+
+    @DynamicPropertySource
+    static void snapshotDir(DynamicPropertyRegistry registry) {
+        registry.add("gas.snapshot.dir", snapshots::toString);
+        registry.add("gas.snapshot.restore-from", () -> DatabaseSnapshotService.LATEST);
+    }
+
+    @Autowired DatabaseSnapshotService snapshotService;
+    @Autowired SeedService seedService;
+    @Autowired SeedManifestRepository manifestRepo;
+    @Autowired SupplyPointRepository supplyPointRepo;
+    @Autowired GasReadingRepository readingRepo;
+
+    @Test
+    void snapshot_restores_data_and_manifest() {
+        assertEquals(5, manifestRepo.count(), "one manifest entry per seed file");
+        assertTrue(snapshotService.configuredRestore().isEmpty(), "no snapshot yet");
+
+        DatabaseSnapshotService.SnapshotResult snapshot = snapshotService.snapshot();
+        assertTrue(Files.isRegularFile(Path.of(snapshot.file())));
+        assertEquals(Path.of(snapshot.file()), snapshotService.configuredRestore().orElseThrow());
+
+        supplyPointRepo.save(new SupplyPoint("ES0021000000009ZZ", "ZONA9", "RL1", SupplyPoint.EstadoEnum.ACTIVO));
+        readingRepo.deleteAll();
+        manifestRepo.deleteAll();
+
+        snapshotService.restore(Path.of(snapshot.file()));
+        assertEquals(3, supplyPointRepo.count());
+        assertEquals(11, readingRepo.count());
+        assertEquals(5, manifestRepo.count());
+
+        supplyPointRepo.save(new SupplyPoint("ES0021000000009ZZ", "ZONA9", "RL1", SupplyPoint.EstadoEnum.ACTIVO));
+        seedService.run(null); // manifest present: no restore, every file unchanged
+        assertEquals(4, supplyPointRepo.count());
+
+        // the startup restore runs from the context's singleton phase, before the web server starts
+        manifestRepo.deleteAll();
+        seedService.afterSingletonsInstantiated();
+        assertEquals(3, supplyPointRepo.count());
+        assertEquals(5, manifestRepo.count());
+    }
+}
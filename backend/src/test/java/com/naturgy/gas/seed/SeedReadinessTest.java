@@ -0,0 +1,96 @@
+package com.naturgy.gas.seed;
+
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Background seed: the context starts before the CSVs are loaded, readiness reports progress and
+ * is 503 until done, liveness is always UP, and writes are rejected while reads go through.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:seedreadinesstest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0",
+        "gas.seed.async=true",
+        "management.endpoint.health.probes.enabled=true",
+        "management.endpoint.health.group.readiness.include=readinessState,seedProgress,warmupService",
+        "management.endpoint.health.group.readiness.show-details=always"
+})
+@AutoConfigureMockMvc
+class SeedReadinessTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired SeedProgress progress;
+    @Autowired SupplyPointRepository supplyPointRepo;
+    @Autowired SeedService seedService;
+
+    @AfterEach
+    void reseed() {
+        seedService.seed(); // every file unchanged: only resets the progress to 5/5
+    }
+
+    private void awaitSeed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!progress.isComplete() && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        assertTrue(progress.isComplete(), "seed finished in the background");
+    }
+
+    @Test
+    void background_seed_completes_and_turns_ready() throws Exception {
+        awaitSeed();
+        assertEquals(3, supplyPointRepo.count());
+
+        mvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("UP")))
+                .andExpect(jsonPath("$.components.seedProgress.details.filesDone", is(5)));
+    }
+
+    @Test
+    void while_seeding_writes_are_503_and_reads_pass() throws Exception {
+        awaitSeed();
+        progress.start(5);
+        progress.fileDone();
+        progress.rowsInserted(3);
+
+        mvc.perform(get("/actuator/health/liveness")).andExpect(status().isOk());
+        mvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status", is("OUT_OF_SERVICE")))
+                .andExpect(jsonPath("$.components.seedProgress.details.state", is("SEEDING")))
+                .andExpect(jsonPath("$.components.seedProgress.details.filesDone", is(1)))
+                .andExpect(jsonPath("$.components.seedProgress.details.filesTotal", is(5)));
+
+        mvc.perform(post("/api/gas/billing/run").param("period", "2026-02"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.error", containsString("1/5 files, 3 rows")));
+        mvc.perform(post("/api/gas/supply-points").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"cups\": \"ES0021000000008HH\", \"zona\": \"ZONA1\", \"tarifa\": \"RL1\", \"estado\": \"ACTIVO\"}"))
+                .andExpect(status().isServiceUnavailable());
+
+        mvc.perform(get("/api/gas/supply-points")).andExpect(status().isOk());
+        mvc.perform(post("/api/gas/supply-points/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"ES0021000000001AA\"]"))
+                .andExpect(status().isOk());
+
+        progress.fail(new IllegalStateException("boom"));
+        mvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.components.seedProgress.details.error", is("boom")));
+        mvc.perform(post("/api/gas/billing/run").param("period", "2026-02"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error", containsString("seed failed")));
+    }
+}
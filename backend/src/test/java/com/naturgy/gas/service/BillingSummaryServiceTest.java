@@ -0,0 +1,110 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.BilledPeriodTest;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.SupplyPoint;
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * billing_summary follows billing and deletion transactionally and matches a full recomputation.
+ */
+@TestPropertySource(properties = "gas.test.db=billingsummarytest")
+class BillingSummaryServiceTest extends BilledPeriodTest {
+
+    @Autowired BillingSummaryService summaryService;
+    @Autowired InvoiceDeletionService deletionService;
+    @Autowired SupplyPointRepository supplyPointRepo;
+
+    private BillingSummaryService.SummaryReport report() {
+        return summaryService.report(PERIOD, PERIOD, null, null);
+    }
+
+    private long invoices(String zona, String tarifa) {
+        return summaryService.report(PERIOD, PERIOD, zona, tarifa).total().invoices();
+    }
+
+    private static BigDecimal sum(List<Invoice> invoices) {
+        return invoices.stream().map(Invoice::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Test
+    void summary_matches_invoices_and_follows_deletion() {
+        List<Invoice> invoices = periodInvoices();
+        BillingSummaryService.SummaryReport before = report();
+        assertEquals(3, before.rows().size(), "one row per zona x tarifa");
+        assertEquals(invoices.size(), before.total().invoices());
+        assertEquals(0, sum(invoices).compareTo(before.total().sumTotal()));
+        assertEquals(PERIOD, before.total().period());
+        assertNull(before.total().zona(), "mixed zonas");
+        assertEquals(2, summaryService.report(PERIOD, PERIOD, "ZONA1", null).rows().size());
+
+        Invoice biggest = invoices.stream().max(Comparator.comparing(Invoice::getTotal)).orElseThrow();
+        deletionService.delete(biggest.getId());
+        BillingSummaryService.SummaryReport after = report();
+        assertEquals(invoices.size() - 1, after.total().invoices());
+        assertEquals(0, sum(invoices).subtract(biggest.getTotal()).compareTo(after.total().sumTotal()));
+        assertEquals(2, after.rows().size(), "a cell left empty is dropped");
+
+        summaryService.rebuild(PERIOD);
+        assertEquals(after, report(), "incremental maintenance equals a full recomputation");
+
+        billingService.runBillingForPeriod(PERIOD.toString()); // re-bills the deleted CUPS
+        assertEquals(before.rows().stream().map(BillingSummaryService.SummaryRow::invoices).toList(),
+                report().rows().stream().map(BillingSummaryService.SummaryRow::invoices).toList());
+    }
+
+    @Test
+    void min_and_max_are_recomputed_when_their_invoice_goes() {
+        // a second CUPS in ZONA2/RL1 (seed readings, no consumption in January) shares a cell with 3CC
+        supplyPointRepo.save(new SupplyPoint("ES0021000000003CD", "ZONA2", "RL1", SupplyPoint.EstadoEnum.ACTIVO));
+        YearMonth january = PERIOD.minusMonths(1);
+        billingService.runBillingForPeriod(january.toString());
+        Invoice cc = invoiceRepo.findByCupsAndPeriodoInicio("ES0021000000003CC", january.atDay(1)).orElseThrow();
+        Invoice cd = invoiceRepo.findByCupsAndPeriodoInicio("ES0021000000003CD", january.atDay(1)).orElseThrow();
+        assertTrue(cc.getTotal().compareTo(cd.getTotal()) > 0);
+
+        BillingSummaryService.SummaryRow cell = summaryService.report(january, january, "ZONA2", "RL1").rows().get(0);
+        assertEquals(2, cell.invoices());
+        assertEquals(0, cc.getTotal().compareTo(cell.maxTotal()));
+        assertEquals(0, cd.getTotal().compareTo(cell.minTotal()));
+
+        deletionService.delete(cc.getId());
+        cell = summaryService.report(january, january, "ZONA2", "RL1").rows().get(0);
+        assertEquals(1, cell.invoices());
+        assertEquals(0, cd.getTotal().compareTo(cell.maxTotal()), "max recomputed from the remaining invoice");
+        assertEquals(0, cd.getTotal().compareTo(cell.avgTotal()));
+    }
+
+    @Test
+    void deletion_after_a_supply_point_moves_leaves_the_cell_it_was_billed_in() {
+        Invoice cc = invoiceRepo.findByCupsAndPeriodoInicio("ES0021000000003CC", PERIOD.atDay(1)).orElseThrow();
+        long zona2 = invoices("ZONA2", "RL1");
+        BillingSummaryService.SummaryRow zona1 = summaryService.report(PERIOD, PERIOD, "ZONA1", "RL1").rows().get(0);
+        SupplyPoint sp = supplyPointRepo.findById("ES0021000000003CC").orElseThrow();
+        sp.setZona("ZONA1");
+        supplyPointRepo.save(sp);
+        try {
+            deletionService.delete(cc.getId());
+
+            assertEquals(zona2 - 1, invoices("ZONA2", "RL1"), "taken out of the ZONA2 / RL1 cell it was billed in");
+            assertEquals(zona1, summaryService.report(PERIOD, PERIOD, "ZONA1", "RL1").rows().get(0),
+                    "the supply point's new cell is untouched");
+            BillingSummaryService.SummaryReport incremental = report();
+            summaryService.rebuild(PERIOD);
+            assertEquals(incremental, report());
+        } finally {
+            sp.setZona("ZONA2");
+            supplyPointRepo.save(sp);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.repository.InvoiceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sketches follow billing as it commits, and a rebuild from the tables gives the same figures.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:consumptionstatstest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.prerender-threads=0"
+})
+class ConsumptionStatsServiceTest {
+
+    private static final YearMonth FEB = YearMonth.of(2026, 2);
+
+    @Autowired BillingService billingService;
+    @Autowired InvoiceRepository invoiceRepo;
+    @Autowired ConsumptionStatsService statsService;
+    @Autowired ReadingImportService importService;
+
+    @Test
+    void consumption_sketches_follow_billing_and_rebuild() {
+        billingService.runBillingForPeriod(FEB.toString());
+        long billed = invoiceRepo.findAll().stream()
+                .filter(i -> YearMonth.from(i.getPeriodoInicio()).equals(FEB)).count();
+        assertTrue(billed > 0);
+
+        ConsumptionStatsService.ConsumptionStats streamed = statsService.query(FEB, FEB, null, null, 3);
+        assertEquals(billed, streamed.invoices());
+        assertEquals(billed, streamed.distinctBilledCups().estimate());
+        assertEquals(billed, streamed.topConsumers().size());
+
+        ConsumptionStatsService.RebuildResult result = statsService.rebuild();
+        assertTrue(result.cells() > 0);
+        ConsumptionStatsService.ConsumptionStats rebuilt = statsService.query(FEB, FEB, null, null, 3);
+        assertEquals(streamed.invoices(), rebuilt.invoices());
+        assertEquals(streamed.readings(), rebuilt.readings());
+        assertEquals(streamed.totalKwh(), rebuilt.totalKwh(), 1e-6);
+    }
+
+    @Test
+    void updates_committed_during_a_rebuild_are_counted_once() throws Exception {
+        YearMonth jan = YearMonth.of(2026, 1), mar = YearMonth.of(2026, 3);
+        String csv = """
+                cups,fecha,lectura_m3,tipo
+                ES0021000000001AA,2026-03-31,1400.00,REAL
+                ES0021000000002BB,2026-03-31,1010.00,REAL
+                """;
+        CompletableFuture<ConsumptionStatsService.RebuildResult> rebuild = CompletableFuture.supplyAsync(statsService::rebuild);
+        billingService.runBillingForPeriod(jan.toString());
+        importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        rebuild.get();
+
+        // whatever the interleaving, the live cells must equal a rebuild from the tables
+        ConsumptionStatsService.ConsumptionStats live = statsService.query(jan, mar, null, null, 3);
+        statsService.rebuild();
+        ConsumptionStatsService.ConsumptionStats quiet = statsService.query(jan, mar, null, null, 3);
+        assertEquals(quiet.invoices(), live.invoices());
+        assertEquals(quiet.readings(), live.readings());
+        assertEquals(quiet.totalKwh(), live.totalKwh(), 1e-6);
+    }
+}
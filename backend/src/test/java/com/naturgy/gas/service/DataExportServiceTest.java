@@ -0,0 +1,84 @@
+package com.naturgy.gas.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.naturgy.gas.repository.InvoiceLineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CSV / NDJSON exports stream every row with the expected columns and honour filters and gzip.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:exporttest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.export.fetch-size=2",
+        "gas.pdf-cache.prerender-threads=0"
+})
+class DataExportServiceTest {
+
+    @Autowired DataExportService exportService;
+    @Autowired BillingService billingService;
+    @Autowired InvoiceLineRepository lineRepo;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired ObjectMapper mapper;
+
+    @BeforeEach
+    void bill() {
+        billingService.runBillingForPeriod("2026-02");
+    }
+
+    @Test
+    void invoices_as_csv_have_one_row_per_line() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.exportInvoices(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 1), null, null,
+                DataExportService.Format.CSV, false, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(lineRepo.count(), rows);
+        assertEquals(rows + 1, lines.size());
+        assertTrue(lines.get(0).startsWith("invoice_id,numero_factura,cups,zona,tarifa,"));
+        assertTrue(lines.get(1).contains("GAS-202602-"));
+        assertTrue(lines.stream().anyMatch(l -> l.contains("TERMINO_VARIABLE")));
+        List<Long> ids = lines.stream().skip(1).map(l -> Long.parseLong(l.substring(0, l.indexOf(',')))).toList();
+        assertEquals(ids.stream().sorted().toList(), ids, "invoices in id order across pages");
+
+        ByteArrayOutputStream none = new ByteArrayOutputStream();
+        assertEquals(0, exportService.exportInvoices(null, null, "NO-SUCH-ZONA", null,
+                DataExportService.Format.CSV, false, none));
+        assertEquals(1, none.toString(StandardCharsets.UTF_8).lines().count(), "header only");
+    }
+
+    @Test
+    void readings_as_gzipped_ndjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.exportReadings(null, null, null, DataExportService.Format.NDJSON, true, out);
+        Integer total = jdbc.queryForObject("SELECT COUNT(*) FROM gas_reading", Integer.class);
+        assertEquals(total.longValue(), rows);
+
+        byte[] plain = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+        List<String> lines = new String(plain, StandardCharsets.UTF_8).lines().toList();
+        assertEquals(rows, lines.size());
+        JsonNode first = mapper.readTree(lines.get(0));
+        assertTrue(first.get("cups").isTextual());
+        assertTrue(first.get("lectura_m3").isNumber());
+        assertEquals(10, first.get("fecha").asText().length());
+
+        String cups = first.get("cups").asText();
+        ByteArrayOutputStream one = new ByteArrayOutputStream();
+        long forCups = exportService.exportReadings(cups, null, null, DataExportService.Format.NDJSON, false, one);
+        assertTrue(forCups > 0 && forCups < rows);
+        assertTrue(one.toString(StandardCharsets.UTF_8).lines().allMatch(l -> l.contains(cups)));
+    }
+}
@@ -0,0 +1,78 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.repository.InvoiceRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Billing pre-renders after commit; downloads are served from memory/disk; concurrent misses
+ * render once; a content change yields a new key and replaces the stored version.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pdfcachetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.pdf-cache.dir=target/test-pdf-cache-it",
+        "gas.pdf-cache.prerender-threads=2"
+})
+class InvoicePdfCacheTest {
+
+    private static final Path DIR = Paths.get("target/test-pdf-cache-it");
+
+    @Autowired BillingService billingService;
+    @Autowired InvoiceRepository invoiceRepo;
+    @Autowired InvoicePdfCache cache;
+
+    @Test
+    void prerenders_serves_and_renders_once_per_content() throws Exception {
+        List<Invoice> billed = billingService.runBillingForPeriod("2026-02").invoices();
+        assertFalse(billed.isEmpty());
+
+        // background pre-render after commit
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (cache.stats().renders() + cache.stats().diskHits() < billed.size()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Invoice invoice = invoiceRepo.findWithLinesById(billed.get(0).getId()).orElseThrow();
+        long before = cache.stats().renders() + cache.stats().diskHits();
+        assertEquals(billed.size(), before);
+        byte[] first = cache.get(invoice);
+        assertEquals(before, cache.stats().renders() + cache.stats().diskHits(), "served from memory");
+
+        // concurrent misses share one render
+        cache.evict(invoice.getId());
+        long rendersBefore = cache.stats().renders();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) results.add(pool.submit(() -> cache.get(invoice)));
+        for (Future<byte[]> f : results) assertEquals(first.length, f.get().length);
+        pool.shutdown();
+        assertEquals(rendersBefore + 1, cache.stats().renders());
+
+        // changed content → new hash, old stored version removed
+        String oldHash = InvoicePdfCache.contentHash(invoice);
+        invoice.setTotal(invoice.getTotal().add(BigDecimal.ONE));
+        String newHash = InvoicePdfCache.contentHash(invoice);
+        assertNotEquals(oldHash, newHash);
+        assertFalse(Arrays.equals(first, cache.get(invoice)));
+        assertTrue(Files.exists(DIR.resolve(invoice.getId() + "-" + newHash + ".pdf")));
+        assertFalse(Files.exists(DIR.resolve(invoice.getId() + "-" + oldHash + ".pdf")));
+
+        cache.evict(invoice.getId());
+        assertFalse(Files.exists(DIR.resolve(invoice.getId() + "-" + newHash + ".pdf")));
+    }
+}
@@ -0,0 +1,84 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.BilledPeriodTest;
+import com.naturgy.gas.entity.Invoice;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk export writes every invoice of the period, in id order, as ZIP entries or merged pages,
+ * without going through the PDF cache.
+ */
+@TestPropertySource(properties = {
+        "gas.test.db=pdfexporttest",
+        "gas.export.pdf.page-size=2",
+        "gas.export.pdf.window=2"
+})
+class InvoicePdfExportServiceTest extends BilledPeriodTest {
+
+    @Autowired InvoicePdfExportService exportService;
+    @Autowired InvoicePdfCache pdfCache;
+
+    private List<String> expected;
+
+    @BeforeEach
+    void expectedNumbers() {
+        expected = periodInvoices().stream().map(Invoice::getNumeroFactura).toList();
+        assertTrue(expected.size() > 2, "needs more invoices than one page");
+    }
+
+    @Test
+    void zip_contains_one_pdf_per_invoice_in_order() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expected.size(), exportService.export(PERIOD, null, null, InvoicePdfExportService.Format.ZIP, out));
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry e;
+            while ((e = zip.getNextEntry()) != null) {
+                names.add(e.getName());
+                assertEquals("%PDF", new String(zip.readNBytes(4)));
+            }
+        }
+        assertEquals(expected.stream().map(n -> "factura-" + n + ".pdf").toList(), names);
+    }
+
+    @Test
+    void merged_pdf_has_a_page_per_invoice() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(PERIOD, null, null, InvoicePdfExportService.Format.PDF, out);
+        try (PDDocument doc = Loader.loadPDF(out.toByteArray())) {
+            assertEquals(expected.size(), doc.getNumberOfPages());
+        }
+    }
+
+    @Test
+    void export_does_not_fill_the_pdf_cache() throws Exception {
+        InvoicePdfCache.CacheStats before = pdfCache.stats();
+        exportService.export(PERIOD, null, null, InvoicePdfExportService.Format.ZIP, new ByteArrayOutputStream());
+        InvoicePdfCache.CacheStats after = pdfCache.stats();
+        assertEquals(before.renders(), after.renders());
+        assertEquals(before.memoryEntries(), after.memoryEntries());
+    }
+
+    @Test
+    void filters_by_zona_and_reports_empty_periods() {
+        assertFalse(exportService.hasInvoices(PERIOD, "NO-SUCH-ZONA", null));
+        assertFalse(exportService.hasInvoices(YearMonth.of(1999, 1), null, null));
+        assertTrue(exportService.hasInvoices(PERIOD, null, null));
+    }
+}
@@ -0,0 +1,64 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.InvoiceLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The template renderer produces a well-formed PDF (parsed back with PDFBox) showing every field.
+ */
+class InvoicePdfServiceTest {
+
+    private final InvoicePdfService service = new InvoicePdfService(new SimpleMeterRegistry());
+
+    @Test
+    void renders_parseable_single_page_with_all_fields() throws Exception {
+        Invoice invoice = sample("GAS-202602-ES0021000000001AA-001");
+
+        byte[] pdf = service.generatePdf(invoice);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        service.writePdf(invoice, streamed);
+        assertArrayEquals(pdf, streamed.toByteArray());
+
+        try (PDDocument doc = Loader.loadPDF(pdf)) {
+            assertEquals(1, doc.getNumberOfPages());
+            String text = new PDFTextStripper().getText(doc);
+            assertTrue(text.contains("FACTURA GAS"));
+            assertTrue(text.contains("N. Factura: GAS-202602-ES0021000000001AA-001"));
+            assertTrue(text.contains("Periodo: 2026-02-01 / 2026-02-28"));
+            assertTrue(text.contains("Termino variable (a)"), text);
+            assertTrue(text.contains("897.094"));
+            assertTrue(text.contains("TOTAL:"));
+            assertTrue(text.contains("9.55 EUR"));
+        }
+    }
+
+    @Test
+    void reused_buffers_do_not_leak_between_invoices() throws Exception {
+        byte[] first = service.generatePdf(sample("A-1"));
+        service.generatePdf(sample("B-".repeat(40_000))); // grows and drops the thread buffers
+        assertArrayEquals(first, service.generatePdf(sample("A-1")));
+    }
+
+    private static Invoice sample(String numero) {
+        Invoice inv = new Invoice(numero, "ES0021000000001AA", LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28),
+                new BigDecimal("7.89"), new BigDecimal("1.66"), new BigDecimal("9.55"), LocalDate.of(2026, 3, 1));
+        inv.getLines().add(new InvoiceLine(inv, InvoiceLine.TipoLineaEnum.TERMINO_FIJO, "Término fijo",
+                BigDecimal.ONE, new BigDecimal("4.50"), new BigDecimal("4.50")));
+        inv.getLines().add(new InvoiceLine(inv, InvoiceLine.TipoLineaEnum.TERMINO_VARIABLE, "Término variable (a)",
+                new BigDecimal("897.094"), new BigDecimal("0.003779"), new BigDecimal("3.39")));
+        inv.getLines().add(new InvoiceLine(inv, InvoiceLine.TipoLineaEnum.IVA, "IVA",
+                new BigDecimal("0.21"), new BigDecimal("7.89"), new BigDecimal("1.66")));
+        return inv;
+    }
+}
@@ -0,0 +1,87 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.BilledPeriodTest;
+import com.naturgy.gas.entity.ChangeLogEntry;
+import com.naturgy.gas.entity.Invoice;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Period rollback removes invoices, lines and summary cells in chunks, feeds the change log and
+ * lets the period be billed again with a consistent sequence.
+ */
+@TestPropertySource(properties = {
+        "gas.test.db=rollbacktest",
+        "gas.rollback.chunk-size=2"
+})
+class InvoiceRollbackServiceTest extends BilledPeriodTest {
+
+    @Autowired InvoiceRollbackService rollbackService;
+    @Autowired BillingSummaryService summaryService;
+    @Autowired ChangeLogService changeLog;
+    @Autowired JdbcTemplate jdbc;
+
+    private static long sequence(Invoice invoice) {
+        String n = invoice.getNumeroFactura();
+        return Long.parseLong(n.substring(n.lastIndexOf('-') + 1));
+    }
+
+    @Test
+    void scoped_rollback_keeps_the_rest_and_continues_the_sequence() {
+        List<Invoice> before = periodInvoices();
+        Set<Long> zona1 = before.stream().filter(i -> !i.getCups().endsWith("3CC"))
+                .map(Invoice::getId).collect(Collectors.toSet());
+
+        InvoiceRollbackService.RollbackResult result = rollbackService.rollback(PERIOD, "ZONA1", null, null);
+        assertEquals(2, result.invoicesDeleted());
+        assertTrue(result.linesDeleted() > 0);
+        assertEquals(1, result.chunks());
+
+        List<Invoice> left = periodInvoices();
+        assertEquals(1, left.size());
+        assertEquals("ES0021000000003CC", left.get(0).getCups());
+        assertEquals(sequence(left.get(0)) + 1, result.nextSequence());
+
+        BillingSummaryService.SummaryReport report = summaryService.report(PERIOD, PERIOD, null, null);
+        assertEquals(1, report.rows().size());
+        summaryService.rebuild(PERIOD);
+        assertEquals(report, summaryService.report(PERIOD, PERIOD, null, null), "matches a full recomputation");
+
+        Set<String> deletedKeys = changeLog.read(0, 1000).entries().stream()
+                .filter(e -> e.getEntityType() == ChangeLogEntry.EntityType.INVOICE
+                        && e.getOperation() == ChangeLogEntry.Operation.DELETED)
+                .map(ChangeLogEntry::getEntityKey).collect(Collectors.toSet());
+        zona1.forEach(id -> assertTrue(deletedKeys.contains(String.valueOf(id)), "change log entry for " + id));
+
+        List<Invoice> rebilled = billingService.runBillingForPeriod(PERIOD.toString()).invoices();
+        assertEquals(2, rebilled.size());
+        assertTrue(rebilled.stream().allMatch(i -> sequence(i) >= result.nextSequence()), "no number reused");
+    }
+
+    @Test
+    void full_rollback_across_chunks_restarts_the_sequence() {
+        int billed = periodInvoices().size();
+
+        InvoiceRollbackService.RollbackResult result = rollbackService.rollback(PERIOD, null, null, List.of());
+        assertEquals(billed, result.invoicesDeleted());
+        assertEquals((billed + 1) / 2, result.chunks());
+        assertEquals(1, result.nextSequence());
+        assertTrue(periodInvoices().isEmpty());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM invoice_line l LEFT JOIN invoice i " +
+                "ON i.id = l.invoice_id WHERE i.id IS NULL", Long.class), "no orphan lines");
+        assertTrue(summaryService.report(PERIOD, PERIOD, null, null).rows().isEmpty());
+
+        assertEquals(0, rollbackService.rollback(PERIOD, null, null, null).invoicesDeleted(), "idempotent");
+
+        List<Invoice> rebilled = billingService.runBillingForPeriod(PERIOD.toString()).invoices();
+        assertEquals(1, rebilled.stream().mapToLong(InvoiceRollbackServiceTest::sequence).min().orElseThrow());
+    }
+}
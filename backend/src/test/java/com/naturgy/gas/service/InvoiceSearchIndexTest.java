@@ -0,0 +1,102 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.BilledPeriodTest;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.SupplyPoint;
+import com.naturgy.gas.repository.InvoiceView;
+import com.naturgy.gas.repository.SupplyPointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Search answers combined period / zona / tarifa / total filters with exact counts and pages,
+ * and follows billing and deletion through invalidation.
+ */
+@TestPropertySource(properties = "gas.test.db=searchindextest")
+class InvoiceSearchIndexTest extends BilledPeriodTest {
+
+    @Autowired InvoiceSearchIndex searchIndex;
+    @Autowired SupplyPointRepository supplyPointRepo;
+
+    /** Invoices of the period, highest total first (the search order). */
+    private List<Invoice> invoices;
+
+    @BeforeEach
+    void sortByTotal() {
+        invoices = periodInvoices().stream()
+                .sorted(Comparator.comparing(Invoice::getTotal).reversed().thenComparing(Invoice::getId))
+                .toList();
+        assertEquals(3, invoices.size());
+    }
+
+    private InvoiceSearchIndex.SearchResult search(String zona, String tarifa, BigDecimal min, BigDecimal max,
+                                                   int page, int size) {
+        return searchIndex.search(new InvoiceSearchIndex.SearchCriteria(PERIOD.minusMonths(1), PERIOD,
+                zona, tarifa, min, max), page, size, false);
+    }
+
+    @Test
+    void combines_filters_with_counts_and_pages() {
+        InvoiceSearchIndex.SearchResult all = search(null, null, null, null, 0, 10);
+        assertEquals(3, all.total());
+        assertEquals(3L, all.countsByPeriod().get(PERIOD));
+        assertFalse(all.countsByPeriod().containsKey(PERIOD.minusMonths(1)), "empty periods are not listed");
+        assertEquals(invoices.stream().map(Invoice::getId).toList(),
+                all.items().stream().map(InvoiceView::id).toList());
+
+        assertEquals(2, search("ZONA1", null, null, null, 0, 10).total());
+        assertEquals(1, search("ZONA1", "RL1", null, null, 0, 10).total());
+        assertEquals(0, search("NO-SUCH-ZONA", null, null, null, 0, 10).total());
+
+        BigDecimal middle = invoices.get(1).getTotal();
+        InvoiceSearchIndex.SearchResult above = search(null, null, middle, null, 0, 10);
+        assertTrue(above.items().stream().allMatch(v -> v.total().compareTo(middle) >= 0));
+        assertEquals(invoices.stream().filter(i -> i.getTotal().compareTo(middle) >= 0).count(), above.total());
+        assertEquals(invoices.stream().filter(i -> i.getTotal().compareTo(middle) <= 0).count(),
+                search(null, null, null, middle, 0, 10).total());
+
+        InvoiceSearchIndex.SearchResult second = search(null, null, null, null, 1, 2);
+        assertEquals(3, second.total());
+        assertEquals(List.of(invoices.get(2).getId()), second.items().stream().map(InvoiceView::id).toList());
+        assertNull(second.items().get(0).lines());
+
+        assertThrows(IllegalArgumentException.class, () -> search(null, null, null, null, 0, 0));
+    }
+
+    @Test
+    void follows_deletion_and_rebilling() {
+        assertEquals(3, search(null, null, null, null, 0, 10).total());
+
+        invoiceRepo.delete(invoices.get(0));
+        searchIndex.invalidate(PERIOD);
+        assertEquals(2, search(null, null, null, null, 0, 10).total());
+
+        billingService.runBillingForPeriod(PERIOD.toString()); // InvoiceCreatedEvent drops the segment
+        assertEquals(3, search(null, null, null, null, 0, 10).total());
+    }
+
+    @Test
+    void filters_on_the_zona_an_invoice_was_billed_under() {
+        SupplyPoint sp = supplyPointRepo.findById("ES0021000000003CC").orElseThrow();
+        sp.setZona("ZONA1");
+        supplyPointRepo.save(sp);
+        try {
+            searchIndex.invalidate(PERIOD);
+            assertEquals(2, search("ZONA1", null, null, null, 0, 10).total());
+            assertEquals(1, search("ZONA2", null, null, null, 0, 10).total());
+            assertEquals(1, invoiceRepo.findIdsForPeriod(PERIOD.atDay(1), "ZONA2", null, 0, Pageable.ofSize(10)).size());
+        } finally {
+            sp.setZona("ZONA2");
+            supplyPointRepo.save(sp);
+        }
+    }
+}
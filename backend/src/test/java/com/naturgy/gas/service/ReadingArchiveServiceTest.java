@@ -0,0 +1,99 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.repository.GasReadingBatchWriter;
+import com.naturgy.gas.repository.GasReadingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.FileSystemUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compaction keeps month-end readings hot, archives the rest and still serves them, also to
+ * as-of lookups; the open billing period is never compacted.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archivetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;NON_KEYWORDS=VALUE",
+        "gas.archive.dir=target/test-archive",
+        "gas.archive.block-rows=16"
+})
+class ReadingArchiveServiceTest {
+
+    private static final String CUPS = "ES0021000000777AR";
+
+    @Autowired ReadingArchiveService archiveService;
+    @Autowired GasReadingRepository readingRepo;
+    @Autowired GasReadingBatchWriter batchWriter;
+    @Autowired ReadingLookupService lookupService;
+
+    @BeforeEach
+    void dailyReadings() {
+        FileSystemUtils.deleteRecursively(Paths.get("target/test-archive").toFile());
+        readingRepo.deleteAll(readingRepo.findByIdCupsOrderByIdFechaAsc(CUPS));
+        List<GasReading> daily = new ArrayList<>();
+        for (LocalDate d = LocalDate.of(2020, 1, 1); d.isBefore(LocalDate.of(2020, 4, 1)); d = d.plusDays(1)) {
+            daily.add(new GasReading(CUPS, d, BigDecimal.valueOf(d.getDayOfYear()), GasReading.TipoEnum.REAL));
+        }
+        batchWriter.insertIfAbsent(daily);
+    }
+
+    @Test
+    void compaction_keeps_month_boundaries_and_archive_stays_queryable() {
+        ReadingArchiveService.CompactionResult result = archiveService.compact(LocalDate.of(2020, 3, 10));
+
+        assertEquals(LocalDate.of(2020, 3, 1), result.horizon());
+        assertEquals(30 + 28, result.archived()); // Jan and Feb minus their last day
+        List<GasReading> hot = readingRepo.findByIdCupsOrderByIdFechaAsc(CUPS);
+        assertEquals(2 + 31, hot.size());
+
+        // Billing boundaries are unaffected
+        assertEquals(LocalDate.of(2020, 1, 31),
+                readingRepo.findLastBefore(CUPS, LocalDate.of(2020, 2, 1)).orElseThrow().getFecha());
+        assertEquals(LocalDate.of(2020, 2, 29),
+                readingRepo.findLastOnOrBefore(CUPS, LocalDate.of(2020, 2, 29)).orElseThrow().getFecha());
+
+        GasReading archived = archiveService.findArchived(CUPS, LocalDate.of(2020, 2, 10)).orElseThrow();
+        assertEquals(0, archived.getLecturaM3().compareTo(BigDecimal.valueOf(41)));
+        assertEquals(91, archiveService.mergeWithArchive(CUPS, hot).size());
+
+        // Re-running is a no-op
+        assertEquals(0, archiveService.compact(LocalDate.of(2020, 3, 1)).archived());
+    }
+
+    @Test
+    void horizon_in_the_open_billing_period_is_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> archiveService.compact(LocalDate.now()));
+        assertThrows(IllegalArgumentException.class, () -> archiveService.compact(YearMonth.now().plusMonths(1).atDay(1)));
+        assertEquals(91, readingRepo.findByIdCupsOrderByIdFechaAsc(CUPS).size());
+    }
+
+    @Test
+    void as_of_answers_are_the_same_before_and_after_compaction() {
+        List<ReadingLookupService.AsOfQuery> queries = List.of(
+                new ReadingLookupService.AsOfQuery(CUPS, LocalDate.of(2020, 2, 10)),
+                new ReadingLookupService.AsOfQuery(CUPS, LocalDate.of(2020, 2, 29)),
+                new ReadingLookupService.AsOfQuery(CUPS, LocalDate.of(2020, 1, 1)),
+                new ReadingLookupService.AsOfQuery(CUPS, LocalDate.of(2020, 3, 5)),
+                new ReadingLookupService.AsOfQuery(CUPS, LocalDate.of(2019, 12, 31)));
+        List<ReadingLookupService.AsOfResult> before = new ArrayList<>();
+        lookupService.resolve(queries, before::add);
+        assertEquals(LocalDate.of(2020, 2, 10), before.get(0).fecha());
+        assertFalse(before.get(4).found());
+
+        archiveService.compact(LocalDate.of(2020, 3, 1));
+
+        List<ReadingLookupService.AsOfResult> after = new ArrayList<>();
+        lookupService.resolve(queries, after::add);
+        assertEquals(before, after);
+    }
+}
@@ -0,0 +1,127 @@
+package com.naturgy.gas.service;
+
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.ingest.ReadingBinaryEncoder;
+import com.naturgy.gas.ingest.ReadingBinaryFormat;
+import com.naturgy.gas.repository.GasReadingBatchWriter;
+import com.naturgy.gas.service.ReadingImportService.ImportResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests of CSV / binary row validation and batching, against an in-memory batch writer.
+ */
+class ReadingImportServiceTest {
+
+    /** Pretends to be the table: rejects (cups, fecha) pairs it has already seen. */
+    private final List<GasReading> stored = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final GasReadingBatchWriter writer = new GasReadingBatchWriter(null, null) {
+        @Override
+        public boolean[] insertIfAbsent(List<GasReading> readings) {
+            batchSizes.add(readings.size());
+            boolean[] inserted = new boolean[readings.size()];
+            for (int i = 0; i < inserted.length; i++) {
+                GasReading r = readings.get(i);
+                inserted[i] = stored.stream().noneMatch(s -> s.getId().equals(r.getId()));
+                if (inserted[i]) stored.add(r);
+            }
+            return inserted;
+        }
+    };
+    private final ReadingImportService service = new ReadingImportService(writer, event -> {}, new SimpleMeterRegistry(), 2, 10);
+
+    @Test
+    void csv_rows_are_validated_and_flushed_in_batches() throws Exception {
+        String csv = """
+                cups,fecha,lectura_m3,tipo
+                ES1,2026-01-31,10.5,REAL
+                ES1,2026-02-30,11,REAL
+                ES1,2026-02-28,-1,REAL
+                ES1,2026-02-28,12,OTRA
+                ES1,2026-02-28,12,ESTIMADA
+                ES1,2026-01-31,99,REAL
+                ES2,2026-01-31
+                """;
+        ImportResult r = service.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, r.inserted());
+        assertEquals(1, r.skipped());
+        assertEquals(5, r.errors().size());
+        assertTrue(r.errors().contains("Row 7: duplicate reading ES1/2026-01-31"));
+        assertTrue(r.errors().contains("Row 3: invalid date '2026-02-30'"));
+        assertEquals(List.of(2, 1), batchSizes);
+    }
+
+    @Test
+    void duplicate_errors_are_reported_in_row_order() throws Exception {
+        stored.add(new GasReading("ES1", LocalDate.of(2026, 1, 31), BigDecimal.TEN, GasReading.TipoEnum.REAL));
+        String csv = """
+                cups,fecha,lectura_m3,tipo
+                ES1,2026-01-31,11,REAL
+                ES1,not-a-date,12,REAL
+                ES1,2026-02-28,13,REAL
+                """;
+        ImportResult r = service.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        // Row 2 is only found to be a duplicate when rows 2 and 4 flush, after row 3 was rejected
+        assertEquals(List.of("Row 2: duplicate reading ES1/2026-01-31", "Row 3: invalid date 'not-a-date'"),
+                r.errors());
+    }
+
+    @Test
+    void binary_round_trip_matches_encoder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReadingBinaryEncoder enc = new ReadingBinaryEncoder(out, List.of("ES1", "ES2"))) {
+            enc.write("ES1", LocalDate.of(2026, 1, 31), new BigDecimal("1250.500"), GasReading.TipoEnum.REAL);
+            enc.write("ES2", LocalDate.of(2026, 2, 28), new BigDecimal("7.25"), GasReading.TipoEnum.ESTIMADA);
+            enc.write("ES1", LocalDate.of(2026, 1, 31), new BigDecimal("1"), GasReading.TipoEnum.REAL);
+        }
+        byte[] bytes = out.toByteArray();
+
+        ImportResult r = service.importBinary(new ByteArrayInputStream(bytes));
+        assertEquals(2, r.inserted());
+        assertEquals(1, r.skipped());
+        assertEquals(List.of("Record 3: duplicate reading ES1/2026-01-31"), r.errors());
+        assertEquals(0, stored.get(0).getLecturaM3().compareTo(new BigDecimal("1250.5")));
+        assertEquals(GasReading.TipoEnum.ESTIMADA, stored.get(1).getTipo());
+        assertEquals("ES2", stored.get(1).getCups());
+
+        // A truncated trailing record is reported, not silently dropped
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length - 5);
+        ImportResult t = service.importBinary(new ByteArrayInputStream(truncated));
+        assertTrue(t.errors().stream().anyMatch(e -> e.startsWith("Record 3: truncated record")));
+    }
+
+    @Test
+    void binary_bad_magic_is_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.importBinary(new ByteArrayInputStream("cups,fecha\n".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void binary_oversized_dictionary_is_rejected_before_allocating() {
+        byte[] header = java.nio.ByteBuffer.allocate(8).put(ReadingBinaryFormat.MAGIC).putInt(Integer.MAX_VALUE).array();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.importBinary(new ByteArrayInputStream(header)));
+        assertTrue(e.getMessage().contains("exceeds the maximum of 10"), e.getMessage());
+    }
+
+    @Test
+    void binary_dictionary_shorter_than_declared_is_a_truncated_header() {
+        byte[] header = java.nio.ByteBuffer.allocate(8).put(ReadingBinaryFormat.MAGIC).putInt(10).array();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.importBinary(new ByteArrayInputStream(header)));
+        assertEquals("Truncated GRB1 header", e.getMessage());
+    }
+}
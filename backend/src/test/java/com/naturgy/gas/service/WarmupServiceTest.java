@@ -0,0 +1,43 @@
+package com.naturgy.gas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Warm-up runs the synthetic workload within its time budget and holds readiness until done.
+ */
+class WarmupServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void warm_up_runs_within_budget_and_then_reports_up() {
+        WarmupService warmup = new WarmupService(objectMapper, true, Duration.ofSeconds(2));
+        assertEquals(Status.OUT_OF_SERVICE, warmup.health().getStatus());
+
+        WarmupService.WarmupResult result = warmup.warmUp();
+        assertNotNull(result);
+        assertTrue(result.iterations() > 0);
+        assertTrue(result.rounds() >= 1);
+        assertTrue(result.durationMs() < 3_000, "stopped at max-duration: " + result.durationMs());
+
+        Health health = warmup.health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(WarmupService.State.COMPLETE, health.getDetails().get("state"));
+        assertEquals(result.iterations(), health.getDetails().get("iterations"));
+    }
+
+    @Test
+    void disabled_warm_up_does_not_hold_readiness() {
+        WarmupService warmup = new WarmupService(objectMapper, false, Duration.ofSeconds(2));
+        warmup.run(null);
+        assertEquals(WarmupService.State.DISABLED, warmup.state());
+        assertEquals(Status.UP, warmup.health().getStatus());
+    }
+}
@@ -0,0 +1,61 @@
+package com.naturgy.gas.bench;
+
+import com.naturgy.gas.entity.GasConversionFactor;
+import com.naturgy.gas.entity.GasTariff;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.entity.InvoiceLine;
+import com.naturgy.gas.entity.TaxConfig;
+import com.naturgy.gas.repository.InvoiceLineView;
+import com.naturgy.gas.repository.InvoiceView;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/** Synthetic fixtures shaped like what billing produces for the sample data. */
+final class BenchmarkData {
+
+    private BenchmarkData() {}
+
+    static final GasTariff TARIFF =
+            new GasTariff("RL1", new BigDecimal("4.50"), new BigDecimal("0.003779"), LocalDate.of(2026, 1, 1));
+    static final GasConversionFactor FACTOR =
+            new GasConversionFactor("ZONA1", "2026-02", new BigDecimal("1.0021"), new BigDecimal("11.627"));
+    static final TaxConfig IVA = new TaxConfig("IVA", new BigDecimal("0.21"), LocalDate.of(2025, 1, 1));
+
+    static Invoice invoice(String numero, String cups) {
+        Invoice inv = new Invoice(numero, cups, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28),
+                new BigDecimal("7.89"), new BigDecimal("1.66"), new BigDecimal("9.55"), LocalDate.of(2026, 3, 1));
+        inv.getLines().add(new InvoiceLine(inv, InvoiceLine.TipoLineaEnum.TERMINO_FIJO, "Término fijo",
+                BigDecimal.ONE, new BigDecimal("4.50"), new BigDecimal("4.50")));
+        inv.getLines().add(new InvoiceLine(inv, InvoiceLine.TipoLineaEnum.TERMINO_VARIABLE, "Término variable",
+                new BigDecimal("897.094"), new BigDecimal("0.003779"), new BigDecimal("3.39")));
+        inv.getLines().add(new InvoiceLine(inv, InvoiceLine.TipoLineaEnum.IVA, "IVA",
+                new BigDecimal("0.21"), new BigDecimal("7.89"), new BigDecimal("1.66")));
+        return inv;
+    }
+
+    /** The JSON projection served by GET /api/gas/invoices/{id}, for the same invoice. */
+    static InvoiceView view(long id, Invoice inv) {
+        List<InvoiceLineView> lines = inv.getLines().stream()
+                .map(l -> new InvoiceLineView(id, id * 10 + l.getTipo().ordinal(), l.getTipo(), l.getDescripcion(),
+                        l.getCantidad(), l.getPrecioUnitario(), l.getImporte()))
+                .toList();
+        return new InvoiceView(id, inv.getNumeroFactura(), inv.getCups(), inv.getPeriodoInicio(), inv.getPeriodoFin(),
+                inv.getBase(), inv.getImpuestos(), inv.getTotal(), inv.getFechaEmision(), lines);
+    }
+
+    /** A gas-readings CSV (with header): {@code rows} monthly readings spread over {@code cups} CUPS. */
+    static byte[] readingsCsv(int rows, int cups) {
+        StringBuilder csv = new StringBuilder(rows * 48).append("cups,fecha,lectura_m3,tipo\n");
+        int perCups = Math.max(1, rows / cups);
+        for (int n = 0; n < rows; n++) {
+            int c = n / perCups, d = n % perCups;
+            csv.append(String.format(Locale.ROOT, "ES00BENCH%08d,%04d-%02d-28,%.3f,%s\n",
+                    c, 2000 + d / 12, d % 12 + 1, 1000 + d * 37.125, d % 5 == 0 ? "ESTIMADA" : "REAL"));
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
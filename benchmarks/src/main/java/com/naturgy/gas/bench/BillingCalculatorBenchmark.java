@@ -0,0 +1,56 @@
+package com.naturgy.gas.bench;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.service.BillingCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-CUPS billing step of BillingService without the database: the BigDecimal arithmetic
+ * alone, and with the Invoice and its lines built. The consumption cycles through 1024 values so
+ * the inputs are not constant.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class BillingCalculatorBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2026, 2, 1);
+    private static final LocalDate END = LocalDate.of(2026, 2, 28);
+
+    private final BigDecimal[] consumptions = new BigDecimal[1024];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < consumptions.length; i++) {
+            consumptions[i] = new BigDecimal("100.000").add(BigDecimal.valueOf(i * 7919L % 90000, 3));
+        }
+    }
+
+    private BigDecimal consumption() {
+        return consumptions[next++ & (consumptions.length - 1)];
+    }
+
+    @Benchmark
+    public BillingCalculator.Amounts calculate() {
+        return BillingCalculator.calculate(consumption(), BenchmarkData.FACTOR, BenchmarkData.TARIFF,
+                BenchmarkData.IVA, 28);
+    }
+
+    /** What billing does per CUPS between the lookups and the save. */
+    @Benchmark
+    public Invoice calculateAndBuildInvoice() {
+        BillingCalculator.Amounts amounts = BillingCalculator.calculate(consumption(), BenchmarkData.FACTOR,
+                BenchmarkData.TARIFF, BenchmarkData.IVA, 28);
+        return BillingCalculator.invoice("GAS-202602-ES0021000000001AA-001", "ES0021000000001AA", START, END,
+                amounts, BenchmarkData.TARIFF, BenchmarkData.IVA, END);
+    }
+}
@@ -0,0 +1,107 @@
+package com.naturgy.gas.bench;
+
+import com.naturgy.gas.GasApplication;
+import com.naturgy.gas.service.BillingService;
+import com.naturgy.gas.service.InvoiceRollbackService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full BillingService.runBillingForPeriod on a Spring context with an in-memory H2 holding
+ * {@link #CUPS} active supply points with their boundary readings: lookups, calculation, saves,
+ * change log, summary and the after-commit listeners. Before each invocation (not measured) the
+ * period is rolled back with InvoiceRollbackService. Score is invoices/s; gc.alloc.rate.norm is
+ * bytes per invoice. Logging is at WARN so console output does not dominate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(BillingRunBenchmark.CUPS)
+public class BillingRunBenchmark {
+
+    static final int CUPS = 500;
+    private static final YearMonth PERIOD = YearMonth.of(2026, 2);
+
+    private ConfigurableApplicationContext context;
+    private BillingService billing;
+    private InvoiceRollbackService rollback;
+
+    @Setup(Level.Trial)
+    public void startContext() throws Exception {
+        Path work = Files.createTempDirectory("gas-bench");
+        context = new SpringApplicationBuilder(GasApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:billingbench;DB_CLOSE_DELAY=-1;NON_KEYWORDS=VALUE",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "gas.seed.async=false",
+                        "gas.data.dir=" + work.resolve("no-seed"),
+                        "gas.pdf-cache.dir=" + work.resolve("pdf-cache"),
+                        "gas.pdf-cache.prerender-threads=0")
+                .run();
+        insertSupplyPoints(context.getBean(JdbcTemplate.class));
+        billing = context.getBean(BillingService.class);
+        rollback = context.getBean(InvoiceRollbackService.class);
+    }
+
+    private static void insertSupplyPoints(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO gas_tariff (tarifa, fijo_mes_eur, variable_eur_kwh, vigencia_desde) VALUES (?, ?, ?, ?)",
+                "RL1", BenchmarkData.TARIFF.getFijoMesEur(), BenchmarkData.TARIFF.getVariableEurKwh(),
+                Date.valueOf(LocalDate.of(2026, 1, 1)));
+        jdbc.update("INSERT INTO gas_conversion_factor (zona, mes, coef_conv, pcs_kwh_m3) VALUES (?, ?, ?, ?)",
+                "ZONA1", PERIOD.toString(), BenchmarkData.FACTOR.getCoefConv(), BenchmarkData.FACTOR.getPcsKwhM3());
+        jdbc.update("INSERT INTO tax_config (tax_code, tax_rate, vigencia_desde) VALUES (?, ?, ?)",
+                "IVA", BenchmarkData.IVA.getTaxRate(), Date.valueOf(LocalDate.of(2025, 1, 1)));
+
+        List<Object[]> points = new ArrayList<>(CUPS);
+        List<Object[]> readings = new ArrayList<>(CUPS * 2);
+        Date inicio = Date.valueOf(PERIOD.minusMonths(1).atEndOfMonth());
+        Date fin = Date.valueOf(PERIOD.atEndOfMonth());
+        for (int i = 0; i < CUPS; i++) {
+            String cups = String.format("ES00BENCH%08d", i);
+            points.add(new Object[]{cups, "ZONA1", "RL1", "ACTIVO"});
+            readings.add(new Object[]{cups, inicio, 1000 + i, "REAL"});
+            readings.add(new Object[]{cups, fin, 1000 + i + 50 + i % 200, "REAL"});
+        }
+        jdbc.batchUpdate("INSERT INTO supply_point (cups, zona, tarifa, estado) VALUES (?, ?, ?, ?)", points);
+        jdbc.batchUpdate("INSERT INTO gas_reading (cups, fecha, lectura_m3, tipo) VALUES (?, ?, ?, ?)", readings);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearPeriod() {
+        rollback.rollback(PERIOD, null, null, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public BillingService.BillingResult runBillingForPeriod() {
+        BillingService.BillingResult result = billing.runBillingForPeriod(PERIOD.toString());
+        if (result.invoices().size() != CUPS) {
+            throw new IllegalStateException("expected " + CUPS + " invoices, got " + result.invoices().size()
+                    + " " + result.errors());
+        }
+        return result;
+    }
+}
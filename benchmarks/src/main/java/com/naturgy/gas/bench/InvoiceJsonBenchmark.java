@@ -0,0 +1,49 @@
+package com.naturgy.gas.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.repository.InvoiceView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice JSON serialization with an ObjectMapper configured like the backend's (Spring's builder,
+ * ISO dates): the InvoiceView projection behind GET /api/gas/invoices/{id} and the listings, and
+ * the Invoice entity returned by the write endpoints.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class InvoiceJsonBenchmark {
+
+    private ObjectMapper mapper;
+    private Invoice invoice;
+    private InvoiceView view;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        invoice = BenchmarkData.invoice("GAS-202602-ES0021000000001AA-001", "ES0021000000001AA");
+        view = BenchmarkData.view(1L, invoice);
+    }
+
+    @Benchmark
+    public byte[] invoiceView() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(view);
+    }
+
+    @Benchmark
+    public byte[] invoiceEntity() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(invoice);
+    }
+}
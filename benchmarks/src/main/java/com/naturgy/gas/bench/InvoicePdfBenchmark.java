@@ -0,0 +1,57 @@
+package com.naturgy.gas.bench;
+
+import com.naturgy.gas.entity.Invoice;
+import com.naturgy.gas.service.InvoicePdfService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice PDFs per second on one thread (i.e. per core) for the PDFBox renderer the backend used
+ * before and the template renderer it uses now. Run with {@code -prof gc}: gc.alloc.rate.norm
+ * is the number of bytes allocated per PDF.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class InvoicePdfBenchmark {
+
+    private final LegacyInvoicePdfRenderer legacy = new LegacyInvoicePdfRenderer();
+    private final InvoicePdfService template = new InvoicePdfService(new SimpleMeterRegistry());
+    private Invoice invoice;
+    private OutputStream sink;
+
+    @Setup
+    public void setUp(Blackhole bh) {
+        invoice = BenchmarkData.invoice("GAS-202602-ES0021000000001AA-001", "ES0021000000001AA");
+        sink = new OutputStream() {
+            @Override public void write(int b) { bh.consume(b); }
+            @Override public void write(byte[] b, int off, int len) { bh.consume(len); }
+        };
+    }
+
+    /** Former implementation: PDDocument + new fonts + String.format per line + toByteArray. */
+    @Benchmark
+    public byte[] legacyPdfBox() {
+        return legacy.generatePdf(invoice);
+    }
+
+    /** Template renderer returning a byte[] (the cache path): one copy out of the pooled buffer. */
+    @Benchmark
+    public byte[] templateBytes() {
+        return template.generatePdf(invoice);
+    }
+
+    /** Template renderer writing straight to a response-like stream. */
+    @Benchmark
+    public void templateStream() {
+        template.writePdf(invoice, sink);
+    }
+}
@@ -0,0 +1,55 @@
+package com.naturgy.gas.bench;
+
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.repository.GasReadingBatchWriter;
+import com.naturgy.gas.service.ReadingImportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading CSV rows per second through ReadingImportService.importCsv (the parser behind
+ * POST /api/gas/readings/import, uploads and directory drops) with a writer that accepts every
+ * batch without a database, so only decoding, validation and batching are measured. The seed
+ * files are split and parsed the same way.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(ReadingCsvParseBenchmark.ROWS)
+public class ReadingCsvParseBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private ReadingImportService importService;
+    private byte[] csv;
+
+    @Setup
+    public void setUp() {
+        GasReadingBatchWriter acceptAll = new GasReadingBatchWriter(null, null) {
+            @Override
+            public boolean[] insertIfAbsent(List<GasReading> readings) {
+                boolean[] inserted = new boolean[readings.size()];
+                Arrays.fill(inserted, true);
+                return inserted;
+            }
+        };
+        importService = new ReadingImportService(acceptAll, event -> {}, new SimpleMeterRegistry(), 500, 1_000_000);
+        csv = BenchmarkData.readingsCsv(ROWS, 100);
+    }
+
+    /** Score is rows/s; gc.alloc.rate.norm is bytes per row. */
+    @Benchmark
+    public ReadingImportService.ImportResult importCsv() throws IOException {
+        return importService.importCsv(new ByteArrayInputStream(csv));
+    }
+}
@@ -1,15 +1,16 @@
 import { http } from '../../../shared/api/httpClient';
+import type { Page } from '../../../shared/api/httpClient';
 import type { Invoice, BillingResult } from '../../../shared/types';
 
 export const billingApi = {
   runBilling: (period: string) =>
     http.post<BillingResult>(`/billing/run?period=${encodeURIComponent(period)}`),
-  getInvoices: (cups?: string, period?: string) => {
-    const params = new URLSearchParams();
+  /** One page (0-based) of invoice headers; the list is paged server side. */
+  getInvoices: (page: number, size: number, cups?: string, period?: string): Promise<Page<Invoice>> => {
+    const params = new URLSearchParams({ page: String(page), size: String(size), lines: 'false' });
     if (cups) params.set('cups', cups);
     if (period) params.set('period', period);
-    const qs = params.toString();
-    return http.get<Invoice[]>(`/invoices${qs ? '?' + qs : ''}`);
+    return http.getPage<Invoice>(`/invoices?${params.toString()}`);
   },
   getInvoice: (id: number) => http.get<Invoice>(`/invoices/${id}`),
   deleteInvoice: (id: number) => http.del(`/invoices/${id}`),
@@ -23,7 +23,7 @@ import {
   Typography,
 } from '@mui/material';
 import { DataGrid } from '@mui/x-data-grid';
-import type { GridColDef } from '@mui/x-data-grid';
+import type { GridColDef, GridPaginationModel } from '@mui/x-data-grid';
 import PlayArrowIcon from '@mui/icons-material/PlayArrow';
 import VisibilityIcon from '@mui/icons-material/Visibility';
 import DownloadIcon from '@mui/icons-material/Download';
@@ -44,6 +44,8 @@ export default function BillingPage() {
   const [showBillingResult, setShowBillingResult] = useState(false);
 
   const [invoices, setInvoices] = useState<Invoice[]>([]);
+  const [invoiceCount, setInvoiceCount] = useState(0);
+  const [paginationModel, setPaginationModel] = useState<GridPaginationModel>({ page: 0, pageSize: 10 });
   const [loadingInvoices, setLoadingInvoices] = useState(false);
   const [invoiceError, setInvoiceError] = useState<string | null>(null);
   const [success, setSuccess] = useState<string | null>(null);
@@ -55,15 +57,27 @@ export default function BillingPage() {
   const [selectedInvoice, setSelectedInvoice] = useState<Invoice | null>(null);
   const [loadingDetail, setLoadingDetail] = useState(false);
 
-  const loadInvoices = (cups?: string, period?: string) => {
+  // Filters only apply when "Aplicar filtros" is pressed
+  const [appliedFilters, setAppliedFilters] = useState<{ cups?: string; period?: string }>({});
+
+  const loadInvoices = () => {
     setLoadingInvoices(true);
-    billingApi.getInvoices(cups || undefined, period || undefined)
-      .then(setInvoices)
+    billingApi.getInvoices(paginationModel.page, paginationModel.pageSize,
+      appliedFilters.cups, appliedFilters.period)
+      .then((page) => {
+        setInvoices(page.items);
+        setInvoiceCount(page.total);
+      })
       .catch((e: Error) => setInvoiceError(e.message))
       .finally(() => setLoadingInvoices(false));
   };
 
-  useEffect(() => { loadInvoices(); }, []);
+  useEffect(() => { loadInvoices(); }, [paginationModel, appliedFilters]);
+
+  const applyFilters = () => {
+    setAppliedFilters({ cups: filterCups || undefined, period: filterPeriod || undefined });
+    setPaginationModel((m) => ({ ...m, page: 0 }));
+  };
 
   const validatePeriod = (): boolean => {
     if (!period.trim()) {
@@ -87,7 +101,7 @@ export default function BillingPage() {
       setBillingResult(result);
       setShowBillingResult(true);
       setSuccess(`Facturación ejecutada: ${result.invoicesCreated} factura(s) creadas`);
-      loadInvoices(filterCups || undefined, filterPeriod || undefined);
+      loadInvoices();
     } catch (e: unknown) {
       setInvoiceError(e instanceof Error ? e.message : 'Error al ejecutar facturación');
     } finally {
@@ -124,7 +138,7 @@ export default function BillingPage() {
     try {
       await billingApi.deleteInvoice(id);
       setSuccess('Factura eliminada');
-      loadInvoices(filterCups || undefined, filterPeriod || undefined);
+      loadInvoices();
     } catch (e: unknown) {
       setInvoiceError(e instanceof Error ? e.message : 'Error al eliminar');
     }
@@ -272,7 +286,7 @@ export default function BillingPage() {
           <Button
             variant="outlined"
             startIcon={<FilterListIcon />}
-            onClick={() => loadInvoices(filterCups || undefined, filterPeriod || undefined)}
+            onClick={applyFilters}
           >
             Aplicar filtros
           </Button>
@@ -290,8 +304,12 @@ export default function BillingPage() {
           columns={columns}
           getRowId={(r) => r.id}
           autoHeight
+          paginationMode="server"
+          rowCount={invoiceCount}
+          loading={loadingInvoices}
+          paginationModel={paginationModel}
+          onPaginationModelChange={setPaginationModel}
           pageSizeOptions={[10, 25, 50]}
-          initialState={{ pagination: { paginationModel: { pageSize: 10 } } }}
           localeText={{ noRowsLabel: 'Sin facturas' }}
         />
       </Paper>
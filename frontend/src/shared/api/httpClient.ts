@@ -41,10 +41,22 @@ async function handleResponse<T>(res: Response): Promise<T> {
   return res.json() as Promise<T>;
 }
 
+/** One page of a paged list endpoint; total comes from the X-Total-Count header. */
+export interface Page<T> {
+  items: T[];
+  total: number;
+}
+
 export const http = {
   get<T>(path: string): Promise<T> {
     return fetch(`${BASE}${path}`).then((r) => handleResponse<T>(r));
   },
+  async getPage<T>(path: string): Promise<Page<T>> {
+    const res = await fetch(`${BASE}${path}`);
+    const items = await handleResponse<T[]>(res);
+    const total = Number(res.headers.get('X-Total-Count') ?? items.length);
+    return { items, total };
+  },
   post<T>(path: string, body?: unknown): Promise<T> {
     return fetch(`${BASE}${path}`, {
       method: 'POST',
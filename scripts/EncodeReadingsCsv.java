@@ -0,0 +1,51 @@
+import com.naturgy.gas.entity.GasReading;
+import com.naturgy.gas.ingest.ReadingBinaryEncoder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Converts a cups,fecha,lectura_m3,tipo CSV (with header) into the GRB1 binary format.
+ * Two passes, constant memory per row. Single-file program against the compiled backend:
+ *
+ *   java -cp backend/target/classes scripts/EncodeReadingsCsv.java readings.csv readings.grb
+ */
+public class EncodeReadingsCsv {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: EncodeReadingsCsv <readings.csv> <out.grb>");
+            System.exit(2);
+        }
+        Path csv = Paths.get(args[0]);
+        Set<String> cups = new LinkedHashSet<>();
+        try (BufferedReader br = Files.newBufferedReader(csv)) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.isBlank()) cups.add(line.substring(0, line.indexOf(',')).trim());
+            }
+        }
+        long rows = 0;
+        try (BufferedReader br = Files.newBufferedReader(csv);
+             ReadingBinaryEncoder enc = new ReadingBinaryEncoder(Files.newOutputStream(Paths.get(args[1])), cups)) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] cols = line.split(",", -1);
+                enc.write(cols[0].trim(), LocalDate.parse(cols[1].trim()), new BigDecimal(cols[2].trim()),
+                        GasReading.TipoEnum.valueOf(cols[3].trim()));
+                rows++;
+            }
+        }
+        System.out.println("Encoded " + rows + " readings, " + cups.size() + " CUPS → " + args[1]);
+    }
+}
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+# =============================================================================
+# bench-jmh.sh — run the JMH benchmarks (benchmarks/) and keep the results
+#
+# Installs the backend library jar, builds the benchmark jar offline and runs
+# it with the gc profiler, so every benchmark reports its score (throughput)
+# plus gc.alloc.rate and gc.alloc.rate.norm (bytes per operation). Results
+# are written as JMH JSON to
+# reports/jmh/<backend version>-<git sha>-<timestamp>.json, which can be
+# compared across releases; with BASELINE set, a score/allocation comparison
+# against that file is printed at the end.
+#
+# Benchmarks (com.naturgy.gas.bench):
+#   BillingCalculatorBenchmark  per-CUPS billing arithmetic (+ invoice build)
+#   BillingRunBenchmark         full runBillingForPeriod, Spring + H2, 500 CUPS
+#   ReadingCsvParseBenchmark    reading CSV import parsing, rows/s
+#   InvoicePdfBenchmark         invoice PDF rendering (template vs old PDFBox)
+#   InvoiceJsonBenchmark        invoice JSON serialization
+#
+# Usage: scripts/bench-jmh.sh [JMH args...]   e.g. scripts/bench-jmh.sh Billing -f 2
+#
+# Environment:
+#   OUT        result file, default reports/jmh/<version>-<sha>-<timestamp>.json
+#   BASELINE   earlier result file to compare against (needs python3)
+#   MVN_FLAGS  default -o (offline; needs a previously populated ~/.m2)
+#
+# Fully offline: only the local JDK and maven repository are used.
+# =============================================================================
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+MVN_FLAGS="${MVN_FLAGS:--o}"
+BASELINE="${BASELINE:-}"
+
+log() { echo "[BENCH] $*"; }
+
+version="$(sed -n '/<artifactId>gas-workshop<\/artifactId>/{n;s/.*<version>\(.*\)<\/version>.*/\1/p;q}' "$ROOT/backend/pom.xml")"
+sha="$(git -C "$ROOT" rev-parse --short HEAD 2>/dev/null || echo nogit)"
+OUT="${OUT:-$ROOT/reports/jmh/${version:-unknown}-$sha-$(date +%Y%m%d-%H%M%S).json}"
+mkdir -p "$(dirname "$OUT")"
+
+log "installing backend/ as a library (mvn $MVN_FLAGS install)"
+(cd "$ROOT/backend" && mvn -B -q $MVN_FLAGS install -DskipTests)
+
+log "building benchmarks/ (mvn $MVN_FLAGS package)"
+(cd "$ROOT/benchmarks" && mvn -B -q $MVN_FLAGS package)
+
+log "running JMH, results -> $OUT"
+java -jar "$ROOT/benchmarks/target/benchmarks.jar" -prof gc -rf json -rff "$OUT" "$@"
+
+if [[ -n "$BASELINE" ]]; then
+  python3 - "$BASELINE" "$OUT" <<'EOF'
+import json, sys
+
+def load(path):
+    rows = {}
+    for r in json.load(open(path)):
+        name = r["benchmark"].rsplit(".", 2)[-2] + "." + r["benchmark"].rsplit(".", 1)[-1]
+        if r.get("params"):
+            name += str(r["params"])
+        alloc = r.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+        rows[name] = (r["primaryMetric"]["score"], r["primaryMetric"]["scoreUnit"], alloc)
+    return rows
+
+base, cur = load(sys.argv[1]), load(sys.argv[2])
+print(f"\n{'benchmark':55} {'baseline':>14} {'current':>14} {'change':>8} {'B/op base':>11} {'B/op now':>11}")
+for name in sorted(cur):
+    score, unit, alloc = cur[name]
+    if name not in base:
+        print(f"{name:55} {'-':>14} {score:14.1f} {'new':>8} {'-':>11} {alloc or 0:11.0f}")
+        continue
+    b_score, _, b_alloc = base[name]
+    change = (score / b_score - 1) * 100 if b_score else 0
+    print(f"{name:55} {b_score:14.1f} {score:14.1f} {change:+7.1f}% {b_alloc or 0:11.0f} {alloc or 0:11.0f}")
+EOF
+fi
@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# =============================================================================
+# bench-reading-import.sh — CSV vs GRB1 binary reading import throughput
+#
+# Generates two synthetic reading sets with disjoint CUPS (so neither run sees
+# duplicates from the other), encodes one as GRB1 with scripts/EncodeReadingsCsv.java and
+# posts them to a running backend:
+#   CSV    → resumable upload, one chunk (same ReadingImportService CSV path as
+#            /api/gas/readings/import, without the multipart size limit)
+#   Binary → POST /api/gas/readings/import/binary
+#
+# Prerequisites: backend running, classes compiled (cd backend && mvn compile).
+#
+# Environment:
+#   BACKEND_URL   default http://localhost:8080
+#   ROWS          readings per format, default 20000
+#   CUPS_COUNT    distinct CUPS per format, default 2000
+#
+# Fully offline: only curl, awk and the local JDK are used.
+# =============================================================================
+set -euo pipefail
+
+BACKEND_URL="${BACKEND_URL:-http://localhost:8080}"
+ROWS="${ROWS:-20000}"
+CUPS_COUNT="${CUPS_COUNT:-2000}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+CLASSES="$ROOT/backend/target/classes"
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+
+log() { echo "[BENCH] $*"; }
+
+gen_csv() {  # <prefix> <out>
+  awk -v rows="$ROWS" -v ncups="$CUPS_COUNT" -v prefix="$1" 'BEGIN {
+    print "cups,fecha,lectura_m3,tipo";
+    per = int(rows / ncups); if (per < 1) per = 1;
+    n = 0;
+    for (c = 0; c < ncups && n < rows; c++) {
+      for (d = 0; d < per && n < rows; d++) {
+        # monthly readings on the 28th, starting 2000-01
+        printf "%s%012d,%04d-%02d-28,%.3f,REAL\n", prefix, c, 2000 + int(d / 12), d % 12 + 1, 1000 + d * 37.125;
+        n++;
+      }
+    }
+  }' > "$2"
+}
+
+[[ -d "$CLASSES" ]] || { log "missing $CLASSES — run 'mvn compile' in backend/ first"; exit 1; }
+
+log "generating $ROWS rows x 2 ($CUPS_COUNT CUPS each)"
+gen_csv "ES00BENCHCSV" "$WORK/csv.csv"
+gen_csv "ES00BENCHBIN" "$WORK/bin.csv"
+java -cp "$CLASSES" "$ROOT/scripts/EncodeReadingsCsv.java" "$WORK/bin.csv" "$WORK/bin.grb" >/dev/null
+
+csv_bytes=$(stat -c %s "$WORK/csv.csv")
+bin_bytes=$(stat -c %s "$WORK/bin.grb")
+
+now() { date +%s.%N; }
+elapsed() { awk -v a="$1" -v b="$(now)" 'BEGIN { printf "%.3f", b - a }'; }
+
+# CSV via the upload protocol (single chunk)
+upload_id=$(curl -sf -X POST "$BACKEND_URL/api/gas/readings/uploads?fileName=bench.csv" | sed -E 's/.*"uploadId":"([^"]+)".*/\1/')
+t0=$(now)
+curl -sf -X PUT -H 'Content-Type: application/octet-stream' --data-binary @"$WORK/csv.csv" \
+     "$BACKEND_URL/api/gas/readings/uploads/$upload_id/chunks/0" >/dev/null
+curl -sf -X POST "$BACKEND_URL/api/gas/readings/uploads/$upload_id/complete?totalChunks=1" -o "$WORK/csv.json"
+csv_time=$(elapsed "$t0")
+
+t0=$(now)
+curl -sf -X POST -H 'Content-Type: application/vnd.naturgy.gas-readings.v1' \
+     --data-binary @"$WORK/bin.grb" "$BACKEND_URL/api/gas/readings/import/binary" -o "$WORK/bin.json"
+bin_time=$(elapsed "$t0")
+
+rate() { awk -v r="$ROWS" -v t="$1" 'BEGIN { printf "%.0f", (t > 0 ? r / t : 0) }'; }
+
+printf '\n%-8s %12s %10s %12s  %s\n' format bytes seconds rows/s result
+printf '%-8s %12s %10s %12s  %s\n' csv "$csv_bytes" "$csv_time" "$(rate "$csv_time")" "$(cut -c1-60 "$WORK/csv.json")"
+printf '%-8s %12s %10s %12s  %s\n' binary "$bin_bytes" "$bin_time" "$(rate "$bin_time")" "$(cut -c1-60 "$WORK/bin.json")"
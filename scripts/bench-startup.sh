@@ -0,0 +1,101 @@
+#!/usr/bin/env bash
+# =============================================================================
+# bench-startup.sh — backend startup: executable jar vs Spring AOT + AppCDS
+#
+# Builds the backend once with the "cds" profile (which also produces the
+# regular executable jar), then starts each variant RUNS times on a free port
+# and records, per run:
+#   ttfr   time from process launch to the first 200 on PROBE_PATH (by default
+#          the readiness probe, i.e. seed and warm-up done)
+#   rss    resident set size of the JVM at that moment (VmRSS)
+# Variants:
+#   jar    java -jar target/gas-workshop-*.jar            (what the image runs)
+#   aot    target/cds/app.jar with -Dspring.aot.enabled=true, no archive
+#   cds    target/cds/app.jar with AOT and -XX:SharedArchiveFile=app.jsa
+#
+# Prerequisites: JDK 17 (the one that builds the archive), maven, curl.
+#
+# Environment:
+#   RUNS          starts per variant, default 5
+#   PROBE_PATH    default /actuator/health/readiness
+#   JAVA_OPTS     extra JVM flags for every variant (e.g. -Xmx512m)
+#   SKIP_BUILD    1 = reuse the existing target/ output
+#   MVN_FLAGS     default -o (offline; needs a previously populated ~/.m2)
+#   OUT           optional CSV file for the raw per-run numbers
+#
+# Fully offline: only the local JDK, maven repository, curl and awk are used.
+# =============================================================================
+set -euo pipefail
+
+RUNS="${RUNS:-5}"
+PROBE_PATH="${PROBE_PATH:-/actuator/health/readiness}"
+JAVA_OPTS="${JAVA_OPTS:-}"
+SKIP_BUILD="${SKIP_BUILD:-0}"
+MVN_FLAGS="${MVN_FLAGS:--o}"
+OUT="${OUT:-}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+BACKEND="$ROOT/backend"
+CDS="$BACKEND/target/cds"
+WORK="$(mktemp -d)"
+PID=""
+cleanup() { [[ -n "$PID" ]] && kill "$PID" 2>/dev/null || true; rm -rf "$WORK"; }
+trap cleanup EXIT
+
+log() { echo "[BENCH] $*"; }
+
+if [[ "$SKIP_BUILD" != "1" ]]; then
+  log "building backend with -Pcds (AOT + training run)"
+  (cd "$BACKEND" && mvn -B -q $MVN_FLAGS -Pcds package -DskipTests)
+fi
+JAR="$(ls "$BACKEND"/target/gas-workshop-*.jar | grep -v original | head -1)"
+[[ -f "$JAR" && -f "$CDS/app.jar" && -f "$CDS/app.jsa" ]] \
+  || { log "missing build output — run without SKIP_BUILD=1"; exit 1; }
+
+free_port() { python3 -c 'import socket; s=socket.socket(); s.bind(("",0)); print(s.getsockname()[1])' 2>/dev/null \
+              || echo $((20000 + RANDOM % 20000)); }
+now_ms() { date +%s%3N; }
+
+# run_once <variant> -> writes "ttfr_ms rss_kb" to $WORK/result; non-zero if the JVM died.
+# Runs in the calling shell so a failure stops the script and the trap sees PID.
+run_once() {
+  local port dir start
+  port="$(free_port)"
+  dir="$WORK/$1-$RANDOM"; mkdir -p "$dir"
+  local args=(--server.port="$port" --gas.data.dir="$ROOT/_data/db/samples"
+              --gas.pdf-cache.dir="$dir/pdf-cache" --gas.upload.dir="$dir/uploads")
+  start="$(now_ms)"
+  case "$1" in
+    jar) (cd "$dir" && exec java $JAVA_OPTS -jar "$JAR" "${args[@]}") >"$dir/out.log" 2>&1 & ;;
+    aot) (cd "$dir" && exec java $JAVA_OPTS -Dspring.aot.enabled=true -jar "$CDS/app.jar" "${args[@]}") >"$dir/out.log" 2>&1 & ;;
+    cds) (cd "$dir" && exec java $JAVA_OPTS -XX:SharedArchiveFile="$CDS/app.jsa" -Xshare:auto \
+            -Dspring.aot.enabled=true -jar "$CDS/app.jar" "${args[@]}") >"$dir/out.log" 2>&1 & ;;
+  esac
+  PID=$!
+  until curl -sf -o /dev/null "http://localhost:$port$PROBE_PATH"; do
+    kill -0 "$PID" 2>/dev/null || { log "$1 exited early:"; tail -20 "$dir/out.log"; PID=""; return 1; }
+    sleep 0.02
+  done
+  local ttfr=$(( $(now_ms) - start ))
+  local rss; rss="$(awk '/VmRSS/ { print $2 }' "/proc/$PID/status")"
+  kill "$PID"; wait "$PID" 2>/dev/null || true; PID=""
+  echo "$ttfr $rss" > "$WORK/result"
+}
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2 ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2)) }'; }
+
+[[ -n "$OUT" ]] && echo "variant,run,ttfr_ms,rss_kb" > "$OUT"
+printf '\n%-6s %6s %14s %12s %14s\n' variant runs "ttfr ms (med)" "ttfr ms (min)" "rss MB (med)"
+for variant in jar aot cds; do
+  : > "$WORK/$variant.txt"
+  run_once "$variant" || exit 1   # first start warms the page cache, not counted
+  for ((i = 1; i <= RUNS; i++)); do
+    run_once "$variant" || exit 1
+    read -r ttfr rss < "$WORK/result"
+    echo "$ttfr $rss" >> "$WORK/$variant.txt"
+    [[ -n "$OUT" ]] && echo "$variant,$i,$ttfr,$rss" >> "$OUT"
+  done
+  printf '%-6s %6s %14s %12s %14s\n' "$variant" "$RUNS" \
+    "$(cut -d' ' -f1 "$WORK/$variant.txt" | median)" \
+    "$(cut -d' ' -f1 "$WORK/$variant.txt" | sort -n | head -1)" \
+    "$(cut -d' ' -f2 "$WORK/$variant.txt" | median | awk '{ printf "%.0f", $1 / 1024 }')"
+done